@@ -0,0 +1,56 @@
+package com.hello.bigclean.gradle;
+
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.provider.Property;
+
+/**
+ * bigclean { } 配置块，各项与命令行运行器的参数一致
+ * <pre>
+ * bigclean {
+ *     engine = 'class-bytecode'
+ *     format = 'sarif'
+ *     heap = '4g'
+ *     failOnFindings = true
+ * }
+ * </pre>
+ */
+public class BigCleanExtension {
+    // 分析引擎，同命令行的 --engine；字节码引擎会先编译各源码集
+    private final Property<String> engine;
+    // 报告格式：jsonl 或 sarif
+    private final Property<String> format;
+    // 工作进程的堆上限
+    private final Property<String> heap;
+    // 分析线程数，不设置时为工作进程可用的CPU核数
+    private final Property<Integer> threads;
+    // 有结果时构建失败
+    private final Property<Boolean> failOnFindings;
+
+    public BigCleanExtension(ObjectFactory objects) {
+        engine = objects.property(String.class).convention("class");
+        format = objects.property(String.class).convention("jsonl");
+        heap = objects.property(String.class).convention("2g");
+        threads = objects.property(Integer.class);
+        failOnFindings = objects.property(Boolean.class).convention(false);
+    }
+
+    public Property<String> getEngine() {
+        return engine;
+    }
+
+    public Property<String> getFormat() {
+        return format;
+    }
+
+    public Property<String> getHeap() {
+        return heap;
+    }
+
+    public Property<Integer> getThreads() {
+        return threads;
+    }
+
+    public Property<Boolean> getFailOnFindings() {
+        return failOnFindings;
+    }
+}
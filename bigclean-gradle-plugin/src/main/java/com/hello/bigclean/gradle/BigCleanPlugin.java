@@ -0,0 +1,82 @@
+package com.hello.bigclean.gradle;
+
+import org.gradle.api.Plugin;
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.SourceSetContainer;
+import org.gradle.api.tasks.TaskProvider;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+
+/**
+ * BigClean Gradle 插件：为 Java 模块注册 bigcleanScan 任务，并挂到 check 上。
+ * <pre>
+ * plugins {
+ *     id 'com.hello.bigclean.scan' version '1.0.2'
+ * }
+ * </pre>
+ * 扫描器默认取与插件同版本的命令行 jar，也可以在 bigcleanScanner 配置中自行指定
+ */
+public class BigCleanPlugin implements Plugin<Project> {
+    public static final String TASK_NAME = "bigcleanScan";
+    public static final String EXTENSION_NAME = "bigclean";
+    public static final String CONFIGURATION_NAME = "bigcleanScanner";
+    private static final String DEFAULT_VERSION = "1.0.2";
+    // 与扫描器中 ReferenceFile.FILE_NAME 相同，插件运行时不加载扫描器的类
+    private static final String REFERENCE_FILE_NAME = "bigclean-references.bin";
+
+    @Override
+    public void apply(Project project) {
+        BigCleanExtension extension = project.getExtensions().create(EXTENSION_NAME, BigCleanExtension.class, project.getObjects());
+        Configuration scanner = project.getConfigurations().create(CONFIGURATION_NAME, configuration -> {
+            configuration.setVisible(false);
+            configuration.setDescription("BigClean scanner used by the " + TASK_NAME + " task");
+            configuration.defaultDependencies(dependencies ->
+                    dependencies.add(project.getDependencies().create("com.hello.bigclean:bigclean-scanner:" + scannerVersion() + ":cli")));
+        });
+
+        project.getPluginManager().withPlugin("java", plugin -> {
+            TaskProvider<BigCleanScanTask> scan = project.getTasks().register(TASK_NAME, BigCleanScanTask.class, task -> {
+                task.setGroup("verification");
+                task.setDescription("Reports unused classes and methods of this module");
+                task.getScannerClasspath().from(scanner);
+                task.getRootDirectory().set(project.getLayout().getProjectDirectory());
+                task.getEngine().set(extension.getEngine());
+                task.getFormat().set(extension.getFormat());
+                task.getHeap().set(extension.getHeap());
+                task.getThreads().set(extension.getThreads());
+                task.getFailOnFindings().set(extension.getFailOnFindings());
+                task.getReportFile().convention(project.getLayout().getBuildDirectory()
+                        .file(extension.getFormat().map(format -> "reports/bigclean/bigclean." + format)));
+                for (SourceSet sourceSet : project.getExtensions().getByType(SourceSetContainer.class)) {
+                    task.getSources().from(sourceSet.getAllJava());
+                    task.getSourceDirectories().from(sourceSet.getAllJava().getSourceDirectories());
+                    // 只有字节码引擎和 javac 引擎才依赖编译，源码引擎不必等待编译
+                    task.getClassDirectories().from((Callable<Object>) () -> isCompiledEngine(extension.getEngine().get())
+                            ? sourceSet.getOutput().getClassesDirs() : Collections.emptyList());
+                }
+                // javac 引擎读取编译时由 BigCleanReferences 插件写出的引用文件
+                task.getReferenceFiles().from((Callable<Object>) () -> isJavacEngine(extension.getEngine().get())
+                        ? project.fileTree(project.getLayout().getBuildDirectory(), tree -> tree.include("**/" + REFERENCE_FILE_NAME))
+                        : Collections.emptyList());
+            });
+            project.getTasks().named("check").configure(check -> check.dependsOn(scan));
+        });
+    }
+
+    private static boolean isCompiledEngine(String engine) {
+        return engine.toLowerCase(Locale.ROOT).contains("bytecode") || isJavacEngine(engine);
+    }
+
+    private static boolean isJavacEngine(String engine) {
+        return engine.toLowerCase(Locale.ROOT).contains("javac");
+    }
+
+    private static String scannerVersion() {
+        String version = BigCleanPlugin.class.getPackage().getImplementationVersion();
+        return version != null ? version : DEFAULT_VERSION;
+    }
+}
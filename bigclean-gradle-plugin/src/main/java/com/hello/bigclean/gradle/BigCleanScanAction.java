@@ -0,0 +1,59 @@
+package com.hello.bigclean.gradle;
+
+import com.hello.bigclean.cli.BigCleanCli;
+import com.hello.bigclean.spoon.helper.SpoonModelProvider;
+import org.gradle.api.GradleException;
+import org.gradle.workers.WorkAction;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 在工作进程中执行一个模块的分析。工作进程会被多个模块复用，分析结束后丢弃缓存的 Spoon 模型，
+ * 避免前面模块的模型一直占用堆
+ */
+public abstract class BigCleanScanAction implements WorkAction<BigCleanScanParameters> {
+
+    @Override
+    public void execute() {
+        BigCleanScanParameters parameters = getParameters();
+        File reportFile = parameters.getReportFile().get().getAsFile();
+        List<String> args = new ArrayList<>();
+        args.add("--root");
+        args.add(parameters.getRootDirectory().get().getAsFile().getAbsolutePath());
+        // 只读取任务声明的输入，根项目目录下嵌套的子模块不参与分析
+        for (File input : parameters.getInputs()) {
+            args.add("--input");
+            args.add(input.getAbsolutePath());
+        }
+        args.add("--engine");
+        args.add(parameters.getEngine().get());
+        args.add("--format");
+        args.add(parameters.getFormat().get());
+        args.add("--output");
+        args.add(reportFile.getAbsolutePath());
+        if (parameters.getThreads().isPresent()) {
+            args.add("--threads");
+            args.add(String.valueOf(parameters.getThreads().get()));
+        }
+        if (parameters.getFailOnFindings().get()) {
+            args.add("--fail-on-findings");
+        }
+        int exitCode;
+        try {
+            reportFile.getParentFile().mkdirs();
+            exitCode = BigCleanCli.execute(args.toArray(new String[0]));
+        } catch (Exception e) {
+            throw new GradleException("BigClean 分析失败: " + e.getMessage(), e);
+        } finally {
+            SpoonModelProvider.clear();
+        }
+        if (exitCode == 1) {
+            throw new GradleException("发现无用代码，报告: " + reportFile);
+        }
+        if (exitCode != 0) {
+            throw new GradleException("BigClean 分析失败，退出码 " + exitCode);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.hello.bigclean.gradle;
+
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.workers.WorkParameters;
+
+/**
+ * 交给工作进程的分析参数
+ */
+public interface BigCleanScanParameters extends WorkParameters {
+    DirectoryProperty getRootDirectory();
+
+    /**
+     * 分析读取的源码目录、编译输出目录和引用文件，即命令行的 --input
+     */
+    ConfigurableFileCollection getInputs();
+
+    Property<String> getEngine();
+
+    Property<String> getFormat();
+
+    Property<Integer> getThreads();
+
+    Property<Boolean> getFailOnFindings();
+
+    RegularFileProperty getReportFile();
+}
@@ -0,0 +1,168 @@
+package com.hello.bigclean.gradle;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Classpath;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.SkipWhenEmpty;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.workers.WorkQueue;
+import org.gradle.workers.WorkerExecutor;
+
+import javax.inject.Inject;
+
+/**
+ * 分析一个模块的无用代码并写出报告。
+ * 源码和编译输出目录是输入，报告文件是输出：模块没有变化时任务直接跳过，或从构建缓存取回报告。
+ * 分析在独立的工作进程中执行，堆上限单独设置，不占用 Gradle 守护进程的堆；
+ * 任务提交后即返回，多个模块的分析可以和构建的其他任务并行执行（需要 --parallel）
+ */
+@CacheableTask
+public class BigCleanScanTask extends DefaultTask {
+    private final WorkerExecutor workerExecutor;
+    private final ConfigurableFileCollection sources;
+    private final ConfigurableFileCollection sourceDirectories;
+    private final ConfigurableFileCollection classDirectories;
+    private final ConfigurableFileCollection referenceFiles;
+    private final ConfigurableFileCollection scannerClasspath;
+    private final DirectoryProperty rootDirectory;
+    private final Property<String> engine;
+    private final Property<String> format;
+    private final Property<String> heap;
+    private final Property<Integer> threads;
+    private final Property<Boolean> failOnFindings;
+    private final RegularFileProperty reportFile;
+
+    @Inject
+    public BigCleanScanTask(WorkerExecutor workerExecutor, ObjectFactory objects) {
+        this.workerExecutor = workerExecutor;
+        this.sources = objects.fileCollection();
+        this.sourceDirectories = objects.fileCollection();
+        this.classDirectories = objects.fileCollection();
+        this.referenceFiles = objects.fileCollection();
+        this.scannerClasspath = objects.fileCollection();
+        this.rootDirectory = objects.directoryProperty();
+        this.engine = objects.property(String.class);
+        this.format = objects.property(String.class);
+        this.heap = objects.property(String.class);
+        this.threads = objects.property(Integer.class);
+        this.failOnFindings = objects.property(Boolean.class);
+        this.reportFile = objects.fileProperty();
+    }
+
+    /**
+     * 各源码集的 Java 源码
+     */
+    @InputFiles
+    @SkipWhenEmpty
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public ConfigurableFileCollection getSources() {
+        return sources;
+    }
+
+    /**
+     * 各源码集的源码目录，交给扫描器作为读取范围；其中的 Java 源码已由 sources 声明
+     */
+    @Internal
+    public ConfigurableFileCollection getSourceDirectories() {
+        return sourceDirectories;
+    }
+
+    /**
+     * 各源码集的编译输出，只有字节码引擎和 javac 引擎需要
+     */
+    @InputFiles
+    @Optional
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public ConfigurableFileCollection getClassDirectories() {
+        return classDirectories;
+    }
+
+    /**
+     * 编译时写出的引用文件，只有 javac 引擎需要；引用文件需要写在模块的构建目录下
+     */
+    @InputFiles
+    @Optional
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public ConfigurableFileCollection getReferenceFiles() {
+        return referenceFiles;
+    }
+
+    /**
+     * 扫描器及其依赖，在工作进程中加载
+     */
+    @Classpath
+    public ConfigurableFileCollection getScannerClasspath() {
+        return scannerClasspath;
+    }
+
+    /**
+     * 模块目录，报告中的路径相对于它。扫描器只读取 sourceDirectories、classDirectories 和 referenceFiles，
+     * 不遍历整个目录，嵌套在其中的子模块变化时不会出现过期的结果
+     */
+    @Internal
+    public DirectoryProperty getRootDirectory() {
+        return rootDirectory;
+    }
+
+    @Input
+    public Property<String> getEngine() {
+        return engine;
+    }
+
+    @Input
+    public Property<String> getFormat() {
+        return format;
+    }
+
+    /**
+     * 只影响工作进程的内存，不影响报告内容
+     */
+    @Internal
+    public Property<String> getHeap() {
+        return heap;
+    }
+
+    @Internal
+    public Property<Integer> getThreads() {
+        return threads;
+    }
+
+    @Input
+    public Property<Boolean> getFailOnFindings() {
+        return failOnFindings;
+    }
+
+    @OutputFile
+    public RegularFileProperty getReportFile() {
+        return reportFile;
+    }
+
+    @TaskAction
+    public void scan() {
+        WorkQueue workQueue = workerExecutor.processIsolation(spec -> {
+            spec.getClasspath().from(scannerClasspath);
+            spec.forkOptions(options -> options.setMaxHeapSize(heap.get()));
+        });
+        workQueue.submit(BigCleanScanAction.class, parameters -> {
+            parameters.getRootDirectory().set(rootDirectory);
+            parameters.getInputs().from(sourceDirectories, classDirectories, referenceFiles);
+            parameters.getEngine().set(engine);
+            parameters.getFormat().set(format);
+            parameters.getThreads().set(threads);
+            parameters.getFailOnFindings().set(failOnFindings);
+            parameters.getReportFile().set(reportFile);
+        });
+    }
+}
@@ -1,9 +1,17 @@
 package com.hello.bigclean;
 
+import com.hello.bigclean.handler.DeadIslandAnalyzer;
+import com.hello.bigclean.handler.IndicatorScanProgress;
 import com.hello.bigclean.handler.RegexUnusedClassAnalyzer;
 import com.hello.bigclean.handler.MethodModelHandler;
+import com.hello.bigclean.handler.PsiUnusedClassAnalyzer;
 import com.hello.bigclean.handler.SpoonUnusedClassAnalyzer;
+import com.hello.bigclean.spoon.helper.SpoonModelProvider;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
 import com.intellij.openapi.wm.ToolWindow;
 import com.intellij.openapi.wm.ToolWindowFactory;
 import com.intellij.openapi.fileEditor.FileEditorManager;
@@ -13,9 +21,6 @@ import com.intellij.openapi.vfs.VfsUtil;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
-import com.intellij.psi.search.GlobalSearchScope;
-import com.intellij.psi.search.searches.ClassInheritorsSearch;
-import com.intellij.psi.search.searches.ReferencesSearch;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.ui.JBColor;
 import com.intellij.util.ui.UIUtil;
@@ -31,15 +36,21 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import com.hello.bigclean.spoon.reference.MethodReference;
+import com.hello.bigclean.util.ScanProgress;
 
 public class ClassPathAnalyzerFactory implements ToolWindowFactory {
     private JTree unusedClassTreeRegex;
     private JTree unusedClassTreeSpoon;
+    private JTree unusedClassTreeBytecode;
+    private JTree unusedClassTreeIndex;
+    private JTree unusedClassTreeTiered;
+    private JTree deadIslandTree;
     private JTree unusedMethodTree;
     private Project currentProject;
     
     // 方法过滤相关组件
     private JTextField excludeKeywordsField;
+    private JComboBox<String> methodEngineComboBox;
     private List<MethodReference> allUnusedMethods = new ArrayList<>();
     
     // 静态初始化块 - 插件加载时就会执行
@@ -58,6 +69,11 @@ public class ClassPathAnalyzerFactory implements ToolWindowFactory {
         System.out.println("项目名称: " + project.getName());
         System.out.println("项目路径: " + project.getBasePath());
         this.currentProject = project;
+        // 项目关闭时释放缓存的 Spoon 模型，否则会话中打开过的每个项目的模型都会一直占用堆内存
+        String basePath = project.getBasePath();
+        if (basePath != null) {
+            Disposer.register(project, () -> SpoonModelProvider.invalidate(basePath));
+        }
         
         JPanel mainPanel = new JPanel(new BorderLayout());
         mainPanel.setBackground(UIUtil.getPanelBackground());
@@ -71,11 +87,19 @@ public class ClassPathAnalyzerFactory implements ToolWindowFactory {
         // 初始化树组件
         unusedClassTreeRegex = createStyledTree();
         unusedClassTreeSpoon = createStyledTree();
+        unusedClassTreeBytecode = createStyledTree();
+        unusedClassTreeIndex = createStyledTree();
+        unusedClassTreeTiered = createStyledTree();
+        deadIslandTree = createStyledTree();
         unusedMethodTree = createStyledTree();
         
         // 为每个树组件添加鼠标点击事件监听器
         addNavigationListener(unusedClassTreeRegex);
         addNavigationListener(unusedClassTreeSpoon);
+        addNavigationListener(unusedClassTreeBytecode);
+        addNavigationListener(unusedClassTreeIndex);
+        addNavigationListener(unusedClassTreeTiered);
+        addNavigationListener(deadIslandTree);
         addNavigationListener(unusedMethodTree);
         
         // 创建无用类的子标签页
@@ -105,7 +129,7 @@ public class ClassPathAnalyzerFactory implements ToolWindowFactory {
             unusedClassTreeRegex, 
             "使用正则表达式分析Java文件，快速识别潜在的无用类",
             "正则表达式分析",
-            () -> refreshRegexAnalysis()
+            this::refreshRegexAnalysis
         );
         tabbedPane.addTab("正则表达式分析", regexPanel);
         
@@ -114,10 +138,46 @@ public class ClassPathAnalyzerFactory implements ToolWindowFactory {
             unusedClassTreeSpoon, 
             "使用Spoon AST分析，提供更精确的语法分析和依赖关系检查",
             "Spoon AST分析",
-            () -> refreshSpoonAnalysis()
+            this::refreshSpoonAnalysis
         );
         tabbedPane.addTab("Spoon AST分析", spoonPanel);
         
+        // 分层分析标签页
+        JPanel tieredPanel = createTabPanelWithRefreshButton(
+            unusedClassTreeTiered, 
+            "先用正则记号索引排除确定被使用的类，只对剩余的类做Spoon AST验证，精度同Spoon、速度接近正则",
+            "分层分析",
+            this::refreshTieredAnalysis
+        );
+        tabbedPane.addTab("分层分析", tieredPanel);
+        
+        // 字节码分析标签页
+        JPanel bytecodePanel = createTabPanelWithRefreshButton(
+            unusedClassTreeBytecode, 
+            "读取编译输出目录中的字节码分析类引用，类型精确且速度快，需要先编译项目",
+            "字节码分析",
+            this::refreshBytecodeAnalysis
+        );
+        tabbedPane.addTab("字节码分析", bytecodePanel);
+        
+        // IDE索引分析标签页
+        JPanel indexPanel = createTabPanelWithRefreshButton(
+            unusedClassTreeIndex, 
+            "使用IDE已建立的索引查找每个类的引用，无需重新解析源码，需要等待索引完成",
+            "IDE索引分析",
+            this::refreshIndexAnalysis
+        );
+        tabbedPane.addTab("IDE索引分析", indexPanel);
+        
+        // 可达性分析标签页
+        JPanel islandPanel = createTabPanelWithRefreshButton(
+            deadIslandTree, 
+            "从入口类和入口方法出发做可达性分析，找出只互相引用的无用类簇和方法簇",
+            "可达性分析",
+            this::refreshDeadIslandAnalysis
+        );
+        tabbedPane.addTab("可达性分析", islandPanel);
+        
         return tabbedPane;
     }
     
@@ -128,15 +188,14 @@ public class ClassPathAnalyzerFactory implements ToolWindowFactory {
         return createMethodTabPanelWithFilter(
             unusedMethodTree, 
             "分析项目中未被使用的方法",
-            "无用方法分析",
-            () -> refreshMethodAnalysis()
+            "无用方法分析"
         );
     }
     
     /**
      * 创建带有刷新按钮的标签页面板
      */
-    private JPanel createTabPanelWithRefreshButton(JTree tree, String description, String tabName, Runnable refreshAction) {
+    private JPanel createTabPanelWithRefreshButton(JTree tree, String description, String tabName, BackgroundAnalysis analysis) {
         JPanel panel = new JPanel(new BorderLayout());
         panel.setBackground(UIUtil.getPanelBackground());
         
@@ -160,25 +219,7 @@ public class ClassPathAnalyzerFactory implements ToolWindowFactory {
         
         // 刷新按钮
         JButton refreshButton = createStyledButton("Refresh", 120, 32);
-        refreshButton.addActionListener(e -> {
-            refreshButton.setEnabled(false);
-            refreshButton.setText("Analyzing...");
-            timingLabel.setText("Executing...");
-            
-            long startTime = System.currentTimeMillis();
-            SwingUtilities.invokeLater(() -> {
-                try {
-                    refreshAction.run();
-                } finally {
-                    long endTime = System.currentTimeMillis();
-                    long duration = endTime - startTime;
-                    
-                    refreshButton.setEnabled(true);
-                    refreshButton.setText("Refresh");
-                    timingLabel.setText("上次执行耗时: " + formatDuration(duration));
-                }
-            });
-        });
+        refreshButton.addActionListener(e -> runAnalysisInBackground(tabName, analysis, refreshButton, timingLabel));
         
         // 左侧面板：描述和耗时
         JPanel leftPanel = new JPanel(new BorderLayout());
@@ -202,7 +243,7 @@ public class ClassPathAnalyzerFactory implements ToolWindowFactory {
     /**
      * 创建带有过滤功能的方法标签页面板
      */
-    private JPanel createMethodTabPanelWithFilter(JTree tree, String description, String tabName, Runnable refreshAction) {
+    private JPanel createMethodTabPanelWithFilter(JTree tree, String description, String tabName) {
         JPanel panel = new JPanel(new BorderLayout());
         panel.setBackground(UIUtil.getPanelBackground());
         
@@ -235,28 +276,20 @@ public class ClassPathAnalyzerFactory implements ToolWindowFactory {
         JPanel rightPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
         rightPanel.setOpaque(false);
         
+        // 分析方式：源码分析、编译输出的字节码或IDE索引
+        methodEngineComboBox = new JComboBox<>(new String[]{"源码分析", "字节码分析", "IDE索引分析"});
+        methodEngineComboBox.setToolTipText("字节码分析需要先编译项目；IDE索引分析无需重新解析源码，需要等待索引完成");
+        methodEngineComboBox.setFont(UIUtil.getLabelFont());
+        
         // 刷新按钮
         JButton refreshButton = createStyledButton("Refresh", 120, 32);
         refreshButton.addActionListener(e -> {
-            refreshButton.setEnabled(false);
-            refreshButton.setText("Analyzing...");
-            timingLabel.setText("Executing...");
-            
-            long startTime = System.currentTimeMillis();
-            SwingUtilities.invokeLater(() -> {
-                try {
-                    refreshAction.run();
-                } finally {
-                    long endTime = System.currentTimeMillis();
-                    long duration = endTime - startTime;
-                    
-                    refreshButton.setEnabled(true);
-                    refreshButton.setText("Refresh");
-                    timingLabel.setText("上次执行耗时: " + formatDuration(duration));
-                }
-            });
+            // 分析方式在 EDT 上读取，后台任务只使用读到的值
+            int engine = methodEngineComboBox.getSelectedIndex();
+            runAnalysisInBackground(tabName, progress -> refreshMethodAnalysis(engine, progress), refreshButton, timingLabel);
         });
         
+        rightPanel.add(methodEngineComboBox);
         rightPanel.add(refreshButton);
         
         topPanel.add(leftPanel, BorderLayout.WEST);
@@ -544,61 +577,139 @@ public class ClassPathAnalyzerFactory implements ToolWindowFactory {
     
     
     /**
-     * 刷新正则表达式分析
+     * 在可取消的后台任务中执行分析，分析期间显示进度条，完成后回到 EDT 更新界面
      */
-    private void refreshRegexAnalysis() {
+    private void runAnalysisInBackground(String tabName, BackgroundAnalysis analysis, JButton refreshButton, JLabel timingLabel) {
         if (currentProject == null) return;
-        
-        try {
-            DefaultTreeModel unusedClassTreeModelRegex = RegexUnusedClassAnalyzer.buildUnusedClassTreeRegex(currentProject);
-            unusedClassTreeRegex.setModel(unusedClassTreeModelRegex);
-        } catch (Exception e) {
-            showError("正则表达式分析失败: " + e.getMessage());
-        }
+
+        refreshButton.setEnabled(false);
+        refreshButton.setText("Analyzing...");
+        timingLabel.setText("Executing...");
+
+        long startTime = System.currentTimeMillis();
+        new Task.Backgroundable(currentProject, tabName, true) {
+            private Runnable applyResult;
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                try {
+                    applyResult = analysis.run(new IndicatorScanProgress(indicator));
+                } catch (InterruptedException e) {
+                    throw new ProcessCanceledException(e);
+                }
+            }
+
+            @Override
+            public void onSuccess() {
+                applyResult.run();
+                timingLabel.setText("上次执行耗时: " + formatDuration(System.currentTimeMillis() - startTime));
+            }
+
+            @Override
+            public void onCancel() {
+                System.out.println(tabName + " 已取消");
+                timingLabel.setText("上次执行已取消");
+            }
+
+            @Override
+            public void onThrowable(@NotNull Throwable error) {
+                error.printStackTrace();
+                timingLabel.setText("上次执行失败");
+                showError(tabName + "失败: " + error.getMessage());
+            }
+
+            @Override
+            public void onFinished() {
+                refreshButton.setEnabled(true);
+                refreshButton.setText("Refresh");
+            }
+        }.queue();
+    }
+
+    /**
+     * 刷新正则表达式分析
+     */
+    private Runnable refreshRegexAnalysis(ScanProgress progress) throws InterruptedException {
+        DefaultTreeModel unusedClassTreeModelRegex = RegexUnusedClassAnalyzer.buildUnusedClassTreeRegex(currentProject, progress);
+        return () -> unusedClassTreeRegex.setModel(unusedClassTreeModelRegex);
     }
     
     /**
      * 刷新Spoon AST分析
      */
-    private void refreshSpoonAnalysis() {
-        if (currentProject == null) return;
-        
-        try {
-            DefaultTreeModel unusedClassTreeModelSpoon = SpoonUnusedClassAnalyzer.buildUnusedClassTreeSpoon(currentProject);
-            unusedClassTreeSpoon.setModel(unusedClassTreeModelSpoon);
-        } catch (Exception e) {
-            showError("Spoon AST分析失败: " + e.getMessage());
-        }
+    private Runnable refreshSpoonAnalysis(ScanProgress progress) throws InterruptedException {
+        DefaultTreeModel unusedClassTreeModelSpoon = SpoonUnusedClassAnalyzer.buildUnusedClassTreeSpoon(currentProject, progress);
+        return () -> unusedClassTreeSpoon.setModel(unusedClassTreeModelSpoon);
+    }
+    
+    /**
+     * 刷新分层分析
+     */
+    private Runnable refreshTieredAnalysis(ScanProgress progress) throws InterruptedException {
+        DefaultTreeModel unusedClassTreeModelTiered = SpoonUnusedClassAnalyzer.buildUnusedClassTreeTiered(currentProject, progress);
+        return () -> unusedClassTreeTiered.setModel(unusedClassTreeModelTiered);
+    }
+    
+    /**
+     * 刷新字节码分析
+     */
+    private Runnable refreshBytecodeAnalysis(ScanProgress progress) throws InterruptedException {
+        DefaultTreeModel unusedClassTreeModelBytecode = SpoonUnusedClassAnalyzer.buildUnusedClassTreeBytecode(currentProject, progress);
+        return () -> unusedClassTreeBytecode.setModel(unusedClassTreeModelBytecode);
     }
     
     /**
-     * 刷新方法分析
+     * 刷新IDE索引分析
      */
-    private void refreshMethodAnalysis() {
+    private Runnable refreshIndexAnalysis(ScanProgress progress) throws InterruptedException {
+        DefaultTreeModel unusedClassTreeModelIndex = PsiUnusedClassAnalyzer.buildUnusedClassTreeIndex(currentProject, progress);
+        return () -> unusedClassTreeIndex.setModel(unusedClassTreeModelIndex);
+    }
+    
+    /**
+     * 刷新可达性分析
+     */
+    private Runnable refreshDeadIslandAnalysis(ScanProgress progress) throws InterruptedException {
+        DefaultTreeModel deadIslandTreeModel = DeadIslandAnalyzer.buildDeadIslandTree(currentProject, progress);
+        return () -> {
+            deadIslandTree.setModel(deadIslandTreeModel);
+            deadIslandTree.expandRow(0);
+        };
+    }
+    
+    /**
+     * 刷新方法分析，engine 为分析方式下拉框的选项（0 源码、1 字节码、2 IDE索引）
+     */
+    private Runnable refreshMethodAnalysis(int engine, ScanProgress progress) throws InterruptedException {
         System.out.println("=== 开始方法分析 ===");
-        if (currentProject == null) {
-            System.out.println("ERROR: currentProject 为 null");
-            return;
-        }
-        
         System.out.println("项目路径: " + currentProject.getBasePath());
         System.out.println("项目名称: " + currentProject.getName());
         
-        try {
-            System.out.println("调用 MethodModelHandler.getUnusedMethods()");
-            // 获取所有无用方法
-            allUnusedMethods = MethodModelHandler.getUnusedMethods(currentProject);
-            System.out.println("获取到无用方法数量: " + allUnusedMethods.size());
-            
+        // 获取所有无用方法
+        List<MethodReference> unusedMethods;
+        if (engine == 2) {
+            System.out.println("调用 MethodModelHandler.getUnusedMethodsByIndex()");
+            unusedMethods = MethodModelHandler.getUnusedMethodsByIndex(currentProject, progress);
+        } else {
+            String mode = engine == 1 ? "SCAN_ALL_METHOD_BYTECODE" : "SCAN_ALL_METHOD";
+            System.out.println("调用 MethodModelHandler.getUnusedMethods(), 分析方式: " + mode);
+            unusedMethods = MethodModelHandler.getUnusedMethods(currentProject, mode, progress);
+        }
+        System.out.println("获取到无用方法数量: " + unusedMethods.size());
+        System.out.println("=== 方法分析成功完成 ===");
+
+        return () -> {
+            allUnusedMethods = unusedMethods;
             // 应用当前的过滤设置
             applyMethodFilter(unusedMethodTree);
-            
-            System.out.println("=== 方法分析成功完成 ===");
-        } catch (Exception e) {
-            System.out.println("ERROR: 方法分析失败");
-            e.printStackTrace();
-            showError("方法分析失败: " + e.getMessage());
-        }
+        };
+    }
+
+    /**
+     * 后台执行的分析：在后台线程中计算结果，返回在 EDT 上更新界面的动作，取消时抛出 InterruptedException
+     */
+    private interface BackgroundAnalysis {
+        Runnable run(ScanProgress progress) throws InterruptedException;
     }
     
     /**
@@ -630,16 +741,28 @@ public class ClassPathAnalyzerFactory implements ToolWindowFactory {
         // 创建空的根节点
         javax.swing.tree.DefaultMutableTreeNode regexRoot = new javax.swing.tree.DefaultMutableTreeNode("正则表达式分析结果");
         javax.swing.tree.DefaultMutableTreeNode spoonRoot = new javax.swing.tree.DefaultMutableTreeNode("Spoon AST分析结果");
+        javax.swing.tree.DefaultMutableTreeNode tieredRoot = new javax.swing.tree.DefaultMutableTreeNode("分层分析结果");
+        javax.swing.tree.DefaultMutableTreeNode bytecodeRoot = new javax.swing.tree.DefaultMutableTreeNode("字节码分析结果");
+        javax.swing.tree.DefaultMutableTreeNode indexRoot = new javax.swing.tree.DefaultMutableTreeNode("IDE索引分析结果");
+        javax.swing.tree.DefaultMutableTreeNode islandRoot = new javax.swing.tree.DefaultMutableTreeNode("可达性分析结果");
         javax.swing.tree.DefaultMutableTreeNode methodRoot = new javax.swing.tree.DefaultMutableTreeNode("无用方法分析结果");
         
         // 设置空的树模型
         unusedClassTreeRegex.setModel(new javax.swing.tree.DefaultTreeModel(regexRoot));
         unusedClassTreeSpoon.setModel(new javax.swing.tree.DefaultTreeModel(spoonRoot));
+        unusedClassTreeTiered.setModel(new javax.swing.tree.DefaultTreeModel(tieredRoot));
+        unusedClassTreeBytecode.setModel(new javax.swing.tree.DefaultTreeModel(bytecodeRoot));
+        unusedClassTreeIndex.setModel(new javax.swing.tree.DefaultTreeModel(indexRoot));
+        deadIslandTree.setModel(new javax.swing.tree.DefaultTreeModel(islandRoot));
         unusedMethodTree.setModel(new javax.swing.tree.DefaultTreeModel(methodRoot));
         
         // 展开根节点
         unusedClassTreeRegex.expandRow(0);
         unusedClassTreeSpoon.expandRow(0);
+        unusedClassTreeTiered.expandRow(0);
+        unusedClassTreeBytecode.expandRow(0);
+        unusedClassTreeIndex.expandRow(0);
+        deadIslandTree.expandRow(0);
         unusedMethodTree.expandRow(0);
     }
     
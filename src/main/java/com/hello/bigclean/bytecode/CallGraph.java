@@ -0,0 +1,206 @@
+package com.hello.bigclean.bytecode;
+
+import com.hello.bigclean.util.ScanProgress;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 字节码调用图：按调用指令上的所属类、方法名和描述符解析被调用的方法，重载按描述符精确区分。
+ * 静态调用和 invokespecial 沿父类链找到声明方法；虚调用和接口调用再按类层次分析（CHA）
+ * 把所属类所有子类型中可能被分派到的方法都计为已使用，所属类是 JDK 或第三方类型时同样分派到项目中的子类。
+ * 项目外的父类型从扫描器自身的类路径（JDK 以及 Spring 等随插件提供的库）读取字节码，沿其继承链向上补全子类型关系，
+ * 这样对 List.size() 的调用也能分派到继承 AbstractList 的项目类；类路径上找不到的第三方类型只记录直接继承关系，
+ * 通过它间接继承的调用无法分派，对应的方法可能被误报为无用。
+ * 与源码分析一致，方法只要在任意位置被调用就算已使用，不做从入口出发的可达性分析；
+ * 唯一例外是编译器生成的桥接方法，它内部的调用只在桥接方法本身被调用时才计入。
+ */
+public class CallGraph {
+    private static final int CANCEL_CHECK_INTERVAL = 4096;
+
+    private final Map<String, ClassCallInfo> classes = new HashMap<>();
+    // 直接子类型：父类和接口到直接继承或实现它的类，包括项目外类型之间的继承关系
+    private final Map<String, List<String>> directSubtypes = new HashMap<>();
+    private final Map<String, Set<String>> subtypeCache = new HashMap<>();
+    // 已读取过父类型的项目外类型
+    private final Set<String> externalTypes = new HashSet<>();
+
+    public CallGraph(List<ClassCallInfo> infos) {
+        for (ClassCallInfo info : infos) {
+            // 同名类出现在多个输出目录时取第一个
+            if (classes.putIfAbsent(info.getName(), info) != null) {
+                continue;
+            }
+            addSupertypes(info.getName(), info.getSuperName(), info.getInterfaces());
+        }
+        for (ClassCallInfo info : classes.values()) {
+            loadExternalSupertypes(info.getSuperName());
+            info.getInterfaces().forEach(this::loadExternalSupertypes);
+        }
+    }
+
+    private void addSupertypes(String name, String superName, Iterable<String> interfaces) {
+        if (superName != null) {
+            directSubtypes.computeIfAbsent(superName, k -> new ArrayList<>()).add(name);
+        }
+        for (String iface : interfaces) {
+            directSubtypes.computeIfAbsent(iface, k -> new ArrayList<>()).add(name);
+        }
+    }
+
+    /**
+     * 沿项目外类型的继承链向上读取父类和接口，补全到 directSubtypes 中；读不到字节码的类型跳过
+     */
+    private void loadExternalSupertypes(String className) {
+        if (className == null) {
+            return;
+        }
+        Deque<String> queue = new ArrayDeque<>();
+        queue.add(className);
+        while (!queue.isEmpty()) {
+            String name = queue.poll();
+            if (classes.containsKey(name) || !externalTypes.add(name)) {
+                continue;
+            }
+            ClassReader reader = readExternalClass(name);
+            if (reader == null) {
+                continue;
+            }
+            List<String> interfaces = Arrays.asList(reader.getInterfaces());
+            addSupertypes(name, reader.getSuperName(), interfaces);
+            if (reader.getSuperName() != null) {
+                queue.add(reader.getSuperName());
+            }
+            queue.addAll(interfaces);
+        }
+    }
+
+    private static ClassReader readExternalClass(String internalName) {
+        ClassLoader loader = CallGraph.class.getClassLoader();
+        if (loader == null) {
+            loader = ClassLoader.getSystemClassLoader();
+        }
+        try (InputStream in = loader.getResourceAsStream(internalName + ".class")) {
+            return in != null ? new ClassReader(in) : null;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    public Map<String, ClassCallInfo> getClasses() {
+        return classes;
+    }
+
+    /**
+     * 计算被调用的方法，返回的集合按对象身份比较
+     */
+    public Set<MethodInfo> computeUsedMethods(ScanProgress progress) throws InterruptedException {
+        Set<MethodInfo> usedMethods = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<MethodCall> pending = new ArrayDeque<>();
+        for (ClassCallInfo info : classes.values()) {
+            for (MethodInfo method : info.getMethods().values()) {
+                if (!isBridge(method)) {
+                    pending.addAll(method.getCalls());
+                }
+            }
+        }
+        // 同一个调用目标只解析一次
+        Set<MethodCall> resolved = new HashSet<>();
+        int processed = 0;
+        while (!pending.isEmpty()) {
+            if (++processed % CANCEL_CHECK_INTERVAL == 0) {
+                progress.checkCanceled();
+            }
+            MethodCall call = pending.poll();
+            if (!resolved.add(call)) {
+                continue;
+            }
+            for (MethodInfo target : resolve(call)) {
+                if (usedMethods.add(target) && isBridge(target)) {
+                    pending.addAll(target.getCalls());
+                }
+            }
+        }
+        return usedMethods;
+    }
+
+    /**
+     * 一次调用可能执行到的项目内方法
+     */
+    private Set<MethodInfo> resolve(MethodCall call) {
+        Set<MethodInfo> targets = new LinkedHashSet<>();
+        String key = call.getName() + call.getDescriptor();
+        MethodInfo declared = findInSuperChain(call.getOwner(), key);
+        if (declared != null) {
+            targets.add(declared);
+        }
+        if (call.isVirtual()) {
+            for (String subtype : subtypes(call.getOwner())) {
+                MethodInfo override = findInSuperChain(subtype, key);
+                if (override != null && !isStaticOrPrivate(override)) {
+                    targets.add(override);
+                }
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * 从 className 开始沿父类链查找声明了该方法的类，链上遇到项目外的类时停止
+     */
+    private MethodInfo findInSuperChain(String className, String key) {
+        ClassCallInfo info = classes.get(className);
+        while (info != null) {
+            MethodInfo method = info.getMethods().get(key);
+            if (method != null) {
+                return method;
+            }
+            info = info.getSuperName() != null ? classes.get(info.getSuperName()) : null;
+        }
+        return null;
+    }
+
+    /**
+     * 项目中 className 的所有子类型（不含自身）
+     */
+    private Set<String> subtypes(String className) {
+        Set<String> cached = subtypeCache.get(className);
+        if (cached != null) {
+            return cached;
+        }
+        Set<String> result = new LinkedHashSet<>();
+        Deque<String> queue = new ArrayDeque<>();
+        queue.add(className);
+        while (!queue.isEmpty()) {
+            for (String subtype : directSubtypes.getOrDefault(queue.poll(), Collections.emptyList())) {
+                if (result.add(subtype)) {
+                    queue.add(subtype);
+                }
+            }
+        }
+        subtypeCache.put(className, result);
+        return result;
+    }
+
+    private static boolean isBridge(MethodInfo method) {
+        return (method.getAccess() & Opcodes.ACC_BRIDGE) != 0;
+    }
+
+    private static boolean isStaticOrPrivate(MethodInfo method) {
+        return (method.getAccess() & (Opcodes.ACC_STATIC | Opcodes.ACC_PRIVATE)) != 0;
+    }
+}
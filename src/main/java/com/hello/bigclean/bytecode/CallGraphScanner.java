@@ -0,0 +1,157 @@
+package com.hello.bigclean.bytecode;
+
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * 调用点扫描：读取一个 .class 文件的类型层次、方法声明和方法体中的调用。
+ * 调用来自 invokevirtual/invokeinterface/invokestatic/invokespecial 指令，
+ * 以及 invokedynamic 的引导方法和引导参数中的方法句柄（lambda 的实现方法、方法引用的目标方法）和 ldc 加载的方法句柄。
+ */
+public class CallGraphScanner {
+
+    /**
+     * 读取一个 .class 文件，失败时返回null
+     */
+    public static ClassCallInfo read(Path classFile) {
+        try (InputStream in = Files.newInputStream(classFile)) {
+            return read(new ClassReader(in));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("读取字节码失败: " + classFile + " " + e.getMessage());
+            return null;
+        }
+    }
+
+    public static ClassCallInfo read(ClassReader reader) {
+        ClassCallInfo info = new ClassCallInfo();
+        // 行号表用于计算方法行数，不能跳过调试信息
+        reader.accept(new ClassCollector(info), ClassReader.SKIP_FRAMES);
+        return info;
+    }
+
+    private static class ClassCollector extends ClassVisitor {
+        private final ClassCallInfo info;
+
+        ClassCollector(ClassCallInfo info) {
+            super(Opcodes.ASM9);
+            this.info = info;
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            info.setName(name);
+            info.setAccess(access);
+            info.setSuperName(superName);
+            if (interfaces != null) {
+                info.getInterfaces().addAll(Arrays.asList(interfaces));
+            }
+        }
+
+        @Override
+        public void visitInnerClass(String name, String outerName, String innerName, int access) {
+            if (name.equals(info.getName()) && (innerName == null || outerName == null)) {
+                info.setAnonymous(true);
+            }
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            info.getAnnotations().add(descriptor);
+            return null;
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+            MethodInfo method = new MethodInfo();
+            method.setOwner(info.getName());
+            method.setName(name);
+            method.setDescriptor(descriptor);
+            method.setAccess(access);
+            info.getMethods().put(method.getKey(), method);
+            return new CallCollector(method);
+        }
+    }
+
+    private static class CallCollector extends MethodVisitor {
+        private final MethodInfo method;
+
+        CallCollector(MethodInfo method) {
+            super(Opcodes.ASM9);
+            this.method = method;
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            method.getAnnotations().add(descriptor);
+            return null;
+        }
+
+        @Override
+        public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+            addCall(owner, name, descriptor, opcode == Opcodes.INVOKEVIRTUAL || opcode == Opcodes.INVOKEINTERFACE);
+        }
+
+        @Override
+        public void visitInvokeDynamicInsn(String name, String descriptor, Handle bootstrapMethodHandle, Object... bootstrapMethodArguments) {
+            addHandle(bootstrapMethodHandle);
+            for (Object argument : bootstrapMethodArguments) {
+                if (argument instanceof Handle) {
+                    addHandle((Handle) argument);
+                }
+            }
+        }
+
+        @Override
+        public void visitLdcInsn(Object value) {
+            if (value instanceof Handle) {
+                addHandle((Handle) value);
+            }
+        }
+
+        @Override
+        public void visitLineNumber(int line, Label start) {
+            if (method.getFirstLine() == 0 || line < method.getFirstLine()) {
+                method.setFirstLine(line);
+            }
+            if (line > method.getLastLine()) {
+                method.setLastLine(line);
+            }
+        }
+
+        private void addHandle(Handle handle) {
+            switch (handle.getTag()) {
+                case Opcodes.H_INVOKEVIRTUAL:
+                case Opcodes.H_INVOKEINTERFACE:
+                    addCall(handle.getOwner(), handle.getName(), handle.getDesc(), true);
+                    break;
+                case Opcodes.H_INVOKESTATIC:
+                case Opcodes.H_INVOKESPECIAL:
+                case Opcodes.H_NEWINVOKESPECIAL:
+                    addCall(handle.getOwner(), handle.getName(), handle.getDesc(), false);
+                    break;
+                default:
+                    // 字段句柄不是方法调用
+                    break;
+            }
+        }
+
+        private void addCall(String owner, String name, String descriptor, boolean virtual) {
+            // 数组类型上的 clone() 等调用没有对应的类
+            if (owner.startsWith("[")) {
+                return;
+            }
+            method.getCalls().add(new MethodCall(owner, name, descriptor, virtual));
+        }
+    }
+}
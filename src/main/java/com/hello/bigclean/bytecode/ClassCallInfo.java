@@ -0,0 +1,28 @@
+package com.hello.bigclean.bytecode;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 一个 .class 文件中读出的类型层次和方法，用于构建调用图
+ */
+@Data
+public class ClassCallInfo {
+    // 内部名，如 com/foo/Bar$Inner
+    private String name;
+    private String superName;
+    private List<String> interfaces = new ArrayList<>();
+    private int access;
+    // 匿名类或局部类
+    private boolean anonymous;
+    // 类上直接标注的注解描述符
+    private Set<String> annotations = new HashSet<>();
+    // 声明的方法，键为方法名加描述符
+    private Map<String, MethodInfo> methods = new LinkedHashMap<>();
+}
@@ -0,0 +1,30 @@
+package com.hello.bigclean.bytecode;
+
+import lombok.Data;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 一个 .class 文件中读出的类信息，类名均为内部名（如 com/foo/Bar$Inner）
+ */
+@Data
+public class ClassFileInfo {
+    private String name;
+    // 源码中的简单名，嵌套类取 InnerClasses 属性中的名字
+    private String simpleName;
+    // 匿名类或局部类
+    private boolean anonymous;
+    // 类上直接标注的注解描述符
+    private Set<String> annotations = new HashSet<>();
+    // 该类引用的所有类（不含 InnerClasses、EnclosingMethod 等只描述嵌套结构的属性）
+    private Set<String> references = new HashSet<>();
+
+    /**
+     * 包名，点分隔；默认包返回空串
+     */
+    public String getPackageName() {
+        int index = name.lastIndexOf('/');
+        return index < 0 ? "" : name.substring(0, index).replace('/', '.');
+    }
+}
@@ -0,0 +1,368 @@
+package com.hello.bigclean.bytecode;
+
+import com.hello.bigclean.util.ProjectFiles;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.TypePath;
+import org.objectweb.asm.signature.SignatureReader;
+import org.objectweb.asm.signature.SignatureVisitor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 字节码扫描：在项目的编译输出目录中查找 .class 文件，用 ASM 读出每个类引用的类型。
+ * 引用来自父类、接口、字段和方法的描述符与泛型签名、注解（包括 Class 和枚举类型的注解值）、
+ * 方法体中的类型指令、字段和方法的所属类、invokedynamic 的引导方法参数、异常表和局部变量表。
+ * 注意：编译期常量（static final 的基本类型和字符串）会被内联，SOURCE 级别的注解不会进入字节码，这两类引用看不到。
+ */
+public class ClassFileScanner {
+    // 编译输出目录：Maven 的 target/classes、target/test-classes，Gradle 的 build/classes/<语言>/<源码集>
+    private static final String[] OUTPUT_DIRS = {"/target/classes/", "/target/test-classes/", "/build/classes/"};
+
+    /**
+     * 查找根目录下所有编译输出目录中的 .class 文件
+     */
+    public static List<Path> findClassFiles(String rootDir) throws IOException {
+        try (Stream<Path> paths = ProjectFiles.walk(rootDir)) {
+            return paths.filter(ClassFileScanner::isCompiledClass).collect(Collectors.toList());
+        }
+    }
+
+    private static boolean isCompiledClass(Path path) {
+        String file = path.toString().replace('\\', '/');
+        if (!file.endsWith(".class") || file.endsWith("package-info.class") || file.endsWith("module-info.class")) {
+            return false;
+        }
+        for (String outputDir : OUTPUT_DIRS) {
+            if (file.contains(outputDir)) {
+                return Files.isRegularFile(path);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 读取一个 .class 文件，失败时返回null
+     */
+    public static ClassFileInfo read(Path classFile) {
+        try (InputStream in = Files.newInputStream(classFile)) {
+            return read(new ClassReader(in));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("读取字节码失败: " + classFile + " " + e.getMessage());
+            return null;
+        }
+    }
+
+    public static ClassFileInfo read(ClassReader reader) {
+        ClassFileInfo info = new ClassFileInfo();
+        reader.accept(new ReferenceCollector(info), ClassReader.SKIP_FRAMES);
+        return info;
+    }
+
+    /**
+     * 收集类中引用的类型
+     */
+    private static class ReferenceCollector extends ClassVisitor {
+        private final ClassFileInfo info;
+
+        ReferenceCollector(ClassFileInfo info) {
+            super(Opcodes.ASM9);
+            this.info = info;
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            info.setName(name);
+            info.setSimpleName(name.substring(name.lastIndexOf('/') + 1));
+            addInternalName(superName);
+            if (interfaces != null) {
+                for (String iface : interfaces) {
+                    addInternalName(iface);
+                }
+            }
+            addSignature(signature);
+        }
+
+        @Override
+        public void visitInnerClass(String name, String outerName, String innerName, int access) {
+            // 只用来确定自身的简单名，不计为引用
+            if (name.equals(info.getName())) {
+                if (innerName == null || outerName == null) {
+                    info.setAnonymous(true);
+                } else {
+                    info.setSimpleName(innerName);
+                }
+            }
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            info.getAnnotations().add(descriptor);
+            addDescriptor(descriptor);
+            return new AnnotationCollector();
+        }
+
+        @Override
+        public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String descriptor, boolean visible) {
+            addDescriptor(descriptor);
+            return new AnnotationCollector();
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+            addDescriptor(descriptor);
+            addSignature(signature);
+            return new FieldVisitor(Opcodes.ASM9) {
+                @Override
+                public AnnotationVisitor visitAnnotation(String annotation, boolean visible) {
+                    addDescriptor(annotation);
+                    return new AnnotationCollector();
+                }
+
+                @Override
+                public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String annotation, boolean visible) {
+                    addDescriptor(annotation);
+                    return new AnnotationCollector();
+                }
+            };
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+            addDescriptor(descriptor);
+            addSignature(signature);
+            if (exceptions != null) {
+                for (String exception : exceptions) {
+                    addInternalName(exception);
+                }
+            }
+            return new MethodCollector();
+        }
+
+        /**
+         * 方法体中的引用
+         */
+        private class MethodCollector extends MethodVisitor {
+            MethodCollector() {
+                super(Opcodes.ASM9);
+            }
+
+            @Override
+            public AnnotationVisitor visitAnnotationDefault() {
+                return new AnnotationCollector();
+            }
+
+            @Override
+            public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+                addDescriptor(descriptor);
+                return new AnnotationCollector();
+            }
+
+            @Override
+            public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String descriptor, boolean visible) {
+                addDescriptor(descriptor);
+                return new AnnotationCollector();
+            }
+
+            @Override
+            public AnnotationVisitor visitParameterAnnotation(int parameter, String descriptor, boolean visible) {
+                addDescriptor(descriptor);
+                return new AnnotationCollector();
+            }
+
+            @Override
+            public void visitTypeInsn(int opcode, String type) {
+                addInternalName(type);
+            }
+
+            @Override
+            public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+                addInternalName(owner);
+                addDescriptor(descriptor);
+            }
+
+            @Override
+            public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+                addInternalName(owner);
+                addDescriptor(descriptor);
+            }
+
+            @Override
+            public void visitInvokeDynamicInsn(String name, String descriptor, Handle bootstrapMethodHandle, Object... bootstrapMethodArguments) {
+                addDescriptor(descriptor);
+                addConstant(bootstrapMethodHandle);
+                for (Object argument : bootstrapMethodArguments) {
+                    addConstant(argument);
+                }
+            }
+
+            @Override
+            public void visitLdcInsn(Object value) {
+                addConstant(value);
+            }
+
+            @Override
+            public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+                addDescriptor(descriptor);
+            }
+
+            @Override
+            public AnnotationVisitor visitInsnAnnotation(int typeRef, TypePath typePath, String descriptor, boolean visible) {
+                addDescriptor(descriptor);
+                return new AnnotationCollector();
+            }
+
+            @Override
+            public void visitTryCatchBlock(Label start, Label end, Label handler, String type) {
+                addInternalName(type);
+            }
+
+            @Override
+            public AnnotationVisitor visitTryCatchAnnotation(int typeRef, TypePath typePath, String descriptor, boolean visible) {
+                addDescriptor(descriptor);
+                return new AnnotationCollector();
+            }
+
+            @Override
+            public void visitLocalVariable(String name, String descriptor, String signature, Label start, Label end, int index) {
+                addDescriptor(descriptor);
+                addSignature(signature);
+            }
+
+            @Override
+            public AnnotationVisitor visitLocalVariableAnnotation(int typeRef, TypePath typePath, Label[] start, Label[] end, int[] index, String descriptor, boolean visible) {
+                addDescriptor(descriptor);
+                return new AnnotationCollector();
+            }
+        }
+
+        /**
+         * 注解值中的 Class、枚举和嵌套注解
+         */
+        private class AnnotationCollector extends AnnotationVisitor {
+            AnnotationCollector() {
+                super(Opcodes.ASM9);
+            }
+
+            @Override
+            public void visit(String name, Object value) {
+                addConstant(value);
+            }
+
+            @Override
+            public void visitEnum(String name, String descriptor, String value) {
+                addDescriptor(descriptor);
+            }
+
+            @Override
+            public AnnotationVisitor visitAnnotation(String name, String descriptor) {
+                addDescriptor(descriptor);
+                return this;
+            }
+
+            @Override
+            public AnnotationVisitor visitArray(String name) {
+                return this;
+            }
+        }
+
+        private void addConstant(Object value) {
+            if (value instanceof Type) {
+                addType((Type) value);
+            } else if (value instanceof Handle) {
+                Handle handle = (Handle) value;
+                addInternalName(handle.getOwner());
+                addDescriptor(handle.getDesc());
+            }
+        }
+
+        private void addType(Type type) {
+            switch (type.getSort()) {
+                case Type.ARRAY:
+                    addType(type.getElementType());
+                    break;
+                case Type.OBJECT:
+                    info.getReferences().add(type.getInternalName());
+                    break;
+                case Type.METHOD:
+                    addDescriptor(type.getDescriptor());
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void addInternalName(String name) {
+            if (name != null) {
+                addType(Type.getObjectType(name));
+            }
+        }
+
+        private void addDescriptor(String descriptor) {
+            if (descriptor == null) {
+                return;
+            }
+            if (descriptor.charAt(0) == '(') {
+                Type methodType = Type.getMethodType(descriptor);
+                addType(methodType.getReturnType());
+                for (Type argument : methodType.getArgumentTypes()) {
+                    addType(argument);
+                }
+            } else {
+                addType(Type.getType(descriptor));
+            }
+        }
+
+        /**
+         * 泛型签名中的类型，包括类型实参和嵌套类（Outer&lt;T&gt;.Inner 形式）
+         */
+        private void addSignature(String signature) {
+            if (signature == null) {
+                return;
+            }
+            new SignatureReader(signature).accept(new SignatureCollector());
+        }
+
+        /**
+         * 类型实参用新的收集器访问，避免覆盖外层类型的名字，Outer&lt;A&gt;.Inner 才能拼出 Outer$Inner
+         */
+        private class SignatureCollector extends SignatureVisitor {
+            private String current;
+
+            SignatureCollector() {
+                super(Opcodes.ASM9);
+            }
+
+            @Override
+            public void visitClassType(String name) {
+                current = name;
+                addInternalName(name);
+            }
+
+            @Override
+            public void visitInnerClassType(String name) {
+                current = current + "$" + name;
+                addInternalName(current);
+            }
+
+            @Override
+            public SignatureVisitor visitTypeArgument(char wildcard) {
+                return new SignatureCollector();
+            }
+        }
+    }
+}
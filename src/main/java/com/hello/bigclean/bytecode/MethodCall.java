@@ -0,0 +1,18 @@
+package com.hello.bigclean.bytecode;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 字节码中的一次方法调用：invoke* 指令，或 invokedynamic 引导方法参数中的方法句柄（lambda、方法引用）
+ */
+@Data
+@AllArgsConstructor
+public class MethodCall {
+    // 调用指令上的所属类（内部名）
+    private String owner;
+    private String name;
+    private String descriptor;
+    // invokevirtual/invokeinterface 及对应的句柄，运行时按接收者类型分派
+    private boolean virtual;
+}
@@ -0,0 +1,29 @@
+package com.hello.bigclean.bytecode;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 一个方法的声明信息和方法体中的调用
+ */
+@Data
+public class MethodInfo {
+    private String owner;
+    private String name;
+    private String descriptor;
+    private int access;
+    // 方法上的注解描述符
+    private Set<String> annotations = new HashSet<>();
+    // 行号表中的首行和末行，没有方法体或没有调试信息时为0
+    private int firstLine;
+    private int lastLine;
+    private List<MethodCall> calls = new ArrayList<>();
+
+    public String getKey() {
+        return name + descriptor;
+    }
+}
@@ -0,0 +1,428 @@
+package com.hello.bigclean.cli;
+
+import com.hello.bigclean.spoon.helper.AnalysisSession;
+import com.hello.bigclean.spoon.helper.SpoonHelper;
+import com.hello.bigclean.spoon.helper.SpoonModelProvider;
+import com.hello.bigclean.spoon.reference.MethodReference;
+import com.hello.bigclean.spoon.reference.Reference;
+import com.hello.bigclean.spoon.strategy.ScanStrategy;
+import com.hello.bigclean.spoon.strategy.StrategyFactory;
+import com.hello.bigclean.util.ScanProgress;
+import spoon.reflect.CtModel;
+import spoon.reflect.declaration.CtType;
+import spoon.reflect.visitor.filter.TypeFilter;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 常驻的分析守护进程：每个工作区一个，Spoon 模型、各引擎的结果和类型引用图都留在内存中，
+ * 由 WorkspaceWatcher 监听文件变化，源码未变化时查询直接返回缓存的结果，不再付出 JVM 启动和解析的开销。
+ * 只监听本机回环地址，端口和口令写在用户目录的端口文件中，供 DaemonClient 连接；端口文件及其目录只有当前用户可读写。
+ * 空闲超过指定时间后释放全部缓存，下次查询时重新分析。
+ * <p>
+ * 协议：每个连接一条请求，格式为 "口令 命令 [参数...]"，响应为结果文档，最后一行以 "#bigclean " 开头，附带状态 JSON。
+ * <pre>
+ * unused 引擎 [jsonl|sarif]    无用类/方法，引擎为 StrategyFactory 中的策略名
+ * referenced 类名[#方法名]       类或方法是否被引用，类给出引用方列表
+ * status                       代数、已缓存的引擎和空闲时间
+ * evict                        立即释放缓存
+ * shutdown                     退出守护进程
+ * </pre>
+ */
+public class AnalysisDaemon {
+    static final String STATUS_PREFIX = "#bigclean ";
+
+    private final Path root;
+    private final long idleMillis;
+    private final String token;
+    private final WorkspaceWatcher watcher;
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "bigclean-daemon-connection");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "bigclean-daemon-evictor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // 引擎 -> 结果，代数与监听器一致时有效
+    private final Map<String, CachedResult> results = new ConcurrentHashMap<>();
+    // 常驻的类型引用图，用于回答 referenced 查询
+    private ReferenceGraph referenceGraph;
+    // 所有分析共用一个模型，串行执行
+    private final Object analysisLock = new Object();
+    private volatile long lastAccess = System.currentTimeMillis();
+    private volatile boolean running = true;
+
+    public AnalysisDaemon(Path root, int port, long idleMillis) throws IOException {
+        this.root = root.toAbsolutePath().normalize();
+        this.idleMillis = idleMillis;
+        this.token = newToken();
+        this.watcher = new WorkspaceWatcher(this.root);
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     * 端口文件位置：用户目录下按工作区路径区分，内容为 "端口 口令"
+     */
+    static Path portFile(Path root) {
+        String key = Integer.toHexString(root.toAbsolutePath().normalize().toString().hashCode());
+        return Paths.get(System.getProperty("user.home"), ".bigclean", "daemon", key + ".port");
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * 写出端口文件并处理连接，直到收到 shutdown
+     */
+    public void serve() throws IOException {
+        Path portFile = portFile(root);
+        writePortFile(portFile, (getPort() + " " + token).getBytes(StandardCharsets.UTF_8));
+        long period = Math.max(1000, Math.min(idleMillis / 4, 60_000));
+        evictor.scheduleWithFixedDelay(this::evictIfIdle, period, period, TimeUnit.MILLISECONDS);
+        System.err.println("[bigclean] 守护进程已启动: " + root + " 端口 " + getPort());
+        try {
+            while (running) {
+                Socket socket;
+                try {
+                    socket = serverSocket.accept();
+                } catch (IOException e) {
+                    if (running) {
+                        System.err.println("接受连接失败: " + e.getMessage());
+                    }
+                    continue;
+                }
+                connections.execute(() -> handle(socket));
+            }
+        } finally {
+            Files.deleteIfExists(portFile);
+            evictor.shutdownNow();
+            connections.shutdownNow();
+            watcher.close();
+            evict();
+            System.err.println("[bigclean] 守护进程已退出: " + root);
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (Socket s = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line = in.readLine();
+            String[] request = line != null ? line.trim().split("\\s+") : new String[0];
+            if (request.length < 2 || !token.equals(request[0])) {
+                status(out, "{\"status\":\"error\",\"message\":\"口令错误或缺少命令\"}");
+                return;
+            }
+            lastAccess = System.currentTimeMillis();
+            long start = System.currentTimeMillis();
+            try {
+                String summary = execute(request, out);
+                status(out, "{\"status\":\"ok\"" + summary + ",\"millis\":" + (System.currentTimeMillis() - start) + "}");
+            } catch (IllegalArgumentException e) {
+                status(out, "{\"status\":\"error\",\"message\":" + ResultWriter.quote(e.getMessage()) + "}");
+            } catch (Exception e) {
+                e.printStackTrace();
+                status(out, "{\"status\":\"error\",\"message\":" + ResultWriter.quote("分析失败: " + e.getMessage()) + "}");
+            }
+            lastAccess = System.currentTimeMillis();
+        } catch (IOException e) {
+            System.err.println("处理请求失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 执行一条命令，结果写入 out，返回追加到状态行中的摘要字段
+     */
+    private String execute(String[] request, Writer out) throws IOException, InterruptedException {
+        String command = request[1];
+        switch (command) {
+            case "unused": {
+                if (request.length < 3) {
+                    throw new IllegalArgumentException("unused 需要引擎名");
+                }
+                String key = request[2];
+                String format = request.length > 3 ? request[3] : "jsonl";
+                CachedResult result = unused(key);
+                ResultWriter writer = "sarif".equals(format) ? new SarifWriter(out, root) : new JsonLinesWriter(out, key);
+                writer.begin();
+                result.references.forEach(writer::write);
+                writer.close();
+                return ",\"count\":" + writer.getCount() + ",\"cached\":" + result.hit;
+            }
+            case "referenced": {
+                if (request.length < 3) {
+                    throw new IllegalArgumentException("referenced 需要类名");
+                }
+                out.write(referenced(request[2]));
+                out.write('\n');
+                return "";
+            }
+            case "status":
+                out.write("{\"root\":" + ResultWriter.quote(root.toString()) + ",\"generation\":" + watcher.getGeneration()
+                        + ",\"cached\":" + ResultWriter.array(new TreeSet<>(results.keySet()))
+                        + ",\"referenceGraph\":" + (referenceGraph != null)
+                        + ",\"idleMillis\":" + (System.currentTimeMillis() - lastAccess) + "}\n");
+                return "";
+            case "evict":
+                evict();
+                return "";
+            case "shutdown":
+                running = false;
+                serverSocket.close();
+                return "";
+            default:
+                throw new IllegalArgumentException("未知命令 " + command);
+        }
+    }
+
+    /**
+     * 引擎结果：源码未变化时直接返回缓存，否则重新分析
+     */
+    private CachedResult unused(String key) throws InterruptedException {
+        ScanStrategy strategy = StrategyFactory.obtainScanner(key);
+        if (strategy == null) {
+            throw new IllegalArgumentException("未知引擎 " + key);
+        }
+        synchronized (analysisLock) {
+            long generation = watcher.getGeneration();
+            CachedResult cached = results.get(key);
+            if (cached != null && cached.generation == generation) {
+                return new CachedResult(generation, cached.references, true);
+            }
+            List<Reference> references = new ArrayList<>(strategy.scan(root.toString(), ScanProgress.NONE));
+            CachedResult result = new CachedResult(generation, references, false);
+            results.put(key, result);
+            // 分析可能比空闲时间还长，完成时刷新访问时间，避免刚得到的结果随即被释放
+            lastAccess = System.currentTimeMillis();
+            return result;
+        }
+    }
+
+    /**
+     * 类是否被其他类引用，并列出引用方；方法按源码方法分析的结果判断，给出未被使用的重载签名
+     */
+    private String referenced(String name) throws InterruptedException {
+        int index = name.indexOf('#');
+        if (index >= 0) {
+            String className = name.substring(0, index);
+            String method = name.substring(index + 1);
+            List<String> unusedSignatures = new ArrayList<>();
+            for (Reference reference : unused("SCAN_ALL_METHOD").references) {
+                MethodReference methodReference = (MethodReference) reference;
+                if (className.equals(methodReference.getOriginalClass()) && method.equals(methodReference.getMethod())) {
+                    unusedSignatures.add(methodReference.getMethodDescriptor());
+                }
+            }
+            // 没有未使用的重载时确认方法确实存在，拼错的名称不能答成被引用
+            if (unusedSignatures.isEmpty()) {
+                CtType<?> type = findType(className);
+                if (type == null) {
+                    throw new IllegalArgumentException("未找到类 " + className);
+                }
+                if (type.getMethodsByName(method).isEmpty()) {
+                    throw new IllegalArgumentException("未找到方法 " + name);
+                }
+            }
+            return "{\"class\":" + ResultWriter.quote(className) + ",\"method\":" + ResultWriter.quote(method)
+                    + ",\"referenced\":" + unusedSignatures.isEmpty() + ",\"unused\":" + ResultWriter.array(unusedSignatures) + "}";
+        }
+        Set<String> referrers;
+        synchronized (analysisLock) {
+            long generation = watcher.getGeneration();
+            if (referenceGraph == null || referenceGraph.generation != generation) {
+                closeReferenceGraph();
+                referenceGraph = ReferenceGraph.build(root.toString(), generation);
+                lastAccess = System.currentTimeMillis();
+            }
+            referrers = referenceGraph.referrers(name);
+        }
+        if (referrers == null) {
+            throw new IllegalArgumentException("未找到类 " + name);
+        }
+        return "{\"class\":" + ResultWriter.quote(name) + ",\"referenced\":" + !referrers.isEmpty()
+                + ",\"referrers\":" + ResultWriter.array(referrers) + "}";
+    }
+
+    /**
+     * 在缓存的 Spoon 模型中按全限定名查找类，嵌套类同时接受 a.B$C 和 a.B.C 两种写法
+     */
+    private CtType<?> findType(String className) {
+        CtModel model = SpoonModelProvider.getModel(root.toString());
+        if (model == null) {
+            throw new IllegalStateException("无法构建Spoon模型");
+        }
+        String dotted = className.replace('$', '.');
+        for (CtType<?> type : model.getElements(new TypeFilter<>(CtType.class))) {
+            if (dotted.equals(type.getQualifiedName().replace('$', '.'))) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    private void evictIfIdle() {
+        if (!isIdle()) {
+            return;
+        }
+        // 等待锁期间可能有分析刚刚完成，拿到锁后再确认一次
+        synchronized (analysisLock) {
+            if (isIdle()) {
+                System.err.println("[bigclean] 空闲超过 " + idleMillis / 1000 + " 秒，释放缓存");
+                evict();
+            }
+        }
+    }
+
+    private boolean isIdle() {
+        return System.currentTimeMillis() - lastAccess >= idleMillis && (!results.isEmpty() || referenceGraph != null);
+    }
+
+    /**
+     * 释放结果、引用图和 Spoon 模型，下次查询时重新分析
+     */
+    private void evict() {
+        synchronized (analysisLock) {
+            results.clear();
+            closeReferenceGraph();
+            SpoonModelProvider.invalidate(root.toString());
+        }
+    }
+
+    private void closeReferenceGraph() {
+        if (referenceGraph != null) {
+            referenceGraph.session.close();
+            referenceGraph = null;
+        }
+    }
+
+    /**
+     * 写出端口文件；支持 POSIX 权限时目录为 rwx------、文件为 rw-------，其他用户读不到口令
+     */
+    private static void writePortFile(Path portFile, byte[] content) throws IOException {
+        Path dir = portFile.getParent();
+        if (!FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.createDirectories(dir);
+            Files.write(portFile, content);
+            return;
+        }
+        Set<PosixFilePermission> dirPermissions = PosixFilePermissions.fromString("rwx------");
+        Files.createDirectories(dir, PosixFilePermissions.asFileAttribute(dirPermissions));
+        // 目录可能由旧版本以默认权限创建
+        Files.setPosixFilePermissions(dir, dirPermissions);
+        Files.deleteIfExists(portFile);
+        Files.createFile(portFile, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        Files.write(portFile, content);
+    }
+
+    private static void status(Writer out, String json) throws IOException {
+        out.write(STATUS_PREFIX + json + "\n");
+        out.flush();
+    }
+
+    private static String newToken() {
+        byte[] bytes = new byte[16];
+        new SecureRandom().nextBytes(bytes);
+        StringBuilder builder = new StringBuilder();
+        for (byte b : bytes) {
+            builder.append(String.format("%02x", b));
+        }
+        return builder.toString();
+    }
+
+    private static class CachedResult {
+        final long generation;
+        final List<Reference> references;
+        final boolean hit;
+
+        CachedResult(long generation, List<Reference> references, boolean hit) {
+            this.generation = generation;
+            this.references = references;
+            this.hit = hit;
+        }
+    }
+
+    /**
+     * 常驻的类型引用图：类名 -> 类型，反向引用存放在会话中
+     */
+    private static class ReferenceGraph {
+        final long generation;
+        final AnalysisSession session;
+        final Map<String, CtType<?>> types;
+
+        private ReferenceGraph(long generation, AnalysisSession session, Map<String, CtType<?>> types) {
+            this.generation = generation;
+            this.session = session;
+            this.types = types;
+        }
+
+        static ReferenceGraph build(String rootDir, long generation) throws InterruptedException {
+            CtModel model = SpoonModelProvider.getModel(rootDir);
+            if (model == null) {
+                throw new IllegalStateException("无法构建Spoon模型");
+            }
+            List<CtType> elements = model.getElements(new TypeFilter<>(CtType.class)).stream()
+                    .filter(SpoonHelper::filterCtype)
+                    .collect(Collectors.toList());
+            AnalysisSession session = new AnalysisSession();
+            SpoonHelper.loadAllActualCtTypeMapping(session, elements, ScanProgress.NONE);
+            Map<String, CtType<?>> types = new HashMap<>();
+            for (CtType<?> type : elements) {
+                // 嵌套类同时接受 a.B$C 和 a.B.C 两种写法
+                types.putIfAbsent(type.getQualifiedName(), type);
+                types.putIfAbsent(type.getQualifiedName().replace('$', '.'), type);
+            }
+            return new ReferenceGraph(generation, session, types);
+        }
+
+        /**
+         * 引用该类的其他类，类不存在时返回null
+         */
+        Set<String> referrers(String className) {
+            CtType<?> type = types.get(className);
+            if (type == null) {
+                return null;
+            }
+            Set<String> referrers = new TreeSet<>();
+            for (CtType<?> referrer : SpoonHelper.getReferrers(session, type)) {
+                if (referrer != type && !referrer.getQualifiedName().equals(type.getQualifiedName())) {
+                    referrers.add(referrer.getQualifiedName());
+                }
+            }
+            return referrers;
+        }
+    }
+}
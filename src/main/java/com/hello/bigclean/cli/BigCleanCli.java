@@ -0,0 +1,326 @@
+package com.hello.bigclean.cli;
+
+import com.hello.bigclean.spoon.strategy.ScanStrategy;
+import com.hello.bigclean.spoon.strategy.ScanTargetedClassStrategy;
+import com.hello.bigclean.spoon.strategy.StrategyFactory;
+import com.hello.bigclean.util.ProjectFiles;
+import com.hello.bigclean.util.ScanProgress;
+import com.hello.bigclean.util.ScanScheduler;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 命令行运行器：不依赖 IDE，直接调用 StrategyFactory 中的分析策略，适合在 CI 中作为无用代码门禁。
+ * 结果以 JSON Lines 或 SARIF 写到标准输出或文件，引擎的日志和进度统一写到标准错误，不会混入结果。
+ * 指定 --heap 时以该堆上限重新启动一个子进程执行分析。
+ * 用 --serve 启动常驻的守护进程后，带 --daemon 的查询交给守护进程，源码未变化时直接拿到缓存的结果。
+ * <pre>
+ * java -jar bigclean-scanner-cli.jar --root . --engine class-tiered --threads 64 --heap 16g --format sarif --output dead-code.sarif
+ * java -jar bigclean-scanner-cli.jar --root . --serve --idle-minutes 30 &amp;
+ * java -jar bigclean-scanner-cli.jar --root . --engine method --daemon
+ * java -jar bigclean-scanner-cli.jar --root . --referenced com.foo.Bar
+ * </pre>
+ */
+public class BigCleanCli {
+    private static final String FORKED_PROPERTY = "bigclean.cli.forked";
+    private static final Pattern COUNT_PATTERN = Pattern.compile("\"count\":(\\d+)");
+    private static final Map<String, String> ENGINES = new LinkedHashMap<>();
+    static {
+        ENGINES.put("class", "SCAN_ALL_CLASS");
+        ENGINES.put("class-tiered", "SCAN_ALL_CLASS_TIERED");
+        ENGINES.put("class-targeted", "SCAN_CLASS_TARGETED");
+        ENGINES.put("class-bytecode", "SCAN_ALL_CLASS_BYTECODE");
+        ENGINES.put("method", "SCAN_ALL_METHOD");
+        ENGINES.put("method-bytecode", "SCAN_ALL_METHOD_BYTECODE");
+        ENGINES.put("class-javac", "SCAN_ALL_CLASS_JAVAC");
+        ENGINES.put("method-javac", "SCAN_ALL_METHOD_JAVAC");
+        ENGINES.put("island", "SCAN_DEAD_ISLAND");
+    }
+
+    private String root;
+    private String scope;
+    private final List<Path> inputs = new ArrayList<>();
+    private String engine = "class";
+    private Integer threads;
+    private String heap;
+    private String format = "jsonl";
+    private String output;
+    private boolean failOnFindings;
+    private boolean serve;
+    private int port;
+    private long idleMinutes = 30;
+    private boolean daemon;
+    private String referenced;
+    private boolean stop;
+    private boolean status;
+
+    public static void main(String[] args) {
+        try {
+            System.exit(execute(args));
+        } catch (IllegalArgumentException e) {
+            System.err.println("参数错误: " + e.getMessage());
+            printUsage(System.err);
+            System.exit(2);
+        } catch (Exception e) {
+            System.err.println("分析失败: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(3);
+        }
+    }
+
+    /**
+     * 解析参数并执行分析，返回退出码，不结束进程；供 Gradle 插件的工作进程直接调用。参数错误时抛出 IllegalArgumentException
+     */
+    public static int execute(String... args) throws IOException, InterruptedException {
+        BigCleanCli cli = new BigCleanCli();
+        if (!cli.parse(args)) {
+            printUsage(System.err);
+            return 2;
+        }
+        return cli.run(args);
+    }
+
+    /**
+     * 解析参数，出现 --help 时返回false
+     */
+    boolean parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "-h":
+                case "--help":
+                    return false;
+                case "--root":
+                    root = value(args, ++i, arg);
+                    break;
+                case "--scope":
+                    scope = value(args, ++i, arg);
+                    break;
+                case "--input":
+                    inputs.add(Paths.get(value(args, ++i, arg)));
+                    break;
+                case "--engine":
+                    engine = value(args, ++i, arg);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value(args, ++i, arg));
+                    break;
+                case "--heap":
+                    heap = value(args, ++i, arg);
+                    break;
+                case "--format":
+                    format = value(args, ++i, arg);
+                    break;
+                case "--output":
+                    output = value(args, ++i, arg);
+                    break;
+                case "--fail-on-findings":
+                    failOnFindings = true;
+                    break;
+                case "--serve":
+                    serve = true;
+                    break;
+                case "--port":
+                    port = Integer.parseInt(value(args, ++i, arg));
+                    break;
+                case "--idle-minutes":
+                    idleMinutes = Long.parseLong(value(args, ++i, arg));
+                    break;
+                case "--daemon":
+                    daemon = true;
+                    break;
+                case "--referenced":
+                    referenced = value(args, ++i, arg);
+                    break;
+                case "--stop":
+                    stop = true;
+                    break;
+                case "--status":
+                    status = true;
+                    break;
+                default:
+                    if (arg.startsWith("-") || root != null) {
+                        throw new IllegalArgumentException("未知参数 " + arg);
+                    }
+                    root = arg;
+            }
+        }
+        if (root == null || !Files.isDirectory(Paths.get(root))) {
+            throw new IllegalArgumentException("需要用 --root 指定存在的源码根目录");
+        }
+        if (strategyKey() == null) {
+            throw new IllegalArgumentException("未知引擎 " + engine + "，可选: " + ENGINES.keySet());
+        }
+        if (!"jsonl".equals(format) && !"sarif".equals(format)) {
+            throw new IllegalArgumentException("未知输出格式 " + format + "，可选: jsonl, sarif");
+        }
+        if (scope != null && !"SCAN_CLASS_TARGETED".equals(strategyKey())) {
+            throw new IllegalArgumentException("--scope 只用于 class-targeted 引擎");
+        }
+        if (!inputs.isEmpty() && (serve || daemon || referenced != null)) {
+            throw new IllegalArgumentException("--input 不能与守护进程一起使用，守护进程总是分析整个根目录");
+        }
+        return true;
+    }
+
+    /**
+     * 执行分析，返回进程退出码：成功为0，指定 --fail-on-findings 且有结果时为1
+     */
+    int run(String[] args) throws IOException, InterruptedException {
+        if (heap != null && System.getProperty(FORKED_PROPERTY) == null) {
+            return fork(args);
+        }
+        if (threads != null) {
+            System.setProperty(ScanScheduler.PARALLELISM_PROPERTY, String.valueOf(threads));
+        }
+        // 引擎的日志都写在标准输出上，改到标准错误，标准输出只留给结果
+        PrintStream stdout = System.out;
+        System.setOut(System.err);
+        try {
+            return analyze(stdout);
+        } finally {
+            System.setOut(stdout);
+        }
+    }
+
+    private int analyze(PrintStream stdout) throws IOException, InterruptedException {
+        if (serve) {
+            new AnalysisDaemon(Paths.get(root), port, TimeUnit.MINUTES.toMillis(idleMinutes)).serve();
+            return 0;
+        }
+        if (output == null) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(stdout, StandardCharsets.UTF_8));
+            try {
+                return analyze(writer);
+            } finally {
+                writer.flush();
+            }
+        }
+        // 工作进程会反复调用 execute()，结果文件在任何路径上都要关闭
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(output), StandardCharsets.UTF_8))) {
+            return analyze(writer);
+        }
+    }
+
+    private int analyze(Writer writer) throws IOException, InterruptedException {
+        String key = strategyKey();
+        long start = System.currentTimeMillis();
+        boolean daemonOnly = stop || status || referenced != null;
+        if (daemonOnly || (daemon && scope == null)) {
+            String command = stop ? "shutdown" : status ? "status"
+                    : referenced != null ? "referenced " + referenced : "unused " + key + " " + format;
+            String reply = DaemonClient.query(Paths.get(root), command, writer);
+            if (reply != null) {
+                return daemonExitCode(reply, start);
+            }
+            if (daemonOnly) {
+                System.err.println("守护进程未启动，请先用 --serve 启动");
+                return stop ? 0 : 3;
+            }
+        }
+
+        ScanStrategy strategy = StrategyFactory.obtainScanner(key);
+        ScanProgress progress = new ConsoleProgress(System.err);
+        int count;
+        // 工作进程会反复调用 execute()，输入范围只对本次分析生效
+        ProjectFiles.setInputs(Paths.get(root), inputs);
+        try (ResultWriter results = "sarif".equals(format)
+                ? new SarifWriter(writer, Paths.get(root))
+                : new JsonLinesWriter(writer, key)) {
+            results.begin();
+            if (scope != null) {
+                ((ScanTargetedClassStrategy) strategy).scan(root, scope, progress).forEach(results::write);
+            } else {
+                strategy.scan(root, progress, results::write);
+            }
+            count = results.getCount();
+        } finally {
+            ProjectFiles.setInputs(Paths.get(root), Collections.emptyList());
+        }
+        System.err.println("[bigclean] 完成: " + key + " 共 " + count + " 个结果，耗时 " + (System.currentTimeMillis() - start) + "ms");
+        return failOnFindings && count > 0 ? 1 : 0;
+    }
+
+    /**
+     * 按守护进程返回的状态行给出退出码
+     */
+    private int daemonExitCode(String status, long start) {
+        if (!status.contains("\"status\":\"ok\"")) {
+            System.err.println("[bigclean] 守护进程返回错误: " + status);
+            return 3;
+        }
+        Matcher matcher = COUNT_PATTERN.matcher(status);
+        int count = matcher.find() ? Integer.parseInt(matcher.group(1)) : 0;
+        System.err.println("[bigclean] 守护进程: " + status + "，总耗时 " + (System.currentTimeMillis() - start) + "ms");
+        return failOnFindings && count > 0 ? 1 : 0;
+    }
+
+    /**
+     * 以指定的堆上限重新启动自身，参数原样传递，子进程共用标准输入输出
+     */
+    private int fork(String[] args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Xmx" + heap);
+        command.add("-D" + FORKED_PROPERTY + "=true");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(BigCleanCli.class.getName());
+        command.addAll(Arrays.asList(args));
+        System.err.println("[bigclean] 以 -Xmx" + heap + " 启动分析进程");
+        return new ProcessBuilder(command).inheritIO().start().waitFor();
+    }
+
+    private String strategyKey() {
+        if (ENGINES.containsKey(engine)) {
+            return ENGINES.get(engine);
+        }
+        // 也接受 StrategyFactory 中的策略名
+        return StrategyFactory.obtainScanner(engine) != null ? engine : null;
+    }
+
+    private static String value(String[] args, int index, String name) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(name + " 缺少参数值");
+        }
+        return args[index];
+    }
+
+    private static void printUsage(PrintStream out) {
+        out.println("用法: java -jar bigclean-scanner-cli.jar --root <源码根目录> [选项]");
+        out.println("  --engine <引擎>       " + String.join(", ", ENGINES.keySet()) + "（默认 class）");
+        out.println("  --scope <路径>        只判定该包目录或文件中的类，仅用于 class-targeted");
+        out.println("  --input <路径>        只读取根目录下的这些源码目录、编译输出目录或引用文件，可重复；默认读取整个根目录");
+        out.println("  --threads <N>         分析线程数，默认CPU核数");
+        out.println("  --heap <大小>         堆上限，如 8g，以该上限重新启动分析进程");
+        out.println("  --format <格式>       jsonl（默认）或 sarif");
+        out.println("  --output <文件>       结果文件，默认标准输出");
+        out.println("  --fail-on-findings    有结果时以退出码1结束，用作 CI 门禁");
+        out.println("  --serve               启动常驻守护进程，缓存模型和结果，监听源码变化");
+        out.println("  --port <端口>         守护进程监听的本机端口，默认自动选择");
+        out.println("  --idle-minutes <N>    守护进程空闲N分钟后释放缓存，默认30");
+        out.println("  --daemon              查询交给已启动的守护进程，未启动时本地分析");
+        out.println("  --referenced <类名>   通过守护进程查询类（或 类名#方法名）是否被引用");
+        out.println("  --status              查看守护进程的缓存状态");
+        out.println("  --stop                停止守护进程");
+        out.println("字节码引擎需要先编译项目（target/classes 或 build/classes）；javac 引擎需要先带 BigCleanReferences 插件编译。");
+    }
+}
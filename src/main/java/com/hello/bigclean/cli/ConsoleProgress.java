@@ -0,0 +1,40 @@
+package com.hello.bigclean.cli;
+
+import com.hello.bigclean.util.ScanProgress;
+
+import java.io.PrintStream;
+
+/**
+ * 命令行进度：阶段变化时输出一行，完成比例每增加10%输出一次，不可取消
+ */
+public class ConsoleProgress implements ScanProgress {
+    private final PrintStream out;
+    private String text;
+    private int lastDecile = -1;
+
+    public ConsoleProgress(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public synchronized void setText(String text) {
+        if (text != null && !text.equals(this.text)) {
+            this.text = text;
+            out.println("[bigclean] " + text);
+        }
+    }
+
+    @Override
+    public synchronized void setFraction(double fraction) {
+        int decile = (int) (fraction * 10);
+        if (decile > lastDecile) {
+            lastDecile = decile;
+            out.println("[bigclean] " + decile * 10 + "%");
+        }
+    }
+
+    @Override
+    public boolean isCanceled() {
+        return false;
+    }
+}
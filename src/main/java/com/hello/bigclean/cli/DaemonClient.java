@@ -0,0 +1,55 @@
+package com.hello.bigclean.cli;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 守护进程客户端：按工作区找到端口文件，发送一条请求，把结果文档原样写到 out，返回状态行的 JSON。
+ * 守护进程未启动时返回null，由调用方退回进程内分析
+ */
+public class DaemonClient {
+
+    public static String query(Path root, String command, Writer out) throws IOException {
+        Path portFile = AnalysisDaemon.portFile(root);
+        if (!Files.isRegularFile(portFile)) {
+            return null;
+        }
+        String[] content = new String(Files.readAllBytes(portFile), StandardCharsets.UTF_8).trim().split("\\s+");
+        if (content.length < 2) {
+            return null;
+        }
+        Socket socket;
+        try {
+            socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(content[0]));
+        } catch (ConnectException e) {
+            // 守护进程异常退出后留下的端口文件
+            System.err.println("[bigclean] 守护进程未响应，改为本地分析");
+            return null;
+        }
+        try (Socket s = socket;
+             Writer request = new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8);
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8))) {
+            request.write(content[1] + " " + command + "\n");
+            request.flush();
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith(AnalysisDaemon.STATUS_PREFIX)) {
+                    out.flush();
+                    return line.substring(AnalysisDaemon.STATUS_PREFIX.length());
+                }
+                out.write(line);
+                out.write('\n');
+            }
+        }
+        throw new IOException("守护进程提前关闭了连接");
+    }
+}
@@ -0,0 +1,39 @@
+package com.hello.bigclean.cli;
+
+import com.hello.bigclean.spoon.reference.MethodReference;
+import com.hello.bigclean.spoon.reference.Reference;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+
+/**
+ * JSON Lines 输出：每行一个独立的 JSON 对象，如
+ * {"type":"unused-method","class":"a.B","method":"foo","signature":"foo(int)","lines":12}
+ */
+public class JsonLinesWriter extends ResultWriter {
+    private final String engine;
+
+    public JsonLinesWriter(Writer out, String engine) {
+        super(out);
+        this.engine = engine;
+    }
+
+    @Override
+    protected void writeResult(Reference reference, int index) throws IOException {
+        StringBuilder line = new StringBuilder("{\"engine\":").append(quote(engine));
+        line.append(",\"type\":").append(quote(isMethod(reference) ? "unused-method" : "unused-class"));
+        line.append(",\"class\":").append(quote(reference.getOriginalClass()));
+        if (isMethod(reference)) {
+            MethodReference method = (MethodReference) reference;
+            line.append(",\"method\":").append(quote(method.getMethod()));
+            line.append(",\"signature\":").append(quote(method.getMethodDescriptor()));
+            line.append(",\"lines\":").append(method.getMethodLines());
+        }
+        Collection<String> members = members(reference);
+        if (members != null) {
+            line.append(",\"members\":").append(array(members));
+        }
+        out.write(line.append("}\n").toString());
+    }
+}
@@ -0,0 +1,105 @@
+package com.hello.bigclean.cli;
+
+import com.hello.bigclean.spoon.reference.MethodReference;
+import com.hello.bigclean.spoon.reference.Reference;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.TreeSet;
+
+/**
+ * 结果输出：每个结果一到就写出并刷新，输出不在内存中拼成完整文档
+ */
+public abstract class ResultWriter implements AutoCloseable {
+    protected final Writer out;
+    private int count;
+
+    protected ResultWriter(Writer out) {
+        this.out = out;
+    }
+
+    public void begin() throws IOException {
+    }
+
+    public final void write(Reference reference) {
+        try {
+            writeResult(reference, count++);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    protected abstract void writeResult(Reference reference, int index) throws IOException;
+
+    protected void end() throws IOException {
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        end();
+        out.flush();
+    }
+
+    static boolean isMethod(Reference reference) {
+        return reference instanceof MethodReference;
+    }
+
+    /**
+     * 可达性分析的结果带有簇成员，按名称排序保证输出稳定
+     */
+    static Collection<String> members(Reference reference) {
+        return reference.getReferenceClasses() != null ? new TreeSet<>(reference.getReferenceClasses()) : null;
+    }
+
+    static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    static String array(Collection<String> values) {
+        StringBuilder builder = new StringBuilder("[");
+        for (String value : values) {
+            if (builder.length() > 1) {
+                builder.append(',');
+            }
+            builder.append(quote(value));
+        }
+        return builder.append(']').toString();
+    }
+}
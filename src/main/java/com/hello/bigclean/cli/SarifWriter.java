@@ -0,0 +1,104 @@
+package com.hello.bigclean.cli;
+
+import com.hello.bigclean.spoon.reference.MethodReference;
+import com.hello.bigclean.spoon.reference.Reference;
+import com.hello.bigclean.util.ProjectFiles;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * SARIF 2.1.0 输出，供 CI 的代码扫描面板展示。
+ * 先写出文档头，结果逐条写入 results 数组，结束时补上数组和文档的结尾。
+ * 结果中的类名按 包路径/顶层类名.java 映射回源码文件作为位置，找不到源码时只给出逻辑位置
+ */
+public class SarifWriter extends ResultWriter {
+    private static final String TOOL_NAME = "BigClean Scanner";
+
+    private final Path root;
+    // 源码文件名 -> 同名文件的路径
+    private Map<String, List<Path>> sourceFiles;
+
+    public SarifWriter(Writer out, Path root) {
+        super(out);
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    @Override
+    public void begin() throws IOException {
+        out.write("{\"$schema\":\"https://json.schemastore.org/sarif-2.1.0.json\",\"version\":\"2.1.0\",\"runs\":[{");
+        out.write("\"tool\":{\"driver\":{\"name\":" + quote(TOOL_NAME) + ",\"rules\":[");
+        out.write("{\"id\":\"unused-class\",\"shortDescription\":{\"text\":\"Unused class\"}},");
+        out.write("{\"id\":\"unused-method\",\"shortDescription\":{\"text\":\"Unused method\"}}");
+        out.write("]}},\"results\":[\n");
+    }
+
+    @Override
+    protected void writeResult(Reference reference, int index) throws IOException {
+        boolean method = isMethod(reference);
+        String className = reference.getOriginalClass();
+        String name = method ? className + "#" + ((MethodReference) reference).getMethod() : className;
+        StringBuilder result = new StringBuilder(index > 0 ? ",\n" : "");
+        result.append("{\"ruleId\":").append(quote(method ? "unused-method" : "unused-class"));
+        result.append(",\"level\":\"warning\",\"message\":{\"text\":").append(quote(message(reference, name))).append('}');
+        result.append(",\"locations\":[{");
+        Path source = locate(className);
+        if (source != null) {
+            String uri = root.relativize(source).toString().replace('\\', '/');
+            result.append("\"physicalLocation\":{\"artifactLocation\":{\"uri\":").append(quote(uri)).append("}},");
+        }
+        result.append("\"logicalLocations\":[{\"fullyQualifiedName\":").append(quote(name));
+        result.append(",\"kind\":").append(quote(method ? "function" : "type")).append("}]}]");
+        Collection<String> members = members(reference);
+        if (members != null) {
+            result.append(",\"properties\":{\"members\":").append(array(members)).append('}');
+        }
+        out.write(result.append('}').toString());
+    }
+
+    @Override
+    protected void end() throws IOException {
+        out.write("\n]}]}\n");
+    }
+
+    private static String message(Reference reference, String name) {
+        Collection<String> members = members(reference);
+        if (members != null && members.size() > 1) {
+            return "不可达的代码簇: " + name + " 等" + members.size() + "个成员";
+        }
+        return (isMethod(reference) ? "无用方法: " : "无用类: ") + name;
+    }
+
+    /**
+     * 按顶层类的包路径在源码中查找定义文件，嵌套类取外部类所在文件
+     */
+    private Path locate(String className) throws IOException {
+        if (className == null) {
+            return null;
+        }
+        if (sourceFiles == null) {
+            sourceFiles = new HashMap<>();
+            try (Stream<Path> paths = ProjectFiles.walk(root.toString())) {
+                paths.filter(path -> path.toString().endsWith(".java")).forEach(path ->
+                        sourceFiles.computeIfAbsent(path.getFileName().toString(), k -> new ArrayList<>()).add(path));
+            }
+        }
+        int nested = className.indexOf('$');
+        String topLevel = nested >= 0 ? className.substring(0, nested) : className;
+        String relative = topLevel.replace('.', '/') + ".java";
+        String fileName = relative.substring(relative.lastIndexOf('/') + 1);
+        for (Path path : sourceFiles.getOrDefault(fileName, new ArrayList<>())) {
+            if (path.toString().replace('\\', '/').endsWith("/" + relative)) {
+                return path;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,121 @@
+package com.hello.bigclean.cli;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 监听工作区中 .java 和 .class 文件的变化，每次变化使代数加一。
+ * 守护进程用代数判断缓存的结果是否仍然有效，不必每次查询都遍历整个目录计算指纹。
+ * 新建的目录自动加入监听；事件溢出或目录无法加入监听（如构建工具创建后立即删除的临时目录）时无法确定变化了哪些文件，同样视为有变化。
+ * 监听线程意外退出后不再能感知变化，此后每次查询都视为有变化
+ */
+public class WorkspaceWatcher implements AutoCloseable {
+    private static final Set<String> SKIPPED_DIRECTORIES = new HashSet<>(Arrays.asList(".git", ".idea", ".gradle", "node_modules"));
+
+    private final Path root;
+    private final WatchService watchService;
+    private final AtomicLong generation = new AtomicLong();
+    private final Thread thread;
+
+    public WorkspaceWatcher(Path root) throws IOException {
+        this.root = root;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        registerAll(root);
+        this.thread = new Thread(this::run, "bigclean-watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * 当前代数，文件有变化时递增；监听线程已退出时每次调用都递增
+     */
+    public long getGeneration() {
+        return thread.isAlive() ? generation.get() : generation.incrementAndGet();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Path directory = (Path) key.watchable();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        changed = true;
+                        continue;
+                    }
+                    Path path = directory.resolve((Path) event.context());
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                        try {
+                            registerAll(path);
+                        } catch (IOException e) {
+                            // 目录在加入监听前已被删除，视为有变化即可
+                        }
+                        changed = true;
+                    } else if (isRelevant(path)) {
+                        changed = true;
+                    }
+                }
+                if (changed) {
+                    generation.incrementAndGet();
+                }
+                // 目录被删除后 key 失效，不再重新注册
+                key.reset();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // 守护进程退出
+        } catch (RuntimeException e) {
+            System.err.println("文件监听失败，此后每次查询都重新分析: " + e);
+        }
+    }
+
+    private static boolean isRelevant(Path path) {
+        String name = path.getFileName().toString();
+        // 删除的目录无法再判断类型，没有扩展名的名称一律视为目录
+        return name.endsWith(".java") || name.endsWith(".class") || name.indexOf('.') < 0;
+    }
+
+    private void registerAll(Path start) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (!dir.equals(root) && SKIPPED_DIRECTORIES.contains(dir.getFileName().toString())) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                try {
+                    dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                } catch (IOException e) {
+                    // 单个目录无法监听（已被删除或无权限）时跳过，不影响其他目录
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        thread.interrupt();
+        watchService.close();
+    }
+}
@@ -0,0 +1,102 @@
+package com.hello.bigclean.handler;
+
+import com.hello.bigclean.spoon.reference.MethodReference;
+import com.hello.bigclean.spoon.reference.Reference;
+import com.hello.bigclean.spoon.strategy.ScanStrategy;
+import com.hello.bigclean.spoon.strategy.StrategyFactory;
+import com.hello.bigclean.util.ScanProgress;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+import java.util.ArrayList;
+import java.util.List;
+
+public class DeadIslandAnalyzer {
+    /**
+     * 构建无用簇（可达性分析）的树形结构模型
+     */
+    public static DefaultTreeModel buildDeadIslandTree(@NotNull Project project, ScanProgress progress) throws InterruptedException {
+        String projectPath = project.getBasePath();
+        if (projectPath == null) {
+            return DefaultModelHandler.createEmptyTreeModel("项目路径不可用");
+        }
+        try {
+            List<Reference> islands = getDeadIslands(projectPath, progress);
+            return buildTreeModelFromDeadIslands(islands);
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            return DefaultModelHandler.createErrorTreeModel("分析失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 从无用簇列表构建树形模型：类簇和方法簇分组显示，多成员的簇展开为子节点
+     */
+    private static DefaultTreeModel buildTreeModelFromDeadIslands(List<Reference> islands) {
+        DefaultMutableTreeNode root = new DefaultMutableTreeNode("可达性分析结果");
+        if (islands == null || islands.isEmpty()) {
+            root.add(new DefaultMutableTreeNode("未发现不可达的代码"));
+            return new DefaultTreeModel(root);
+        }
+
+        DefaultMutableTreeNode classRoot = new DefaultMutableTreeNode("无用类簇");
+        DefaultMutableTreeNode methodRoot = new DefaultMutableTreeNode("无用方法簇");
+        for (Reference island : islands) {
+            boolean methodIsland = island instanceof MethodReference;
+            DefaultMutableTreeNode parent = methodIsland ? methodRoot : classRoot;
+            int size = island.getReferenceClasses() != null ? island.getReferenceClasses().size() : 1;
+            if (size <= 1) {
+                parent.add(new DefaultMutableTreeNode(island));
+                continue;
+            }
+            DefaultMutableTreeNode islandNode = new DefaultMutableTreeNode(
+                    island + " 等" + size + (methodIsland ? "个方法" : "个类"));
+            for (String member : island.getReferenceClasses()) {
+                islandNode.add(new DefaultMutableTreeNode(methodIsland ? toMethodReference(member) : new Reference(member, null)));
+            }
+            parent.add(islandNode);
+        }
+        if (classRoot.getChildCount() > 0) {
+            root.add(classRoot);
+        }
+        if (methodRoot.getChildCount() > 0) {
+            root.add(methodRoot);
+        }
+        return new DefaultTreeModel(root);
+    }
+
+    private static MethodReference toMethodReference(String member) {
+        int index = member.indexOf('#');
+        MethodReference methodReference = new MethodReference();
+        methodReference.setOriginalClass(member.substring(0, index));
+        methodReference.setMethod(member.substring(index + 1));
+        return methodReference;
+    }
+
+    public static List<Reference> getDeadIslands(String rootDir, ScanProgress progress) throws InterruptedException {
+        List<Reference> result = new ArrayList<>();
+        try {
+            ScanStrategy scanStrategy = StrategyFactory.obtainScanner("SCAN_DEAD_ISLAND");
+            Object scanResult = scanStrategy.scan(rootDir, progress);
+
+            // 安全的类型转换
+            if (scanResult instanceof List<?>) {
+                List<?> list = (List<?>) scanResult;
+                for (Object item : list) {
+                    if (item instanceof Reference) {
+                        result.add((Reference) item);
+                    }
+                }
+            }
+            return result;
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,31 @@
+package com.hello.bigclean.handler;
+
+import com.hello.bigclean.util.ScanProgress;
+import com.intellij.openapi.progress.ProgressIndicator;
+
+/**
+ * 把分析引擎的进度回调适配到 IDE 后台任务的进度条
+ */
+public class IndicatorScanProgress implements ScanProgress {
+    private final ProgressIndicator indicator;
+
+    public IndicatorScanProgress(ProgressIndicator indicator) {
+        this.indicator = indicator;
+        indicator.setIndeterminate(false);
+    }
+
+    @Override
+    public void setText(String text) {
+        indicator.setText(text);
+    }
+
+    @Override
+    public void setFraction(double fraction) {
+        indicator.setFraction(fraction);
+    }
+
+    @Override
+    public boolean isCanceled() {
+        return indicator.isCanceled();
+    }
+}
@@ -1,8 +1,10 @@
 package com.hello.bigclean.handler;
 
+import com.hello.bigclean.psi.PsiUsageScanner;
 import com.hello.bigclean.spoon.reference.MethodReference;
 import com.hello.bigclean.spoon.strategy.ScanStrategy;
 import com.hello.bigclean.spoon.strategy.StrategyFactory;
+import com.hello.bigclean.util.ScanProgress;
 import com.intellij.openapi.project.Project;
 import org.jetbrains.annotations.NotNull;
 
@@ -16,15 +18,36 @@ public class MethodModelHandler {
     /**
      * 获取无用方法列表
      */
-    public static List<MethodReference> getUnusedMethods(@NotNull Project project) {
+    public static List<MethodReference> getUnusedMethods(@NotNull Project project, ScanProgress progress) throws InterruptedException {
+        return getUnusedMethods(project, "SCAN_ALL_METHOD", progress);
+    }
+
+    /**
+     * 使用 IDE 索引获取无用方法列表
+     */
+    public static List<MethodReference> getUnusedMethodsByIndex(@NotNull Project project, ScanProgress progress) throws InterruptedException {
+        try {
+            return PsiUsageScanner.findUnusedMethods(project, progress);
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            System.err.println("获取无用方法失败: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * 使用指定的分析策略获取无用方法列表
+     */
+    public static List<MethodReference> getUnusedMethods(@NotNull Project project, String mode, ScanProgress progress) throws InterruptedException {
         String projectPath = project.getBasePath();
         if (projectPath == null) {
             return new ArrayList<>();
         }
 
         try {
-            ScanStrategy scanStrategy = StrategyFactory.obtainScanner("SCAN_ALL_METHOD");
-            Object scanResult = scanStrategy.scan(projectPath);
+            ScanStrategy scanStrategy = StrategyFactory.obtainScanner(mode);
+            Object scanResult = scanStrategy.scan(projectPath, progress);
 
             List<MethodReference> result = new ArrayList<>();
             // 安全的类型转换
@@ -38,6 +61,8 @@ public class MethodModelHandler {
             }
             return result;
 
+        } catch (InterruptedException e) {
+            throw e;
         } catch (Exception e) {
             System.err.println("获取无用方法失败: " + e.getMessage());
             return new ArrayList<>();
@@ -0,0 +1,45 @@
+package com.hello.bigclean.handler;
+
+import com.hello.bigclean.psi.PsiUsageScanner;
+import com.hello.bigclean.spoon.reference.Reference;
+import com.hello.bigclean.util.ScanProgress;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+import java.util.List;
+
+public class PsiUnusedClassAnalyzer {
+    /**
+     * 使用 IDE 索引构建无用类的树形结构模型
+     */
+    public static DefaultTreeModel buildUnusedClassTreeIndex(@NotNull Project project, ScanProgress progress) throws InterruptedException {
+        try {
+            List<Reference> unusedClasses = PsiUsageScanner.findUnusedClasses(project, progress);
+            return buildTreeModelFromUnusedClasses(unusedClasses);
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return DefaultModelHandler.createErrorTreeModel("分析失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 从无用类列表构建树形模型
+     */
+    private static DefaultTreeModel buildTreeModelFromUnusedClasses(List<Reference> unusedClasses) {
+        DefaultMutableTreeNode root = new DefaultMutableTreeNode("无用类分析结果");
+
+        if (unusedClasses == null || unusedClasses.isEmpty()) {
+            root.add(new DefaultMutableTreeNode("未发现无用类"));
+        } else {
+            for (Reference reference : unusedClasses) {
+                root.add(new DefaultMutableTreeNode(reference));
+            }
+        }
+
+        return new DefaultTreeModel(root);
+    }
+}
@@ -2,6 +2,7 @@ package com.hello.bigclean.handler;
 
 import com.hello.bigclean.scan.FindUnusedClasses;
 import com.hello.bigclean.util.CodeUtils;
+import com.hello.bigclean.util.ScanProgress;
 import com.intellij.openapi.project.Project;
 import org.jetbrains.annotations.NotNull;
 
@@ -17,7 +18,7 @@ public class RegexUnusedClassAnalyzer {
      * 构建无用类的树形结构模型
      * 你可以在这里调用你的无用类分析代码
      */
-    public static DefaultTreeModel buildUnusedClassTreeRegex(@NotNull Project project) {
+    public static DefaultTreeModel buildUnusedClassTreeRegex(@NotNull Project project, ScanProgress progress) throws InterruptedException {
         String projectPath = project.getBasePath();
         if (projectPath == null) {
             return DefaultModelHandler.createEmptyTreeModel("项目路径不可用");
@@ -25,10 +26,12 @@ public class RegexUnusedClassAnalyzer {
 
         try {
             // 调用你的无用类分析方法
-            List<String> unusedClasses = getUnusedClasses(projectPath);
+            List<String> unusedClasses = getUnusedClasses(projectPath, progress);
 
             return buildTreeModelFromUnusedClasses(unusedClasses);
 
+        } catch (InterruptedException e) {
+            throw e;
         } catch (Exception e) {
             return DefaultModelHandler.createErrorTreeModel("分析失败: " + e.getMessage());
         }
@@ -56,11 +59,23 @@ public class RegexUnusedClassAnalyzer {
      * 获取示例无用类数据 - 替换为你的实际分析调用
      */
     public static List<String> getUnusedClasses(String rootDir) {
+        try {
+            return getUnusedClasses(rootDir, ScanProgress.NONE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * 获取无用类，汇报进度，取消时抛出 InterruptedException
+     */
+    public static List<String> getUnusedClasses(String rootDir, ScanProgress progress) throws InterruptedException {
         List<String> result = new ArrayList<>();
         FindUnusedClasses finder = new FindUnusedClasses(rootDir);
         long start = System.currentTimeMillis();
         try {
-            List<Map.Entry<Path, String>> unusedClasses = finder.findUnusedClasses();
+            List<Map.Entry<Path, String>> unusedClasses = finder.findUnusedClasses(progress);
 
             if (!unusedClasses.isEmpty()) {
                 for (Map.Entry<Path, String> entry : unusedClasses) {
@@ -72,6 +87,8 @@ public class RegexUnusedClassAnalyzer {
                 result.add("未找到未使用的类。");
             }
             return result;
+        } catch (InterruptedException e) {
+            throw e;
         } catch (Exception e) {
             e.printStackTrace();
         } finally {
@@ -3,6 +3,7 @@ package com.hello.bigclean.handler;
 import com.hello.bigclean.spoon.reference.Reference;
 import com.hello.bigclean.spoon.strategy.ScanStrategy;
 import com.hello.bigclean.spoon.strategy.StrategyFactory;
+import com.hello.bigclean.util.ScanProgress;
 import com.intellij.openapi.project.Project;
 import org.jetbrains.annotations.NotNull;
 
@@ -16,16 +17,47 @@ public class SpoonUnusedClassAnalyzer {
      * 构建无用类的树形结构模型
      * 你可以在这里调用你的无用类分析代码
      */
-    public static DefaultTreeModel buildUnusedClassTreeSpoon(@NotNull Project project) {
+    public static DefaultTreeModel buildUnusedClassTreeSpoon(@NotNull Project project, ScanProgress progress) throws InterruptedException {
         String projectPath = project.getBasePath();
         if (projectPath == null) {
             return DefaultModelHandler.createEmptyTreeModel("项目路径不可用");
         }
         try {
             // 调用你的无用类分析方法
-            List<Reference> unusedClasses = getUnusedClasses(projectPath);
+            List<Reference> unusedClasses = getUnusedClasses(projectPath, progress);
             return buildTreeModelFromUnusedClasses(unusedClasses);
 
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            return DefaultModelHandler.createErrorTreeModel("分析失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 基于编译输出的字节码构建无用类的树形结构模型，需要项目已编译
+     */
+    public static DefaultTreeModel buildUnusedClassTreeBytecode(@NotNull Project project, ScanProgress progress) throws InterruptedException {
+        return buildUnusedClassTree(project, "SCAN_ALL_CLASS_BYTECODE", progress);
+    }
+
+    /**
+     * 分层分析构建无用类的树形结构模型：记号预筛后只对剩余的类做 Spoon 验证
+     */
+    public static DefaultTreeModel buildUnusedClassTreeTiered(@NotNull Project project, ScanProgress progress) throws InterruptedException {
+        return buildUnusedClassTree(project, "SCAN_ALL_CLASS_TIERED", progress);
+    }
+
+    private static DefaultTreeModel buildUnusedClassTree(@NotNull Project project, String mode, ScanProgress progress) throws InterruptedException {
+        String projectPath = project.getBasePath();
+        if (projectPath == null) {
+            return DefaultModelHandler.createEmptyTreeModel("项目路径不可用");
+        }
+        try {
+            List<Reference> unusedClasses = getUnusedClasses(projectPath, mode, progress);
+            return buildTreeModelFromUnusedClasses(unusedClasses);
+        } catch (InterruptedException e) {
+            throw e;
         } catch (Exception e) {
             return DefaultModelHandler.createErrorTreeModel("分析失败: " + e.getMessage());
         }
@@ -50,11 +82,15 @@ public class SpoonUnusedClassAnalyzer {
     }
 
 
-    public static List<Reference> getUnusedClasses(String rootDir) {
+    public static List<Reference> getUnusedClasses(String rootDir, ScanProgress progress) throws InterruptedException {
+        return getUnusedClasses(rootDir, "SCAN_ALL_CLASS", progress);
+    }
+
+    public static List<Reference> getUnusedClasses(String rootDir, String mode, ScanProgress progress) throws InterruptedException {
         List<Reference> result = new ArrayList<>();
         try {
-            ScanStrategy scanStrategy = StrategyFactory.obtainScanner("SCAN_ALL_CLASS");
-            Object scanResult = scanStrategy.scan(rootDir);
+            ScanStrategy scanStrategy = StrategyFactory.obtainScanner(mode);
+            Object scanResult = scanStrategy.scan(rootDir, progress);
             
             // 安全的类型转换
             if (scanResult instanceof List<?>) {
@@ -67,6 +103,8 @@ public class SpoonUnusedClassAnalyzer {
             }
             
             return result;
+        } catch (InterruptedException e) {
+            throw e;
         } catch (Exception e) {
             e.printStackTrace();
         }
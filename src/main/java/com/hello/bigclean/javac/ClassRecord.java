@@ -0,0 +1,60 @@
+package com.hello.bigclean.javac;
+
+import com.hello.bigclean.bytecode.ClassCallInfo;
+import com.hello.bigclean.bytecode.ClassFileInfo;
+import com.hello.bigclean.bytecode.MethodInfo;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 编译器插件记录的一个具名类：类型层次、引用的类和方法调用，名称和描述符与字节码中的写法相同（如 com/foo/Bar$Inner）。
+ * 匿名类和局部类不单独记录，它们的引用和调用计入外围的类和方法，与字节码引擎的判定结果一致
+ */
+@Data
+public class ClassRecord {
+    // 内部名
+    private String name;
+    private String simpleName;
+    private String superName;
+    private List<String> interfaces = new ArrayList<>();
+    // 与 class 文件相同的访问标志
+    private int access;
+    // 类上直接标注的注解描述符
+    private Set<String> annotations = new HashSet<>();
+    // 该类引用的所有类（内部名）
+    private Set<String> references = new HashSet<>();
+    // 声明的方法，键为方法名加描述符
+    private Map<String, MethodInfo> methods = new LinkedHashMap<>();
+
+    /**
+     * 转为类引用信息，供无用类判定
+     */
+    public ClassFileInfo toClassFileInfo() {
+        ClassFileInfo info = new ClassFileInfo();
+        info.setName(name);
+        info.setSimpleName(simpleName);
+        info.setAnnotations(annotations);
+        info.setReferences(new HashSet<>(references));
+        return info;
+    }
+
+    /**
+     * 转为调用图的输入，供无用方法判定
+     */
+    public ClassCallInfo toClassCallInfo() {
+        ClassCallInfo info = new ClassCallInfo();
+        info.setName(name);
+        info.setSuperName(superName);
+        info.setInterfaces(interfaces);
+        info.setAccess(access);
+        info.setAnnotations(annotations);
+        info.setMethods(methods);
+        return info;
+    }
+}
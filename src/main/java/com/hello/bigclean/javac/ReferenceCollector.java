@@ -0,0 +1,573 @@
+package com.hello.bigclean.javac;
+
+import com.hello.bigclean.bytecode.MethodCall;
+import com.hello.bigclean.bytecode.MethodInfo;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.EnhancedForLoopTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.ImportTree;
+import com.sun.source.tree.LineMap;
+import com.sun.source.tree.MemberReferenceTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.StatementTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.TryTree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreePathScanner;
+import com.sun.source.util.Trees;
+import org.objectweb.asm.Opcodes;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 遍历一个已完成属性分析（ANALYZE）的顶层类，按字节码的写法记录类型层次、引用的类、方法声明和方法调用：
+ * 名称取二进制名，描述符取擦除后的类型；方法调用的所属类取接收者的静态类型，没有接收者时取声明方法的类。
+ * 编译器在字节码中生成的桥接方法在这里补上，调用方通过父类型上擦除后的签名调用时同样能分派到实现方法；
+ * ANALYZE 时语法糖尚未展开，增强 for 循环的 iterator/hasNext/next 和 try-with-resources 的 close 调用也在这里按展开后的写法补上。
+ * 字段初始化和初始化块中的调用记在名为 &lt;clinit&gt; 的方法下；import 语句不计为引用
+ */
+class ReferenceCollector extends TreePathScanner<Void, Void> {
+    private static final String INITIALIZER = "<clinit>";
+
+    private final Trees trees;
+    private final Elements elements;
+    private final Types types;
+    private final List<ClassRecord> records;
+    private final Deque<ClassRecord> classes = new ArrayDeque<>();
+    private final Deque<MethodInfo> methods = new ArrayDeque<>();
+    // 正在遍历的匿名类、局部类的层数
+    private int folded;
+
+    ReferenceCollector(Trees trees, Elements elements, Types types, List<ClassRecord> records) {
+        this.trees = trees;
+        this.elements = elements;
+        this.types = types;
+        this.records = records;
+    }
+
+    @Override
+    public Void visitImport(ImportTree node, Void unused) {
+        return null;
+    }
+
+    @Override
+    public Void visitClass(ClassTree node, Void unused) {
+        Element element = trees.getElement(getCurrentPath());
+        if (!(element instanceof TypeElement)) {
+            return super.visitClass(node, unused);
+        }
+        TypeElement type = (TypeElement) element;
+        NestingKind nestingKind = type.getNestingKind();
+        if (nestingKind == NestingKind.ANONYMOUS || nestingKind == NestingKind.LOCAL) {
+            if (classes.isEmpty()) {
+                return null;
+            }
+            addType(type.getSuperclass());
+            type.getInterfaces().forEach(this::addType);
+            folded++;
+            try {
+                return super.visitClass(node, unused);
+            } finally {
+                folded--;
+            }
+        }
+
+        ClassRecord record = new ClassRecord();
+        record.setName(internalName(type));
+        record.setSimpleName(type.getSimpleName().toString());
+        record.setAccess(classAccess(type));
+        if (type.getSuperclass().getKind() == TypeKind.DECLARED) {
+            record.setSuperName(internalName(type.getSuperclass()));
+        } else if (type.getKind() == ElementKind.INTERFACE || type.getKind() == ElementKind.ANNOTATION_TYPE) {
+            record.setSuperName("java/lang/Object");
+        }
+        for (TypeMirror iface : type.getInterfaces()) {
+            record.getInterfaces().add(internalName(iface));
+        }
+        records.add(record);
+        classes.push(record);
+        addType(type.getSuperclass());
+        type.getInterfaces().forEach(this::addType);
+        record.getAnnotations().addAll(annotations(type));
+
+        // 外部类的方法栈与嵌套类无关
+        Deque<MethodInfo> outerMethods = new ArrayDeque<>(methods);
+        int outerFolded = folded;
+        methods.clear();
+        folded = 0;
+        try {
+            super.visitClass(node, unused);
+            addBridges(type, record);
+        } finally {
+            classes.pop();
+            methods.clear();
+            methods.addAll(outerMethods);
+            folded = outerFolded;
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitMethod(MethodTree node, Void unused) {
+        Element element = trees.getElement(getCurrentPath());
+        if (folded > 0 || classes.isEmpty() || !(element instanceof ExecutableElement)) {
+            return super.visitMethod(node, unused);
+        }
+        ExecutableElement executable = (ExecutableElement) element;
+        ClassRecord record = classes.peek();
+        MethodInfo method = new MethodInfo();
+        method.setOwner(record.getName());
+        method.setName(executable.getSimpleName().toString());
+        method.setDescriptor(descriptor(executable));
+        method.setAccess(methodAccess(executable));
+        method.getAnnotations().addAll(annotations(executable));
+        setLines(method, node);
+        record.getMethods().putIfAbsent(method.getKey(), method);
+        methods.push(method);
+        try {
+            return super.visitMethod(node, unused);
+        } finally {
+            methods.pop();
+        }
+    }
+
+    @Override
+    public Void visitIdentifier(IdentifierTree node, Void unused) {
+        addElement(trees.getElement(getCurrentPath()));
+        return super.visitIdentifier(node, unused);
+    }
+
+    @Override
+    public Void visitMemberSelect(MemberSelectTree node, Void unused) {
+        addElement(trees.getElement(getCurrentPath()));
+        return super.visitMemberSelect(node, unused);
+    }
+
+    @Override
+    public Void visitMethodInvocation(MethodInvocationTree node, Void unused) {
+        ExpressionTree select = node.getMethodSelect();
+        Element element = trees.getElement(new TreePath(getCurrentPath(), select));
+        if (element instanceof ExecutableElement) {
+            ExecutableElement executable = (ExecutableElement) element;
+            ExpressionTree receiver = select instanceof MemberSelectTree ? ((MemberSelectTree) select).getExpression() : null;
+            boolean superCall = receiver != null && isSuper(receiver);
+            String owner = receiver == null ? unqualifiedOwner(executable)
+                    : superCall ? ownerOf(executable)
+                    : receiverOwner(new TreePath(getCurrentPath(), receiver), executable);
+            boolean virtual = !superCall && isVirtual(executable);
+            addCall(owner, executable, virtual);
+        }
+        return super.visitMethodInvocation(node, unused);
+    }
+
+    @Override
+    public Void visitMemberReference(MemberReferenceTree node, Void unused) {
+        Element element = trees.getElement(getCurrentPath());
+        if (element instanceof ExecutableElement) {
+            ExecutableElement executable = (ExecutableElement) element;
+            String owner = receiverOwner(new TreePath(getCurrentPath(), node.getQualifierExpression()), executable);
+            addCall(owner, executable, isVirtual(executable));
+        }
+        return super.visitMemberReference(node, unused);
+    }
+
+    /**
+     * 增强 for 循环展开后在表达式的静态类型上调用 iterator()，再在 java/util/Iterator 上调用 hasNext()、next()；数组上的循环没有调用
+     */
+    @Override
+    public Void visitEnhancedForLoop(EnhancedForLoopTree node, Void unused) {
+        TypeMirror type = trees.getTypeMirror(new TreePath(getCurrentPath(), node.getExpression()));
+        if (type != null && types.erasure(type).getKind() != TypeKind.ARRAY
+                && addImplicitCall(type, "java.lang.Iterable", "iterator")) {
+            TypeMirror iterator = elements.getTypeElement("java.util.Iterator").asType();
+            addImplicitCall(iterator, "java.util.Iterator", "hasNext");
+            addImplicitCall(iterator, "java.util.Iterator", "next");
+        }
+        return super.visitEnhancedForLoop(node, unused);
+    }
+
+    /**
+     * try-with-resources 展开后在每个资源的静态类型上调用 close()
+     */
+    @Override
+    public Void visitTry(TryTree node, Void unused) {
+        for (Tree resource : node.getResources()) {
+            TreePath path = new TreePath(getCurrentPath(), resource);
+            Element variable = resource instanceof VariableTree ? trees.getElement(path) : null;
+            TypeMirror type = variable != null ? variable.asType() : trees.getTypeMirror(path);
+            if (type != null) {
+                addImplicitCall(type, "java.lang.AutoCloseable", "close");
+            }
+        }
+        return super.visitTry(node, unused);
+    }
+
+    /**
+     * 按 javac 展开语法糖的写法补上一次无参的虚调用：所属类取静态类型的擦除，
+     * 擦除后不是 expected 的子类型时（如上界为交集类型的类型变量）javac 先转型为 expected，所属类取 expected
+     */
+    private boolean addImplicitCall(TypeMirror type, String expected, String name) {
+        TypeElement expectedType = elements.getTypeElement(expected);
+        if (expectedType == null) {
+            return false;
+        }
+        TypeMirror erased = types.erasure(type);
+        TypeElement owner = erased.getKind() == TypeKind.DECLARED && types.isSubtype(erased, types.erasure(expectedType.asType()))
+                ? (TypeElement) types.asElement(erased) : expectedType;
+        ExecutableElement method = findNoArgMethod(owner, name);
+        if (method == null) {
+            return false;
+        }
+        addCall(internalName(owner), method, true);
+        return true;
+    }
+
+    /**
+     * 在类型及其父类型中查找无参方法，先沿父类链查找，再查找接口，与 javac 选择最具体的声明一致
+     */
+    private ExecutableElement findNoArgMethod(TypeElement type, String name) {
+        for (TypeMirror current = type.asType(); current.getKind() == TypeKind.DECLARED;
+             current = ((TypeElement) types.asElement(current)).getSuperclass()) {
+            ExecutableElement method = declaredNoArgMethod((TypeElement) types.asElement(current), name);
+            if (method != null) {
+                return method;
+            }
+        }
+        Set<TypeElement> visited = new HashSet<>();
+        Deque<TypeMirror> queue = new ArrayDeque<>(types.directSupertypes(type.asType()));
+        while (!queue.isEmpty()) {
+            TypeMirror supertype = queue.poll();
+            Element element = types.asElement(supertype);
+            if (!(element instanceof TypeElement) || !visited.add((TypeElement) element)) {
+                continue;
+            }
+            ExecutableElement method = declaredNoArgMethod((TypeElement) element, name);
+            if (method != null) {
+                return method;
+            }
+            queue.addAll(types.directSupertypes(supertype));
+        }
+        return null;
+    }
+
+    private static ExecutableElement declaredNoArgMethod(TypeElement type, String name) {
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (method.getSimpleName().contentEquals(name) && method.getParameters().isEmpty()
+                    && !method.getModifiers().contains(Modifier.STATIC)) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private void addCall(String owner, ExecutableElement executable, boolean virtual) {
+        if (classes.isEmpty() || owner == null) {
+            return;
+        }
+        addReference(owner);
+        currentMethod().getCalls().add(new MethodCall(owner, executable.getSimpleName().toString(), descriptor(executable), virtual));
+    }
+
+    /**
+     * 当前所在的方法；不在方法体中时（字段初始化、初始化块）取类的 &lt;clinit&gt;
+     */
+    private MethodInfo currentMethod() {
+        if (!methods.isEmpty()) {
+            return methods.peek();
+        }
+        ClassRecord record = classes.peek();
+        return record.getMethods().computeIfAbsent(INITIALIZER + "()V", key -> {
+            MethodInfo initializer = new MethodInfo();
+            initializer.setOwner(record.getName());
+            initializer.setName(INITIALIZER);
+            initializer.setDescriptor("()V");
+            initializer.setAccess(Opcodes.ACC_STATIC);
+            return initializer;
+        });
+    }
+
+    /**
+     * 标识符和成员访问解析到的类，以及访问的字段、方法所属的类
+     */
+    private void addElement(Element element) {
+        if (element == null || classes.isEmpty()) {
+            return;
+        }
+        if (element instanceof TypeElement) {
+            addReference(internalName((TypeElement) element));
+        } else if (element.getKind().isField() || element instanceof ExecutableElement) {
+            Element enclosing = element.getEnclosingElement();
+            if (enclosing instanceof TypeElement) {
+                addReference(internalName((TypeElement) enclosing));
+            }
+        }
+    }
+
+    private void addType(TypeMirror type) {
+        TypeMirror erased = types.erasure(type);
+        while (erased.getKind() == TypeKind.ARRAY) {
+            erased = ((ArrayType) erased).getComponentType();
+        }
+        if (erased.getKind() == TypeKind.DECLARED) {
+            addReference(internalName(erased));
+        }
+    }
+
+    private void addReference(String name) {
+        if (!classes.isEmpty()) {
+            classes.peek().getReferences().add(name);
+        }
+    }
+
+    /**
+     * 补上编译器生成的桥接方法：方法重写了父类型中擦除后签名不同的方法时，
+     * 以父类型的描述符声明一个桥接方法，其中只有一次对实现方法的调用
+     */
+    private void addBridges(TypeElement type, ClassRecord record) {
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (method.getModifiers().contains(Modifier.STATIC) || method.getModifiers().contains(Modifier.PRIVATE)) {
+                continue;
+            }
+            String descriptor = descriptor(method);
+            for (ExecutableElement overridden : overriddenMethods(type, method)) {
+                String bridgeDescriptor = descriptor(overridden);
+                String key = method.getSimpleName() + bridgeDescriptor;
+                if (bridgeDescriptor.equals(descriptor) || record.getMethods().containsKey(key)) {
+                    continue;
+                }
+                MethodInfo bridge = new MethodInfo();
+                bridge.setOwner(record.getName());
+                bridge.setName(method.getSimpleName().toString());
+                bridge.setDescriptor(bridgeDescriptor);
+                bridge.setAccess(Opcodes.ACC_PUBLIC | Opcodes.ACC_BRIDGE | Opcodes.ACC_SYNTHETIC);
+                bridge.getCalls().add(new MethodCall(record.getName(), bridge.getName(), descriptor, true));
+                record.getMethods().put(key, bridge);
+            }
+        }
+    }
+
+    /**
+     * 所有父类型中被该方法重写的方法
+     */
+    private List<ExecutableElement> overriddenMethods(TypeElement type, ExecutableElement method) {
+        List<ExecutableElement> overridden = new ArrayList<>();
+        Set<TypeElement> visited = new HashSet<>();
+        Deque<TypeMirror> queue = new ArrayDeque<>(types.directSupertypes(type.asType()));
+        while (!queue.isEmpty()) {
+            TypeMirror supertype = queue.poll();
+            Element element = types.asElement(supertype);
+            if (!(element instanceof TypeElement) || !visited.add((TypeElement) element)) {
+                continue;
+            }
+            for (ExecutableElement candidate : ElementFilter.methodsIn(element.getEnclosedElements())) {
+                if (candidate.getSimpleName().equals(method.getSimpleName()) && elements.overrides(method, candidate, type)) {
+                    overridden.add(candidate);
+                }
+            }
+            queue.addAll(types.directSupertypes(supertype));
+        }
+        return overridden;
+    }
+
+    /**
+     * 接收者静态类型的擦除；类型变量取上界，数组上的调用（如 clone）没有对应的类
+     */
+    private String receiverOwner(TreePath receiver, ExecutableElement executable) {
+        TypeMirror type = trees.getTypeMirror(receiver);
+        if (type == null || executable.getKind() == ElementKind.CONSTRUCTOR) {
+            return ownerOf(executable);
+        }
+        TypeMirror erased = types.erasure(type);
+        if (erased.getKind() == TypeKind.ARRAY) {
+            return null;
+        }
+        return erased.getKind() == TypeKind.DECLARED ? internalName(erased) : ownerOf(executable);
+    }
+
+    /**
+     * 没有接收者的调用与 javac 相同，所属类取继承了该方法的最内层外围类；
+     * 该类是匿名类或局部类时没有单独的记录，改取声明方法的类
+     */
+    private String unqualifiedOwner(ExecutableElement executable) {
+        Element declaring = executable.getEnclosingElement();
+        if (!(declaring instanceof TypeElement) || executable.getKind() == ElementKind.CONSTRUCTOR) {
+            return ownerOf(executable);
+        }
+        TypeMirror declaringType = types.erasure(declaring.asType());
+        for (TreePath path = getCurrentPath(); path != null; path = path.getParentPath()) {
+            if (!(path.getLeaf() instanceof ClassTree)) {
+                continue;
+            }
+            Element element = trees.getElement(path);
+            if (element instanceof TypeElement && types.isSubtype(types.erasure(element.asType()), declaringType)) {
+                NestingKind nestingKind = ((TypeElement) element).getNestingKind();
+                return nestingKind == NestingKind.ANONYMOUS || nestingKind == NestingKind.LOCAL
+                        ? ownerOf(executable) : internalName((TypeElement) element);
+            }
+        }
+        return ownerOf(executable);
+    }
+
+    private String ownerOf(ExecutableElement executable) {
+        Element enclosing = executable.getEnclosingElement();
+        return enclosing instanceof TypeElement ? internalName((TypeElement) enclosing) : null;
+    }
+
+    private static boolean isSuper(ExpressionTree receiver) {
+        return receiver.getKind() == Tree.Kind.IDENTIFIER && ((IdentifierTree) receiver).getName().contentEquals("super")
+                || receiver.getKind() == Tree.Kind.MEMBER_SELECT && ((MemberSelectTree) receiver).getIdentifier().contentEquals("super");
+    }
+
+    private static boolean isVirtual(ExecutableElement executable) {
+        return executable.getKind() == ElementKind.METHOD
+                && !executable.getModifiers().contains(Modifier.STATIC)
+                && !executable.getModifiers().contains(Modifier.PRIVATE);
+    }
+
+    private void setLines(MethodInfo method, MethodTree node) {
+        CompilationUnitTree unit = getCurrentPath().getCompilationUnit();
+        SourcePositions positions = trees.getSourcePositions();
+        long start = positions.getStartPosition(unit, node);
+        long end = positions.getEndPosition(unit, node);
+        LineMap lineMap = unit.getLineMap();
+        if (start < 0 || lineMap == null) {
+            return;
+        }
+        // 命令行 javac 默认不保留结束位置，此时取方法体最后一条语句的起始行
+        if (end < 0) {
+            List<? extends StatementTree> statements = node.getBody() != null ? node.getBody().getStatements() : null;
+            end = statements != null && !statements.isEmpty()
+                    ? positions.getStartPosition(unit, statements.get(statements.size() - 1)) : start;
+        }
+        method.setFirstLine((int) lineMap.getLineNumber(start));
+        method.setLastLine((int) lineMap.getLineNumber(Math.max(start, end)));
+    }
+
+    private Set<String> annotations(Element element) {
+        Set<String> descriptors = new HashSet<>();
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+            descriptors.add("L" + internalName(annotationType) + ";");
+            addReference(internalName(annotationType));
+        }
+        return descriptors;
+    }
+
+    private String descriptor(ExecutableElement executable) {
+        ExecutableType type = (ExecutableType) types.erasure(executable.asType());
+        StringBuilder descriptor = new StringBuilder("(");
+        for (TypeMirror parameter : type.getParameterTypes()) {
+            descriptor.append(descriptor(parameter));
+        }
+        return descriptor.append(')').append(descriptor(type.getReturnType())).toString();
+    }
+
+    private String descriptor(TypeMirror type) {
+        TypeMirror erased = types.erasure(type);
+        switch (erased.getKind()) {
+            case BOOLEAN:
+                return "Z";
+            case BYTE:
+                return "B";
+            case CHAR:
+                return "C";
+            case SHORT:
+                return "S";
+            case INT:
+                return "I";
+            case LONG:
+                return "J";
+            case FLOAT:
+                return "F";
+            case DOUBLE:
+                return "D";
+            case VOID:
+                return "V";
+            case ARRAY:
+                return "[" + descriptor(((ArrayType) erased).getComponentType());
+            case DECLARED:
+                return "L" + internalName(erased) + ";";
+            default:
+                return "Ljava/lang/Object;";
+        }
+    }
+
+    private String internalName(TypeMirror type) {
+        return internalName((TypeElement) ((DeclaredType) types.erasure(type)).asElement());
+    }
+
+    private String internalName(TypeElement type) {
+        return elements.getBinaryName(type).toString().replace('.', '/');
+    }
+
+    private static int classAccess(TypeElement type) {
+        int access = modifiers(type.getModifiers());
+        switch (type.getKind()) {
+            case ANNOTATION_TYPE:
+                return access | Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT | Opcodes.ACC_ANNOTATION;
+            case INTERFACE:
+                return access | Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT;
+            case ENUM:
+                return access | Opcodes.ACC_ENUM;
+            default:
+                return access;
+        }
+    }
+
+    private static int methodAccess(ExecutableElement executable) {
+        int access = modifiers(executable.getModifiers());
+        if (executable.isVarArgs()) {
+            access |= Opcodes.ACC_VARARGS;
+        }
+        return access;
+    }
+
+    private static int modifiers(Set<Modifier> modifiers) {
+        int access = 0;
+        if (modifiers.contains(Modifier.PUBLIC)) {
+            access |= Opcodes.ACC_PUBLIC;
+        }
+        if (modifiers.contains(Modifier.PRIVATE)) {
+            access |= Opcodes.ACC_PRIVATE;
+        }
+        if (modifiers.contains(Modifier.PROTECTED)) {
+            access |= Opcodes.ACC_PROTECTED;
+        }
+        if (modifiers.contains(Modifier.STATIC)) {
+            access |= Opcodes.ACC_STATIC;
+        }
+        if (modifiers.contains(Modifier.FINAL)) {
+            access |= Opcodes.ACC_FINAL;
+        }
+        if (modifiers.contains(Modifier.ABSTRACT)) {
+            access |= Opcodes.ACC_ABSTRACT;
+        }
+        return access;
+    }
+}
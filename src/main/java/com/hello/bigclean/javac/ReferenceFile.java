@@ -0,0 +1,242 @@
+package com.hello.bigclean.javac;
+
+import com.hello.bigclean.bytecode.MethodCall;
+import com.hello.bigclean.bytecode.MethodInfo;
+import com.hello.bigclean.util.ProjectFiles;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 模块的引用文件：按源码文件保存编译器插件记录的类，所有名称存入字符串表，记录中只写编号。
+ * 增量编译只重新编译部分源码，写出时与已有的文件合并：本次编译的源码整体替换，已删除的源码一并去掉
+ */
+public class ReferenceFile {
+    public static final String FILE_NAME = "bigclean-references.bin";
+    private static final int MAGIC = 0x42435246; // "BCRF"
+    private static final int VERSION = 1;
+
+    // 源码文件路径 -> 其中声明的类
+    private final Map<String, List<ClassRecord>> units = new LinkedHashMap<>();
+
+    public Map<String, List<ClassRecord>> getUnits() {
+        return units;
+    }
+
+    /**
+     * 所有源码文件中的类
+     */
+    public List<ClassRecord> getClasses() {
+        return units.values().stream().flatMap(Collection::stream).collect(Collectors.toList());
+    }
+
+    /**
+     * 在项目中查找各模块的引用文件
+     */
+    public static List<Path> find(String rootDir) throws IOException {
+        try (Stream<Path> paths = ProjectFiles.walk(rootDir)) {
+            return paths.filter(path -> path.getFileName() != null && FILE_NAME.equals(path.getFileName().toString()))
+                    .filter(Files::isRegularFile)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * 读取引用文件，文件不存在时返回空文件，格式不符时抛出 IOException
+     */
+    public static ReferenceFile read(Path file) throws IOException {
+        ReferenceFile referenceFile = new ReferenceFile();
+        if (!Files.isRegularFile(file)) {
+            return referenceFile;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("引用文件版本不匹配: " + file);
+            }
+            String[] names = new String[in.readInt()];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = readString(in);
+            }
+            int unitCount = in.readInt();
+            for (int i = 0; i < unitCount; i++) {
+                String unit = names[in.readInt()];
+                int classCount = in.readInt();
+                List<ClassRecord> classes = new ArrayList<>(classCount);
+                for (int k = 0; k < classCount; k++) {
+                    classes.add(readClass(in, names));
+                }
+                referenceFile.units.put(unit, classes);
+            }
+        }
+        return referenceFile;
+    }
+
+    /**
+     * 用本次编译的记录替换对应源码文件的旧记录，并去掉源码已不存在的记录
+     */
+    public void merge(Map<String, List<ClassRecord>> compiled) {
+        units.putAll(compiled);
+        units.keySet().removeIf(unit -> !Files.exists(Paths.get(unit)));
+    }
+
+    /**
+     * 写出引用文件：先写临时文件再替换，避免写到一半的文件被读到
+     */
+    public void write(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Map<String, Integer> ids = new LinkedHashMap<>();
+        for (Map.Entry<String, List<ClassRecord>> unit : units.entrySet()) {
+            id(ids, unit.getKey());
+            for (ClassRecord record : unit.getValue()) {
+                collectNames(ids, record);
+            }
+        }
+        Path tmp = parent.resolve(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(ids.size());
+            for (String name : ids.keySet()) {
+                writeString(out, name);
+            }
+            out.writeInt(units.size());
+            for (Map.Entry<String, List<ClassRecord>> unit : units.entrySet()) {
+                out.writeInt(ids.get(unit.getKey()));
+                out.writeInt(unit.getValue().size());
+                for (ClassRecord record : unit.getValue()) {
+                    writeClass(out, ids, record);
+                }
+            }
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void collectNames(Map<String, Integer> ids, ClassRecord record) {
+        id(ids, record.getName());
+        id(ids, record.getSimpleName());
+        id(ids, record.getSuperName());
+        record.getInterfaces().forEach(name -> id(ids, name));
+        record.getAnnotations().forEach(name -> id(ids, name));
+        record.getReferences().forEach(name -> id(ids, name));
+        for (MethodInfo method : record.getMethods().values()) {
+            id(ids, method.getName());
+            id(ids, method.getDescriptor());
+            method.getAnnotations().forEach(name -> id(ids, name));
+            for (MethodCall call : method.getCalls()) {
+                id(ids, call.getOwner());
+                id(ids, call.getName());
+                id(ids, call.getDescriptor());
+            }
+        }
+    }
+
+    private static int id(Map<String, Integer> ids, String name) {
+        return name == null ? -1 : ids.computeIfAbsent(name, k -> ids.size());
+    }
+
+    private static void writeClass(DataOutputStream out, Map<String, Integer> ids, ClassRecord record) throws IOException {
+        out.writeInt(id(ids, record.getName()));
+        out.writeInt(id(ids, record.getSimpleName()));
+        out.writeInt(id(ids, record.getSuperName()));
+        out.writeInt(record.getAccess());
+        writeNames(out, ids, record.getInterfaces());
+        writeNames(out, ids, record.getAnnotations());
+        writeNames(out, ids, record.getReferences());
+        out.writeInt(record.getMethods().size());
+        for (MethodInfo method : record.getMethods().values()) {
+            out.writeInt(id(ids, method.getName()));
+            out.writeInt(id(ids, method.getDescriptor()));
+            out.writeInt(method.getAccess());
+            out.writeInt(method.getFirstLine());
+            out.writeInt(method.getLastLine());
+            writeNames(out, ids, method.getAnnotations());
+            out.writeInt(method.getCalls().size());
+            for (MethodCall call : method.getCalls()) {
+                out.writeInt(id(ids, call.getOwner()));
+                out.writeInt(id(ids, call.getName()));
+                out.writeInt(id(ids, call.getDescriptor()));
+                out.writeBoolean(call.isVirtual());
+            }
+        }
+    }
+
+    private static ClassRecord readClass(DataInputStream in, String[] names) throws IOException {
+        ClassRecord record = new ClassRecord();
+        record.setName(name(names, in.readInt()));
+        record.setSimpleName(name(names, in.readInt()));
+        record.setSuperName(name(names, in.readInt()));
+        record.setAccess(in.readInt());
+        readNames(in, names, record.getInterfaces());
+        readNames(in, names, record.getAnnotations());
+        readNames(in, names, record.getReferences());
+        int methodCount = in.readInt();
+        for (int i = 0; i < methodCount; i++) {
+            MethodInfo method = new MethodInfo();
+            method.setOwner(record.getName());
+            method.setName(name(names, in.readInt()));
+            method.setDescriptor(name(names, in.readInt()));
+            method.setAccess(in.readInt());
+            method.setFirstLine(in.readInt());
+            method.setLastLine(in.readInt());
+            readNames(in, names, method.getAnnotations());
+            int callCount = in.readInt();
+            for (int k = 0; k < callCount; k++) {
+                method.getCalls().add(new MethodCall(name(names, in.readInt()), name(names, in.readInt()),
+                        name(names, in.readInt()), in.readBoolean()));
+            }
+            record.getMethods().put(method.getKey(), method);
+        }
+        return record;
+    }
+
+    private static void writeNames(DataOutputStream out, Map<String, Integer> ids, Collection<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            out.writeInt(id(ids, value));
+        }
+    }
+
+    private static void readNames(DataInputStream in, String[] names, Collection<String> values) throws IOException {
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            values.add(names[in.readInt()]);
+        }
+    }
+
+    private static String name(String[] names, int id) {
+        return id < 0 ? null : names[id];
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
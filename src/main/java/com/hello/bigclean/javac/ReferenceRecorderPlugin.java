@@ -0,0 +1,168 @@
+package com.hello.bigclean.javac;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.Plugin;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.Trees;
+
+import javax.lang.model.element.TypeElement;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * javac 插件：在正常编译中记录每个源码文件里解析过的类型引用和方法调用，编译结束时写入模块的引用文件（见 {@link ReferenceFile}），
+ * 分析时直接读取这些文件，不必再用 Spoon 解析源码。扫描器 jar 放在注解处理器路径上，用参数指定引用文件的位置：
+ * <pre>
+ * javac -processorpath bigclean-scanner-cli.jar -Xplugin:"BigCleanReferences build/bigclean/bigclean-references.bin" ...
+ *
+ * // Gradle
+ * dependencies { annotationProcessor files('bigclean-scanner-1.0.2-cli.jar') }
+ * compileJava.options.compilerArgs << "-Xplugin:BigCleanReferences $buildDir/bigclean/bigclean-references.bin"
+ * </pre>
+ * 每个顶层类在属性分析（ANALYZE）结束后遍历一次；JDK 9 起在 COMPILATION 事件时写出，
+ * JDK 8 没有该事件，在所有已进入编译的顶层类都生成 class 文件（GENERATE）时写出。
+ * 编译出错时 javac 不再为出错及之后的类生成 class 文件，此时不写出，保留上次的文件
+ */
+public class ReferenceRecorderPlugin implements Plugin {
+    public static final String NAME = "BigCleanReferences";
+    private static final boolean HAS_COMPILATION_EVENT = hasCompilationEvent();
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void init(JavacTask task, String... args) {
+        if (args.length == 0) {
+            System.err.println(NAME + ": 需要指定引用文件路径，如 -Xplugin:\"" + NAME + " build/bigclean/" + ReferenceFile.FILE_NAME + "\"");
+            return;
+        }
+        task.addTaskListener(new Recorder(task, Paths.get(args[0])));
+    }
+
+    private static boolean hasCompilationEvent() {
+        for (TaskEvent.Kind kind : TaskEvent.Kind.values()) {
+            if ("COMPILATION".equals(kind.name())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Recorder implements TaskListener {
+        private final JavacTask task;
+        private final Path output;
+        private final Trees trees;
+        // 源码文件路径 -> 本次编译记录的类
+        private final Map<String, List<ClassRecord>> compiled = new LinkedHashMap<>();
+        // 已进入编译、已分析完成和已生成 class 文件的顶层类，按对象身份比较
+        private final Set<Tree> entered = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final Map<TypeElement, Tree> analyzed = new IdentityHashMap<>();
+        private final Set<Tree> generated = Collections.newSetFromMap(new IdentityHashMap<>());
+        private boolean failed;
+        private boolean written;
+
+        Recorder(JavacTask task, Path output) {
+            this.task = task;
+            this.output = output;
+            this.trees = Trees.instance(task);
+        }
+
+        @Override
+        public void started(TaskEvent e) {
+        }
+
+        @Override
+        public void finished(TaskEvent e) {
+            try {
+                switch (e.getKind()) {
+                    case ENTER:
+                        if (e.getCompilationUnit() != null) {
+                            e.getCompilationUnit().getTypeDecls().stream()
+                                    .filter(tree -> tree instanceof ClassTree)
+                                    .forEach(entered::add);
+                        }
+                        break;
+                    case ANALYZE:
+                        record(e);
+                        break;
+                    case GENERATE:
+                        Tree tree = analyzed.get(e.getTypeElement());
+                        if (tree != null) {
+                            generated.add(tree);
+                        }
+                        if (!HAS_COMPILATION_EVENT && generated.containsAll(entered)) {
+                            write();
+                        }
+                        break;
+                    default:
+                        if (HAS_COMPILATION_EVENT && "COMPILATION".equals(e.getKind().name())) {
+                            write();
+                        }
+                        break;
+                }
+            } catch (RuntimeException ex) {
+                // 记录失败不影响编译本身
+                failed = true;
+                System.err.println(NAME + ": 记录引用失败: " + ex);
+            }
+        }
+
+        private void record(TaskEvent e) {
+            TypeElement type = e.getTypeElement();
+            TreePath path = type != null ? trees.getPath(type) : null;
+            if (path == null) {
+                return;
+            }
+            analyzed.put(type, path.getLeaf());
+            URI source = e.getSourceFile() != null ? e.getSourceFile().toUri() : null;
+            // 内存中的源码没有对应的文件，无法在增量编译时合并，不记录
+            if (source == null || !"file".equals(source.getScheme())) {
+                return;
+            }
+            String unit = Paths.get(source).toAbsolutePath().normalize().toString();
+            List<ClassRecord> records = compiled.computeIfAbsent(unit, k -> new ArrayList<>());
+            new ReferenceCollector(trees, task.getElements(), task.getTypes(), records).scan(path, null);
+        }
+
+        private void write() {
+            if (written || failed || compiled.isEmpty()) {
+                return;
+            }
+            // 有顶层类没有生成 class 文件，说明编译出错，记录可能来自出错的类型
+            if (!generated.containsAll(entered)) {
+                System.err.println(NAME + ": 编译未完成，不更新引用文件");
+                return;
+            }
+            written = true;
+            ReferenceFile referenceFile;
+            try {
+                referenceFile = ReferenceFile.read(output);
+            } catch (IOException ex) {
+                // 旧文件损坏或版本不符时只写本次编译的记录，下次全量编译后恢复完整
+                System.err.println(NAME + ": 忽略无法读取的引用文件: " + ex.getMessage());
+                referenceFile = new ReferenceFile();
+            }
+            try {
+                referenceFile.merge(compiled);
+                referenceFile.write(output);
+            } catch (IOException ex) {
+                System.err.println(NAME + ": 写出引用文件失败: " + ex.getMessage());
+            }
+        }
+    }
+}
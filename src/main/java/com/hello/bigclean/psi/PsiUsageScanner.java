@@ -0,0 +1,264 @@
+package com.hello.bigclean.psi;
+
+import com.hello.bigclean.spoon.reference.MethodReference;
+import com.hello.bigclean.spoon.reference.Reference;
+import com.hello.bigclean.util.ScanProgress;
+import com.hello.bigclean.util.ScanScheduler;
+import com.intellij.ide.highlighter.JavaFileType;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiAnnotation;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiParameter;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.search.FileTypeIndex;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.searches.MethodReferencesSearch;
+import com.intellij.psi.search.searches.ReferencesSearch;
+import com.intellij.psi.util.ClassUtil;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.psi.util.TypeConversionUtil;
+import com.intellij.util.Query;
+import org.aspectj.lang.annotation.Aspect;
+import org.mapstruct.Mapper;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Controller;
+import org.springframework.stereotype.Repository;
+import org.springframework.stereotype.Service;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 基于 IDE 索引的无用代码分析：不解析源码、不建 Spoon 模型，直接用 IntelliJ 已建立的词索引和 stub 索引查找引用。
+ * 每个候选类或方法在独立的读操作中执行 ReferencesSearch / MethodReferencesSearch，找到第一个外部引用即停止，
+ * 各候选由 ScanScheduler 并行检查。读操作在索引就绪（非 dumb 模式）后才执行。
+ * 排除规则与 Spoon 分析相同，返回相同格式的 Reference / MethodReference。
+ */
+public class PsiUsageScanner {
+    // 与 ScanAllClassStrategy 相同：带这些注解的类视为已使用
+    private static final List<String> USED_CLASS_ANNOTATIONS = Arrays.asList(
+            Component.class.getName(),
+            Service.class.getName(),
+            RestController.class.getName(),
+            Aspect.class.getName(),
+            Configuration.class.getName(),
+            Repository.class.getName(),
+            Mapper.class.getName()
+    );
+    // 与 ScanAllMethodStrategy 相同：带这些注解的类中的方法不报告
+    private static final List<String> EXCLUDED_METHOD_CLASS_ANNOTATIONS = Arrays.asList(
+            Controller.class.getName(),
+            RestController.class.getName(),
+            RestControllerAdvice.class.getName(),
+            ControllerAdvice.class.getName(),
+            Aspect.class.getName(),
+            Configuration.class.getName()
+    );
+
+    /**
+     * 没有被其他类引用的类，类内部（包括其嵌套类）对自身的引用不计
+     */
+    public static List<Reference> findUnusedClasses(Project project, ScanProgress progress) throws InterruptedException {
+        DumbService dumbService = DumbService.getInstance(project);
+        GlobalSearchScope scope = GlobalSearchScope.projectScope(project);
+        progress.setText("收集项目中的类...");
+        List<PsiClass> classes = dumbService.runReadActionInSmartMode(() -> collectClasses(project, scope));
+        System.out.println("索引分析候选类数量: " + classes.size());
+
+        progress.setText("查找类的引用...");
+        List<Reference> unused = ScanScheduler.map(classes, psiClass -> dumbService.runReadActionInSmartMode(() -> {
+            if (!psiClass.isValid()
+                    || hasAnyAnnotation(psiClass, USED_CLASS_ANNOTATIONS)
+                    || hasExternalUsage(psiClass, ReferencesSearch.search(psiClass, scope))) {
+                return null;
+            }
+            String packageName = ((PsiJavaFile) psiClass.getContainingFile()).getPackageName();
+            return new Reference(packageName + "." + psiClass.getName(), null);
+        }), progress);
+
+        Map<String, Reference> referenceMap = new TreeMap<>();
+        for (Reference reference : unused) {
+            referenceMap.putIfAbsent(reference.getOriginalClass(), reference);
+        }
+        return new ArrayList<>(referenceMap.values());
+    }
+
+    /**
+     * 没有被调用的方法：方法本身和它重写的父类型方法都没有外部引用，方法内部的递归调用不计
+     */
+    public static List<MethodReference> findUnusedMethods(Project project, ScanProgress progress) throws InterruptedException {
+        DumbService dumbService = DumbService.getInstance(project);
+        GlobalSearchScope scope = GlobalSearchScope.projectScope(project);
+        progress.setText("收集项目中的方法...");
+        List<PsiMethod> methods = dumbService.runReadActionInSmartMode(() -> {
+            List<PsiMethod> result = new ArrayList<>();
+            for (PsiClass psiClass : collectClasses(project, scope)) {
+                if (isExcludedMethodClass(psiClass)) {
+                    continue;
+                }
+                for (PsiMethod method : psiClass.getMethods()) {
+                    if (!isExcludedMethod(method)) {
+                        result.add(method);
+                    }
+                }
+            }
+            return result;
+        });
+        System.out.println("索引分析候选方法数量: " + methods.size());
+
+        progress.setText("查找方法的引用...");
+        List<MethodReference> unusedMethods = ScanScheduler.map(methods, method -> dumbService.runReadActionInSmartMode(() -> {
+            if (!method.isValid() || isMethodUsed(method, scope)) {
+                return null;
+            }
+            MethodReference methodReference = new MethodReference();
+            methodReference.setOriginalClass(ClassUtil.getJVMClassName(method.getContainingClass()));
+            methodReference.setMethod(method.getName());
+            methodReference.setMethodDescriptor(signature(method));
+            methodReference.setMethodLines(lines(method));
+            return methodReference;
+        }), progress);
+        List<MethodReference> result = new ArrayList<>(unusedMethods);
+        result.sort((o1, o2) -> o2.getMethodLines() - o1.getMethodLines());
+        System.out.println("Unused methods (" + result.size() + "):");
+        return result;
+    }
+
+    /**
+     * 项目范围内所有 Java 文件中的具名类（顶层类和嵌套类，不含匿名类和局部类），默认包中的类不计
+     */
+    private static List<PsiClass> collectClasses(Project project, GlobalSearchScope scope) {
+        List<PsiClass> classes = new ArrayList<>();
+        PsiManager psiManager = PsiManager.getInstance(project);
+        for (VirtualFile file : FileTypeIndex.getFiles(JavaFileType.INSTANCE, scope)) {
+            PsiFile psiFile = psiManager.findFile(file);
+            if (psiFile instanceof PsiJavaFile && !((PsiJavaFile) psiFile).getPackageName().isEmpty()) {
+                Deque<PsiClass> queue = new ArrayDeque<>(Arrays.asList(((PsiJavaFile) psiFile).getClasses()));
+                while (!queue.isEmpty()) {
+                    PsiClass psiClass = queue.poll();
+                    classes.add(psiClass);
+                    queue.addAll(Arrays.asList(psiClass.getInnerClasses()));
+                }
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * 方法或它（直接或间接）重写的任一父类型方法在外部被引用
+     */
+    private static boolean isMethodUsed(PsiMethod method, GlobalSearchScope scope) {
+        if (hasExternalUsage(method, MethodReferencesSearch.search(method, scope, true))) {
+            return true;
+        }
+        // 通过父类型调用时运行期可能分派到该方法
+        Set<PsiMethod> visited = new HashSet<>();
+        Deque<PsiMethod> queue = new ArrayDeque<>(Arrays.asList(method.findSuperMethods()));
+        while (!queue.isEmpty()) {
+            PsiMethod superMethod = queue.poll();
+            if (!visited.add(superMethod)) {
+                continue;
+            }
+            if (hasExternalUsage(method, MethodReferencesSearch.search(superMethod, scope, true))) {
+                return true;
+            }
+            queue.addAll(Arrays.asList(superMethod.findSuperMethods()));
+        }
+        return false;
+    }
+
+    /**
+     * 查询结果中存在 owner 以外的引用；forEach 的处理器返回 false 时立即停止查询
+     */
+    private static boolean hasExternalUsage(PsiElement owner, Query<PsiReference> query) {
+        return !query.forEach(reference -> PsiTreeUtil.isAncestor(owner, reference.getElement(), false));
+    }
+
+    private static boolean hasAnyAnnotation(PsiClass psiClass, List<String> annotations) {
+        for (String annotation : annotations) {
+            if (psiClass.hasAnnotation(annotation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isExcludedMethodClass(PsiClass psiClass) {
+        String qualifiedName = psiClass.getQualifiedName();
+        if (qualifiedName == null
+                || psiClass.isInterface()
+                || psiClass.isAnnotationType()
+                || qualifiedName.contains("Controller")
+                || qualifiedName.contains("Test")
+                || qualifiedName.contains("FallbackFactory")
+                || qualifiedName.endsWith("Builder")
+                || hasAnyAnnotation(psiClass, EXCLUDED_METHOD_CLASS_ANNOTATIONS)) {
+            return true;
+        }
+        for (PsiAnnotation annotation : psiClass.getAnnotations()) {
+            String annotationName = annotation.getQualifiedName();
+            if (annotationName != null && annotationName.startsWith("org.mapstruct.")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 构造器、编译器隐式生成的方法（枚举的 values/valueOf 等）、@PostConstruct 和 afterPropertiesSet 不报告
+     */
+    private static boolean isExcludedMethod(PsiMethod method) {
+        return method.isConstructor()
+                || !method.isPhysical()
+                || method.hasAnnotation(PostConstruct.class.getName())
+                || Objects.equals(method.getName(), "afterPropertiesSet");
+    }
+
+    /**
+     * 与 CtMethod.getSignature() 相同的格式，参数类型取擦除后的全限定名
+     */
+    private static String signature(PsiMethod method) {
+        StringBuilder signature = new StringBuilder(method.getName()).append('(');
+        PsiParameter[] parameters = method.getParameterList().getParameters();
+        for (int i = 0; i < parameters.length; i++) {
+            if (i > 0) {
+                signature.append(',');
+            }
+            signature.append(TypeConversionUtil.erasure(parameters[i].getType()).getCanonicalText());
+        }
+        return signature.append(')').toString();
+    }
+
+    private static int lines(PsiMethod method) {
+        PsiFile file = method.getContainingFile();
+        Document document = file != null ? PsiDocumentManager.getInstance(method.getProject()).getDocument(file) : null;
+        TextRange range = method.getTextRange();
+        if (document == null || range == null) {
+            return 1;
+        }
+        return document.getLineNumber(range.getEndOffset()) - document.getLineNumber(range.getStartOffset()) + 1;
+    }
+}
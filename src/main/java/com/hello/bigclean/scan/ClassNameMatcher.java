@@ -0,0 +1,278 @@
+package com.hello.bigclean.scan;
+
+import java.util.*;
+
+/**
+ * 多模式类名匹配自动机。
+ * 把所有候选类名连同少量上下文关键字编译进一棵字符级 trie，由 {@link JavaLexer} 产出的记号驱动：
+ * 每个标识符从根状态开始走，走到标识符末尾仍停在终结状态即为命中（相当于失配边全部指回根的 Aho-Corasick）。
+ * 注释和字符串中的内容不会产生记号，因此不会被误判为引用。
+ * 每个文件只需扫描一遍，就能同时标记出所有被引用的候选类，耗时与候选类数量无关。
+ */
+public class ClassNameMatcher {
+    // 记号类型：0 为普通标识符/关键字/字面量，1~9 为上下文关键字，SYMBOL + c 为单字符符号
+    private static final int T_OTHER = 0;
+    private static final int T_IMPORT = 1;
+    private static final int T_EXTENDS = 2;
+    private static final int T_IMPLEMENTS = 3;
+    private static final int T_THROWS = 4;
+    private static final int T_NEW = 5;
+    private static final int T_INSTANCEOF = 6;
+    private static final int T_CATCH = 7;
+    private static final int T_TYPE_DECL = 8;
+    private static final int T_SUPER = 9;
+    private static final int T_SYMBOL = 0x10000;
+
+    private static final Map<String, Integer> KEYWORDS = new LinkedHashMap<>();
+    static {
+        KEYWORDS.put("import", T_IMPORT);
+        KEYWORDS.put("extends", T_EXTENDS);
+        KEYWORDS.put("implements", T_IMPLEMENTS);
+        KEYWORDS.put("throws", T_THROWS);
+        KEYWORDS.put("new", T_NEW);
+        KEYWORDS.put("instanceof", T_INSTANCEOF);
+        KEYWORDS.put("catch", T_CATCH);
+        KEYWORDS.put("class", T_TYPE_DECL);
+        KEYWORDS.put("interface", T_TYPE_DECL);
+        KEYWORDS.put("enum", T_TYPE_DECL);
+        KEYWORDS.put("super", T_SUPER);
+    }
+
+    /**
+     * 只含关键字的匹配器，用于提取类声明
+     */
+    public static final ClassNameMatcher DECLARATIONS_ONLY = new ClassNameMatcher(Collections.emptyList());
+
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> nameIds = new HashMap<>();
+
+    // trie：每个状态的子边按字符有序存放，二分查找
+    private char[][] labels = new char[64][];
+    private int[][] targets = new int[64][];
+    private int[] terminalName = new int[64];
+    private int[] terminalKeyword = new int[64];
+    private int stateCount;
+
+    public ClassNameMatcher(Collection<String> classNames) {
+        newState();
+        for (Map.Entry<String, Integer> keyword : KEYWORDS.entrySet()) {
+            int state = insert(keyword.getKey());
+            terminalKeyword[state] = keyword.getValue();
+        }
+        for (String name : classNames) {
+            if (name == null || nameIds.containsKey(name) || KEYWORDS.containsKey(name)) {
+                continue;
+            }
+            int id = names.size();
+            names.add(name);
+            nameIds.put(name, id);
+            int state = insert(name);
+            terminalName[state] = id;
+        }
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    public String nameOf(int nameId) {
+        return names.get(nameId);
+    }
+
+    /**
+     * 类名对应的编号，未编译进自动机时返回-1
+     */
+    public int idOf(String name) {
+        Integer id = nameIds.get(name);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * 将源码记号流过自动机，按标识符边界回调命中的候选类及其引用方式
+     */
+    public void match(CharSequence source, Listener listener) {
+        JavaLexer lexer = new JavaLexer(source);
+        int prev = T_SYMBOL;
+        int prevPrev = T_SYMBOL;
+        ReferenceKind clause = null;
+        boolean expectDeclaration = false;
+        int type;
+        while ((type = lexer.next()) != JavaLexer.EOF) {
+            int token = T_OTHER;
+            if (type == JavaLexer.KEYWORD) {
+                int state = walk(source, lexer.tokenStart(), lexer.tokenEnd());
+                token = state >= 0 ? terminalKeyword[state] : T_OTHER;
+                if (token == T_IMPORT) {
+                    clause = ReferenceKind.IMPORT;
+                } else if (token == T_EXTENDS && prev != T_SYMBOL + '?') {
+                    clause = ReferenceKind.EXTENDS;
+                } else if (token == T_IMPLEMENTS) {
+                    clause = ReferenceKind.IMPLEMENTS;
+                } else if (token == T_THROWS) {
+                    clause = ReferenceKind.THROWS;
+                } else if (token == T_TYPE_DECL) {
+                    expectDeclaration = prev != T_SYMBOL + '.';
+                }
+            } else if (type == JavaLexer.IDENTIFIER) {
+                if (expectDeclaration) {
+                    expectDeclaration = false;
+                    if (!listener.onDeclaration(source, lexer.tokenStart(), lexer.tokenEnd())) {
+                        return;
+                    }
+                } else {
+                    int state = walk(source, lexer.tokenStart(), lexer.tokenEnd());
+                    int nameId = state >= 0 ? terminalName[state] : -1;
+                    if (nameId >= 0) {
+                        ReferenceKind kind = classify(lexer, prev, prevPrev, clause);
+                        if (!listener.onReference(nameId, kind)) {
+                            return;
+                        }
+                    }
+                }
+            } else if (type == JavaLexer.SYMBOL) {
+                char c = lexer.symbol();
+                token = T_SYMBOL + c;
+                if (c == '{' || c == ';') {
+                    clause = null;
+                    expectDeclaration = false;
+                }
+            }
+            prevPrev = prev;
+            prev = token;
+        }
+    }
+
+    /**
+     * 根据前两个记号、所在子句以及后面的记号判断引用方式
+     */
+    private static ReferenceKind classify(JavaLexer lexer, int prev, int prevPrev, ReferenceKind clause) {
+        if (prev == T_SYMBOL + '@') {
+            return ReferenceKind.ANNOTATION;
+        }
+        if (clause == ReferenceKind.IMPORT) {
+            return ReferenceKind.IMPORT;
+        }
+        if (prev == T_NEW) {
+            return ReferenceKind.INSTANTIATION;
+        }
+        if (prev == T_INSTANCEOF) {
+            return ReferenceKind.INSTANCEOF;
+        }
+        if (prev == T_SYMBOL + '(' && prevPrev == T_CATCH) {
+            return ReferenceKind.CATCH;
+        }
+        if (prev == T_SYMBOL + '<' || (prevPrev == T_SYMBOL + '?' && (prev == T_EXTENDS || prev == T_SUPER))) {
+            return ReferenceKind.GENERIC;
+        }
+        if (clause != null) {
+            return clause;
+        }
+        // 向前看一到两个记号，随后回退
+        int mark = lexer.position();
+        ReferenceKind kind = ReferenceKind.TYPE_USAGE;
+        if (lexer.next() == JavaLexer.SYMBOL) {
+            char c = lexer.symbol();
+            if (c == '.') {
+                kind = lexer.next() == JavaLexer.KEYWORD && lexer.tokenEquals("class")
+                        ? ReferenceKind.CLASS_LITERAL : ReferenceKind.STATIC_ACCESS;
+            } else if (c == '[') {
+                kind = ReferenceKind.ARRAY;
+            }
+        }
+        lexer.reset(mark);
+        return kind;
+    }
+
+    /**
+     * 把声明位置的字符取出作为类名
+     */
+    public static String decode(CharSequence source, int start, int end) {
+        return source.subSequence(start, end).toString();
+    }
+
+    /**
+     * 从根状态沿标识符的字符走到底，中途失配返回-1
+     */
+    private int walk(CharSequence source, int start, int end) {
+        int state = 0;
+        for (int i = start; i < end && state >= 0; i++) {
+            state = child(state, source.charAt(i));
+        }
+        return state;
+    }
+
+    private int child(int state, char c) {
+        char[] l = labels[state];
+        if (l == null) {
+            return -1;
+        }
+        int lo = 0;
+        int hi = l.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (l[mid] < c) {
+                lo = mid + 1;
+            } else if (l[mid] > c) {
+                hi = mid - 1;
+            } else {
+                return targets[state][mid];
+            }
+        }
+        return -1;
+    }
+
+    private int insert(String word) {
+        int state = 0;
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            int next = child(state, c);
+            if (next < 0) {
+                next = newState();
+                addChild(state, c, next);
+            }
+            state = next;
+        }
+        return state;
+    }
+
+    private void addChild(int state, char c, int target) {
+        char[] l = labels[state] != null ? labels[state] : new char[0];
+        int[] t = targets[state] != null ? targets[state] : new int[0];
+        int pos = 0;
+        while (pos < l.length && l[pos] < c) {
+            pos++;
+        }
+        char[] nl = new char[l.length + 1];
+        int[] nt = new int[t.length + 1];
+        System.arraycopy(l, 0, nl, 0, pos);
+        System.arraycopy(t, 0, nt, 0, pos);
+        nl[pos] = c;
+        nt[pos] = target;
+        System.arraycopy(l, pos, nl, pos + 1, l.length - pos);
+        System.arraycopy(t, pos, nt, pos + 1, t.length - pos);
+        labels[state] = nl;
+        targets[state] = nt;
+    }
+
+    private int newState() {
+        if (stateCount == labels.length) {
+            int capacity = stateCount * 2;
+            labels = Arrays.copyOf(labels, capacity);
+            targets = Arrays.copyOf(targets, capacity);
+            terminalName = Arrays.copyOf(terminalName, capacity);
+            terminalKeyword = Arrays.copyOf(terminalKeyword, capacity);
+        }
+        terminalName[stateCount] = -1;
+        terminalKeyword[stateCount] = T_OTHER;
+        return stateCount++;
+    }
+
+    /**
+     * 匹配回调，返回false时停止扫描
+     */
+    public interface Listener {
+        boolean onReference(int nameId, ReferenceKind kind);
+
+        boolean onDeclaration(CharSequence source, int start, int end);
+    }
+}
@@ -1,13 +1,13 @@
 package com.hello.bigclean.scan;
 
+import com.hello.bigclean.util.ProjectFiles;
+import com.hello.bigclean.util.ScanProgress;
+
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -22,34 +22,15 @@ public class FindUnusedClasses {
             "Aspect\\.java$",
             "Test\\.java$",
             "Tester\\.java$",
-            "Strategy\\.java$"
-    );
-
-    // 用于检测类引用的模式
-    private static final List<String> REFERENCE_PATTERNS = Arrays.asList(
-            "import\\s+.*\\.%s\\s*;",                  // Import语句
-            "extends\\s+%s[\\s{]",                     // 继承
-            "implements\\s+.*%s[\\s,{]",               // 实现接口
-            "@%s[\\s(]",                               // 注解
-            "<\\s*%s\\s*>",                            // 泛型类型
-            "<\\s*\\?\\s+extends\\s+%s\\s*>",          // 通配符extends
-            "<\\s*\\?\\s+super\\s+%s\\s*>",            // 通配符super
-            "%s\\s+\\w+\\s*[;=]",                      // 变量声明
-            "%s\\[\\]",                                // 数组声明
-            "new\\s+%s\\s*\\(",                        // 对象实例化
-            "throws\\s+.*%s",                          // 异常声明
-            "catch\\s*\\(\\s*%s",                      // Catch块
-            "public\\s+.*%s\\s+\\w+\\s*\\(",           // 方法返回类型
-            "\\(\\s*%s\\s+\\w+",                       // 方法参数
-            ",\\s*%s\\s+\\w+",                         // 逗号后的方法参数
-            "static\\s+.*%s\\s+\\w+",                  // 静态字段
-            "%s\\.class",                              // 类字面量
-            "%s\\.",                                   // 静态方法/字段访问
-            "instanceof\\s+%s"                         // instanceof检查
+            "Strategy\\.java$",
+            "package-info\\.java$",
+            "module-info\\.java$"
     );
+    private static final Pattern EXCLUDED_PATTERN = Pattern.compile(".*(" + String.join("|", EXCLUDED_PATTERNS) + ")");
 
     private final String rootDir;
     private final ExecutorService executor;
+    private final SourceStore sourceStore = new SourceStore();
 
     public FindUnusedClasses(String rootDir) {
         this.rootDir = rootDir;
@@ -57,6 +38,7 @@ public class FindUnusedClasses {
     }
 
     public void shutdown() {
+        sourceStore.clear();
         executor.shutdown();
         try {
             if (!executor.awaitTermination(60, TimeUnit.SECONDS)) {
@@ -73,7 +55,7 @@ public class FindUnusedClasses {
      */
     public List<Path> findJavaFiles() throws IOException {
         System.out.println("查找Java文件（排除指定模式）...");
-        try (Stream<Path> paths = Files.walk(Paths.get(rootDir))) {
+        try (Stream<Path> paths = ProjectFiles.walk(rootDir)) {
             List<Path> javaFiles = paths
                     .filter(Files::isRegularFile)
                     .filter(path -> path.toString().endsWith(".java"))
@@ -89,7 +71,7 @@ public class FindUnusedClasses {
      */
     public List<Path> getAllJavaFiles() throws IOException {
         System.out.println("获取所有Java文件用于引用检查...");
-        try (Stream<Path> paths = Files.walk(Paths.get(rootDir))) {
+        try (Stream<Path> paths = ProjectFiles.walk(rootDir)) {
             List<Path> allJavaFiles = paths
                     .filter(Files::isRegularFile)
                     .filter(path -> path.toString().endsWith(".java"))
@@ -103,49 +85,42 @@ public class FindUnusedClasses {
      * 检查文件是否应该被排除
      */
     private boolean isExcluded(String filePath) {
-        for (String pattern : EXCLUDED_PATTERNS) {
-            if (filePath.matches(".*" + pattern)) {
-                return true;
-            }
-        }
-        return false;
+        return EXCLUDED_PATTERN.matcher(filePath).matches();
     }
 
     /**
      * 从Java文件中提取类名
      */
     public String extractClassName(Path filePath) throws IOException {
-        String content = new String(Files.readAllBytes(filePath), StandardCharsets.UTF_8);
-        Pattern pattern = Pattern.compile("(public|private|protected)?\\s+(class|interface|enum)\\s+(\\w+)");
-        Matcher matcher = pattern.matcher(content);
-        if (matcher.find()) {
-            return matcher.group(3);
-        } else {
-            // 回退到文件名
-            String fileName = filePath.getFileName().toString();
-            return fileName.substring(0, fileName.length() - 5); // 移除.java后缀
-        }
+        return IdentifierIndex.extractClassName(filePath, sourceStore.chars(filePath));
     }
 
     /**
      * 检查类是否在任何文件中被使用
      */
     public boolean checkClassUsage(String className, Path filePath, List<Path> allFiles) throws IOException {
+        ClassNameMatcher matcher = new ClassNameMatcher(Collections.singletonList(className));
+        boolean[] used = {false};
+        ClassNameMatcher.Listener listener = new ClassNameMatcher.Listener() {
+            @Override
+            public boolean onReference(int nameId, ReferenceKind kind) {
+                used[0] = true;
+                return false;
+            }
+
+            @Override
+            public boolean onDeclaration(CharSequence source, int start, int end) {
+                return true;
+            }
+        };
         for (Path file : allFiles) {
             // 跳过定义该类的文件
             if (file.equals(filePath)) {
                 continue;
             }
-
-            String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
-            
-            // 检查各种可能引用类的方式
-            for (String patternTemplate : REFERENCE_PATTERNS) {
-                String patternString = String.format(patternTemplate, Pattern.quote(className));
-                Pattern pattern = Pattern.compile(patternString);
-                if (pattern.matcher(content).find()) {
-                    return true;
-                }
+            matcher.match(sourceStore.chars(file), listener);
+            if (used[0]) {
+                return true;
             }
         }
         return false;
@@ -155,58 +130,112 @@ public class FindUnusedClasses {
      * 查找未使用的类
      */
     public List<Map.Entry<Path, String>> findUnusedClasses() throws IOException, InterruptedException, ExecutionException {
-        List<Path> javaFiles = findJavaFiles();
+        return findUnusedClasses(ScanProgress.NONE);
+    }
+
+    /**
+     * 查找未使用的类，汇报进度，取消时抛出 InterruptedException
+     */
+    public List<Map.Entry<Path, String>> findUnusedClasses(ScanProgress progress) throws IOException, InterruptedException, ExecutionException {
+        progress.setText("查找Java文件...");
         List<Path> allJavaFiles = getAllJavaFiles();
-        
-        System.out.println("提取类名...");
-        Map<Path, String> classInfo = new HashMap<>();
+        List<Path> javaFiles = allJavaFiles.stream()
+                .filter(path -> !isExcluded(path.toString()))
+                .collect(Collectors.toList());
+        System.out.println("找到 " + javaFiles.size() + " 个Java文件进行分析。");
+
+        System.out.println("建立类名索引（只重新扫描变化的文件）...");
+        progress.setText("建立类名索引...");
+        IndexCache cache = IndexCache.load(rootDir);
+        IdentifierIndex index = IdentifierIndex.build(javaFiles, allJavaFiles, sourceStore, executor, cache, progress.range(0, 0.95));
+        cache.save(index);
+        progress.setText("分析类的使用情况...");
+
+        System.out.println("分析类的使用情况...");
+        List<Map.Entry<Path, String>> unusedClasses = new ArrayList<>();
         for (Path filePath : javaFiles) {
-            try {
-                String className = extractClassName(filePath);
-                classInfo.put(filePath, className);
-            } catch (Exception e) {
-                System.err.println("提取类名时出错 " + filePath + ": " + e.getMessage());
+            String className = index.getClassName(filePath);
+            if (!index.isReferencedOutside(className, filePath)) {
+                unusedClasses.add(new AbstractMap.SimpleEntry<>(filePath, className));
             }
         }
-        
-        System.out.println("分析类的使用情况（这可能需要一些时间）...");
-        List<Map.Entry<Path, String>> unusedClasses = new ArrayList<>();
-        
-        // 使用CompletionService进行并行处理
-        CompletionService<Map.Entry<Path, Boolean>> completionService = 
-                new ExecutorCompletionService<>(executor);
-        
-        int totalTasks = 0;
-        for (Map.Entry<Path, String> entry : classInfo.entrySet()) {
-            final Path filePath = entry.getKey();
-            final String className = entry.getValue();
-            
-            completionService.submit(() -> {
-                boolean isUsed = checkClassUsage(className, filePath, allJavaFiles);
-                return new AbstractMap.SimpleEntry<>(filePath, isUsed);
-            });
-            totalTasks++;
+        System.out.println("已处理 " + javaFiles.size() + " 个类，未使用: " + unusedClasses.size());
+        progress.setFraction(1.0);
+
+        return unusedClasses;
+    }
+
+    /**
+     * 分层分析的预筛：在所有Java文件（不排除任何模式）中找出记号扫描无法确认已使用的文件——
+     * 主类名没有在其他文件中出现，主类名与其他类重名（仅凭类名无法区分是哪一个被引用），
+     * 或文件还声明了其他类（嵌套类、次要顶层类的使用情况无法由主类推出）。
+     * 其余文件的主类已确认被使用，不再需要 AST 验证。
+     * 同时由索引给出可能引用待验证类的文件：提到其中任一类名的文件，以及声明了同名类的文件
+     */
+    public UnconfirmedFiles findUnconfirmedFiles(ScanProgress progress) throws IOException, InterruptedException, ExecutionException {
+        progress.setText("查找Java文件...");
+        // package-info 不声明类，但其中的注解可能引用候选类
+        List<Path> allJavaFiles = getAllJavaFiles();
+        List<Path> candidateFiles = allJavaFiles.stream()
+                .filter(path -> !path.endsWith("package-info.java") && !path.endsWith("module-info.java"))
+                .collect(Collectors.toList());
+
+        progress.setText("建立类名索引...");
+        IndexCache cache = IndexCache.load(rootDir);
+        IdentifierIndex index = IdentifierIndex.build(candidateFiles, allJavaFiles, sourceStore, executor, cache, progress);
+        cache.save(index);
+
+        Map<String, Integer> declarations = new HashMap<>();
+        for (Path filePath : candidateFiles) {
+            for (String name : index.getDeclaredNames(filePath)) {
+                declarations.merge(name, 1, Integer::sum);
+            }
         }
-        
-        int completed = 0;
-        while (completed < totalTasks) {
-            Future<Map.Entry<Path, Boolean>> future = completionService.take();
-            Map.Entry<Path, Boolean> result = future.get();
-            completed++;
-            
-            if (completed % 10 == 0) {
-                System.out.println("已处理 " + completed + "/" + totalTasks + " 个类...");
+        List<Path> unconfirmed = new ArrayList<>();
+        Set<String> unconfirmedNames = new HashSet<>();
+        for (Path filePath : candidateFiles) {
+            List<String> names = index.getDeclaredNames(filePath);
+            String className = names.get(0);
+            if (names.size() > 1 || declarations.get(className) > 1 || !index.isReferencedOutside(className, filePath)) {
+                unconfirmed.add(filePath);
+                unconfirmedNames.addAll(names);
             }
-            
-            if (!result.getValue()) { // 如果类未被使用
-                Path filePath = result.getKey();
-                String className = classInfo.get(filePath);
-                unusedClasses.add(new AbstractMap.SimpleEntry<>(filePath, className));
+        }
+
+        Set<Path> related = new HashSet<>();
+        for (String name : unconfirmedNames) {
+            related.addAll(index.getReferences(name).keySet());
+        }
+        for (Path filePath : candidateFiles) {
+            if (!Collections.disjoint(index.getDeclaredNames(filePath), unconfirmedNames)) {
+                related.add(filePath);
             }
         }
-        
-        return unusedClasses;
+        related.removeAll(unconfirmed);
+        List<Path> relatedFiles = allJavaFiles.stream().filter(related::contains).collect(Collectors.toList());
+        System.out.println("预筛完成: " + candidateFiles.size() + " 个文件中待验证 " + unconfirmed.size()
+                + " 个，相关文件 " + relatedFiles.size() + " 个");
+        return new UnconfirmedFiles(unconfirmed, relatedFiles);
     }
-}
 
-    
\ No newline at end of file
+    /**
+     * 预筛结果：待 AST 验证的文件，以及验证时需要一同解析的相关文件
+     */
+    public static class UnconfirmedFiles {
+        private final List<Path> files;
+        private final List<Path> relatedFiles;
+
+        UnconfirmedFiles(List<Path> files, List<Path> relatedFiles) {
+            this.files = files;
+            this.relatedFiles = relatedFiles;
+        }
+
+        public List<Path> getFiles() {
+            return files;
+        }
+
+        public List<Path> getRelatedFiles() {
+            return relatedFiles;
+        }
+    }
+}
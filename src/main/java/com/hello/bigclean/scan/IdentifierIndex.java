@@ -0,0 +1,431 @@
+package com.hello.bigclean.scan;
+
+import com.hello.bigclean.util.ScanProgress;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * 类名倒排索引：记录 候选类名 -> 引用它的文件及引用方式。
+ * 所有候选类名编译进同一个 {@link ClassNameMatcher}，每个文件经 {@link SourceStore} 只读取一次，索引完即释放，
+ * 由 {@link JavaLexer} 切分记号后只流过自动机一次，注释和字符串中的类名不计为引用。
+ * 配合 {@link IndexCache} 时，未变化的文件直接复用上次的记录，只重新切分变化的文件。
+ * 候选文件中声明的其余类（嵌套类、次要顶层类）的类名同样编入索引。
+ * 建立索引后，判断一个类是否被使用只需一次查表。
+ */
+public class IdentifierIndex {
+    private final List<IndexCache.FileRecord> records = new ArrayList<>();
+    private final Map<Path, Integer> fileIds = new HashMap<>();
+    private final Map<Path, String> classNames = new LinkedHashMap<>();
+    private final Map<Path, List<String>> declaredNames = new HashMap<>();
+    private ClassNameMatcher matcher;
+    private Postings[] postings;
+
+    /**
+     * 不使用缓存，全量建立索引
+     */
+    public static IdentifierIndex build(List<Path> candidateFiles, List<Path> allFiles, SourceStore sourceStore,
+                                       ExecutorService executor) throws InterruptedException, ExecutionException {
+        return build(candidateFiles, allFiles, sourceStore, executor, null, ScanProgress.NONE);
+    }
+
+    /**
+     * 增量建立索引：
+     * 1. 用缓存校验每个文件，未变化的文件直接复用记录；
+     * 2. 收集候选类名并编译自动机；
+     * 3. 变化的文件完整扫描；复用的记录按新的类名表重新编号，若出现新类名，只用新类名组成的小自动机补扫；
+     * 4. 按文件顺序合并进索引，保证结果稳定。
+     * 合并时按已完成的文件数汇报进度，取消时撤销未完成的任务并抛出 InterruptedException。
+     */
+    public static IdentifierIndex build(List<Path> candidateFiles, List<Path> allFiles, SourceStore sourceStore,
+                                       ExecutorService executor, IndexCache cache, ScanProgress progress)
+            throws InterruptedException, ExecutionException {
+        IdentifierIndex index = new IdentifierIndex();
+        Set<Path> candidates = new HashSet<>(candidateFiles);
+
+        List<Future<IndexCache.FileRecord>> validated = new ArrayList<>(allFiles.size());
+        for (Path file : allFiles) {
+            validated.add(executor.submit(() -> validate(cache, file, candidates.contains(file), sourceStore)));
+        }
+        IndexCache.FileRecord[] cached = new IndexCache.FileRecord[allFiles.size()];
+        int reused = 0;
+        for (int i = 0; i < allFiles.size(); i++) {
+            cached[i] = validated.get(i).get();
+            if (cached[i] != null) {
+                reused++;
+            }
+        }
+        System.out.println("复用未变化的文件: " + reused + "/" + allFiles.size());
+
+        List<Future<List<String>>> nameFutures = new ArrayList<>(allFiles.size());
+        for (int i = 0; i < allFiles.size(); i++) {
+            Path file = allFiles.get(i);
+            IndexCache.FileRecord record = cached[i];
+            if (!candidates.contains(file)) {
+                nameFutures.add(null);
+            } else if (record != null) {
+                List<String> names = new ArrayList<>();
+                names.add(record.className);
+                names.addAll(Arrays.asList(record.otherNames));
+                nameFutures.add(CompletableFuture.completedFuture(names));
+            } else {
+                nameFutures.add(executor.submit(() -> extractDeclaredNames(file, readChars(sourceStore, file))));
+            }
+        }
+        Map<Path, List<String>> extracted = new HashMap<>();
+        for (int i = 0; i < allFiles.size(); i++) {
+            if (nameFutures.get(i) != null) {
+                extracted.put(allFiles.get(i), nameFutures.get(i).get());
+            }
+        }
+        List<String> allNames = new ArrayList<>();
+        for (Path file : candidateFiles) {
+            List<String> names = extracted.get(file);
+            if (names == null) {
+                names = extractDeclaredNames(file, readChars(sourceStore, file));
+            }
+            index.classNames.put(file, names.get(0));
+            index.declaredNames.put(file, names);
+            allNames.addAll(names);
+        }
+        index.matcher = new ClassNameMatcher(allNames);
+        index.postings = new Postings[index.matcher.size()];
+        System.out.println("类名自动机编译完成: " + index.matcher.size() + " 个候选类名");
+
+        // 缓存类名编号 -> 新类名编号，以及缓存中没有的新类名
+        int[] remap = new int[0];
+        ClassNameMatcher addedMatcher = null;
+        if (cache != null) {
+            List<String> cachedNames = cache.names();
+            remap = new int[cachedNames.size()];
+            for (int k = 0; k < remap.length; k++) {
+                remap[k] = index.matcher.idOf(cachedNames.get(k));
+            }
+            Set<String> added = new LinkedHashSet<>();
+            Set<String> known = new HashSet<>(cachedNames);
+            for (int k = 0; k < index.matcher.size(); k++) {
+                if (!known.contains(index.matcher.nameOf(k))) {
+                    added.add(index.matcher.nameOf(k));
+                }
+            }
+            if (!added.isEmpty() && reused > 0) {
+                addedMatcher = new ClassNameMatcher(added);
+                System.out.println("新增候选类名 " + added.size() + " 个，补扫未变化的文件");
+            }
+        }
+
+        List<Future<IndexCache.FileRecord>> futures = new ArrayList<>(allFiles.size());
+        for (int i = 0; i < allFiles.size(); i++) {
+            Path file = allFiles.get(i);
+            IndexCache.FileRecord record = cached[i];
+            List<String> names = index.declaredNames.get(file);
+            int[] finalRemap = remap;
+            ClassNameMatcher finalAddedMatcher = addedMatcher;
+            futures.add(executor.submit(() -> {
+                try {
+                    return record != null
+                            ? index.refresh(record, file, finalRemap, finalAddedMatcher, sourceStore)
+                            : index.scan(file, names, sourceStore);
+                } finally {
+                    // 文件已索引完，不再需要其内容
+                    sourceStore.release(file);
+                }
+            }));
+        }
+        int completed = 0;
+        for (int i = 0; i < allFiles.size(); i++) {
+            if (progress.isCanceled()) {
+                for (Future<IndexCache.FileRecord> future : futures) {
+                    future.cancel(true);
+                }
+                progress.checkCanceled();
+            }
+            index.add(futures.get(i).get());
+            completed++;
+            if (completed % 500 == 0) {
+                System.out.println("已索引 " + completed + "/" + futures.size() + " 个文件...");
+            }
+            if (completed % 50 == 0 || completed == futures.size()) {
+                progress.setFraction((double) completed / futures.size());
+            }
+        }
+        System.out.println("类名索引完成: " + index.records.size() + " 个文件");
+        return index;
+    }
+
+    /**
+     * 从Java文件内容中提取第一个声明的类名，未找到或内容为空时回退到文件名
+     */
+    public static String extractClassName(Path file, CharSequence source) {
+        String[] declared = new String[1];
+        if (source != null) {
+            ClassNameMatcher.DECLARATIONS_ONLY.match(source, new ClassNameMatcher.Listener() {
+                @Override
+                public boolean onReference(int nameId, ReferenceKind kind) {
+                    return true;
+                }
+
+                @Override
+                public boolean onDeclaration(CharSequence buffer, int start, int end) {
+                    declared[0] = ClassNameMatcher.decode(buffer, start, end);
+                    return false;
+                }
+            });
+        }
+        if (declared[0] != null) {
+            return declared[0];
+        }
+        // 回退到文件名
+        String fileName = file.getFileName().toString();
+        return fileName.substring(0, fileName.length() - 5);
+    }
+
+    /**
+     * 从Java文件内容中提取声明的所有类名（包括嵌套类），第一个为主类名，规则同 {@link #extractClassName}
+     */
+    static List<String> extractDeclaredNames(Path file, CharSequence source) {
+        Set<String> declared = new LinkedHashSet<>();
+        if (source != null) {
+            ClassNameMatcher.DECLARATIONS_ONLY.match(source, new ClassNameMatcher.Listener() {
+                @Override
+                public boolean onReference(int nameId, ReferenceKind kind) {
+                    return true;
+                }
+
+                @Override
+                public boolean onDeclaration(CharSequence buffer, int start, int end) {
+                    declared.add(ClassNameMatcher.decode(buffer, start, end));
+                    return true;
+                }
+            });
+        }
+        if (declared.isEmpty()) {
+            return Collections.singletonList(extractClassName(file, null));
+        }
+        return new ArrayList<>(declared);
+    }
+
+    /**
+     * 候选文件对应的类名
+     */
+    public String getClassName(Path file) {
+        return classNames.get(file);
+    }
+
+    /**
+     * 候选文件中声明的所有类名，第一个为主类名
+     */
+    public List<String> getDeclaredNames(Path file) {
+        return declaredNames.get(file);
+    }
+
+    /**
+     * 类名是否在给定文件之外的任何文件中被引用
+     */
+    public boolean isReferencedOutside(String className, Path definingFile) {
+        int nameId = matcher.idOf(className);
+        Postings p = nameId >= 0 ? postings[nameId] : null;
+        if (p == null) {
+            return false;
+        }
+        Integer definingId = fileIds.get(definingFile);
+        int excluded = definingId != null ? definingId : -1;
+        for (int i = 0; i < p.size; i++) {
+            if (p.fileIds[i] != excluded) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 获取引用该类名的文件及引用方式
+     */
+    public Map<Path, Set<ReferenceKind>> getReferences(String className) {
+        int nameId = matcher.idOf(className);
+        Postings p = nameId >= 0 ? postings[nameId] : null;
+        if (p == null) {
+            return Collections.emptyMap();
+        }
+        Map<Path, Set<ReferenceKind>> result = new LinkedHashMap<>();
+        for (int i = 0; i < p.size; i++) {
+            result.put(records.get(p.fileIds[i]).file, ReferenceKind.fromMask(p.kindMasks[i]));
+        }
+        return result;
+    }
+
+    ClassNameMatcher matcher() {
+        return matcher;
+    }
+
+    List<IndexCache.FileRecord> records() {
+        return records;
+    }
+
+    private static IndexCache.FileRecord validate(IndexCache cache, Path file, boolean candidate, SourceStore sourceStore) {
+        if (cache == null) {
+            return null;
+        }
+        try {
+            IndexCache.FileRecord record = cache.validate(file, sourceStore);
+            // 候选文件必须带有类名，否则视为变化重新提取
+            return record != null && (!candidate || record.className != null) ? record : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 完整扫描单个文件
+     */
+    private IndexCache.FileRecord scan(Path file, List<String> names, SourceStore sourceStore) {
+        String className = names != null ? names.get(0) : null;
+        String[] otherNames = names != null ? names.subList(1, names.size()).toArray(new String[0]) : new String[0];
+        ByteBuffer source = read(sourceStore, file);
+        CharBuffer chars = readChars(sourceStore, file);
+        if (source == null || chars == null) {
+            return new IndexCache.FileRecord(file, -1, -1, 0, className, otherNames, new int[0]);
+        }
+        int[] hits = match(matcher, chars, null);
+        return new IndexCache.FileRecord(file, sourceStore.lastModified(file), source.remaining(),
+                IndexCache.hash(source), className, otherNames, hits);
+    }
+
+    /**
+     * 复用缓存记录：按新的类名表重新编号，有新增类名时补扫
+     */
+    private IndexCache.FileRecord refresh(IndexCache.FileRecord record, Path file, int[] remap,
+                                          ClassNameMatcher addedMatcher, SourceStore sourceStore) {
+        int[] hits = new int[record.hits.length];
+        int size = 0;
+        for (int k = 0; k < record.hits.length; k += 2) {
+            int nameId = remap[record.hits[k]];
+            if (nameId >= 0) {
+                hits[size++] = nameId;
+                hits[size++] = record.hits[k + 1];
+            }
+        }
+        hits = Arrays.copyOf(hits, size);
+        if (addedMatcher != null) {
+            CharBuffer source = readChars(sourceStore, file);
+            if (source != null) {
+                int[] addedHits = match(addedMatcher, source, matcher);
+                hits = Arrays.copyOf(hits, size + addedHits.length);
+                System.arraycopy(addedHits, 0, hits, size, addedHits.length);
+            }
+        }
+        return new IndexCache.FileRecord(file, record.mtime, record.size, record.hash, record.className, record.otherNames, hits);
+    }
+
+    /**
+     * 扫描文件，返回按类名编号去重后 [类名编号, 引用方式掩码] 成对排列的命中记录；
+     * target 不为空时把编号换算到 target 的类名表
+     */
+    private static int[] match(ClassNameMatcher source, CharSequence chars, ClassNameMatcher target) {
+        int[][] hits = {new int[16]};
+        int[] size = {0};
+        source.match(chars, new ClassNameMatcher.Listener() {
+            @Override
+            public boolean onReference(int nameId, ReferenceKind kind) {
+                if (size[0] + 2 > hits[0].length) {
+                    hits[0] = Arrays.copyOf(hits[0], hits[0].length * 2);
+                }
+                hits[0][size[0]++] = target != null ? target.idOf(source.nameOf(nameId)) : nameId;
+                hits[0][size[0]++] = kind.mask();
+                return true;
+            }
+
+            @Override
+            public boolean onDeclaration(CharSequence buffer, int start, int end) {
+                return true;
+            }
+        });
+        return merge(hits[0], size[0]);
+    }
+
+    /**
+     * 同一类名的多次命中合并为一条，引用方式取并集
+     */
+    private static int[] merge(int[] hits, int size) {
+        long[] packed = new long[size / 2];
+        for (int k = 0; k < packed.length; k++) {
+            packed[k] = ((long) hits[2 * k] << 32) | (hits[2 * k + 1] & 0xFFFFFFFFL);
+        }
+        Arrays.sort(packed);
+        int[] merged = new int[size];
+        int n = 0;
+        for (long entry : packed) {
+            int nameId = (int) (entry >>> 32);
+            int mask = (int) entry;
+            if (n > 0 && merged[n - 2] == nameId) {
+                merged[n - 1] |= mask;
+            } else {
+                merged[n++] = nameId;
+                merged[n++] = mask;
+            }
+        }
+        return Arrays.copyOf(merged, n);
+    }
+
+    private void add(IndexCache.FileRecord record) {
+        int fileId = records.size();
+        records.add(record);
+        fileIds.put(record.file, fileId);
+        int[] hits = record.hits;
+        for (int i = 0; i < hits.length; i += 2) {
+            int nameId = hits[i];
+            if (postings[nameId] == null) {
+                postings[nameId] = new Postings();
+            }
+            postings[nameId].add(fileId, hits[i + 1]);
+        }
+    }
+
+    private static ByteBuffer read(SourceStore sourceStore, Path file) {
+        try {
+            return sourceStore.bytes(file);
+        } catch (IOException e) {
+            System.err.println("读取文件时出错 " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static CharBuffer readChars(SourceStore sourceStore, Path file) {
+        try {
+            return sourceStore.chars(file);
+        } catch (IOException e) {
+            System.err.println("读取文件时出错 " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 倒排表：引用某类名的文件ID及对应的引用方式掩码，同一文件的多次命中合并为一条
+     */
+    private static class Postings {
+        int[] fileIds = new int[4];
+        int[] kindMasks = new int[4];
+        int size;
+
+        void add(int fileId, int kindMask) {
+            if (size > 0 && fileIds[size - 1] == fileId) {
+                kindMasks[size - 1] |= kindMask;
+                return;
+            }
+            if (size == fileIds.length) {
+                fileIds = Arrays.copyOf(fileIds, size * 2);
+                kindMasks = Arrays.copyOf(kindMasks, size * 2);
+            }
+            fileIds[size] = fileId;
+            kindMasks[size] = kindMask;
+            size++;
+        }
+    }
+}
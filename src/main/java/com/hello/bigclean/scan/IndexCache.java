@@ -0,0 +1,252 @@
+package com.hello.bigclean.scan;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+
+/**
+ * 正则引擎的持久化增量索引。
+ * 按文件保存声明的类名（主类及其余嵌套类、次要顶层类）和对候选类名的引用，用修改时间、大小和内容哈希校验；
+ * 再次扫描时只重新切分发生变化的文件。索引文件为紧凑的二进制格式，读取时直接内存映射。
+ */
+public class IndexCache {
+    private static final int MAGIC = 0x42435249; // "BCRI"
+    private static final int VERSION = 3;
+    private static final String INDEX_FILE_NAME = "regex-index.bin";
+
+    private final Path rootDir;
+    private final Path indexFile;
+    private final Map<Path, FileRecord> records = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    private IndexCache(Path rootDir, Path indexFile) {
+        this.rootDir = rootDir;
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * 加载项目的索引缓存，缓存不存在或已损坏时返回空缓存
+     */
+    public static IndexCache load(String rootDir) {
+        Path root = Paths.get(rootDir).toAbsolutePath().normalize();
+        IndexCache cache = new IndexCache(root, locate(root));
+        if (Files.isRegularFile(cache.indexFile)) {
+            try {
+                cache.read();
+                System.out.println("加载增量索引: " + cache.records.size() + " 个文件 (" + cache.indexFile + ")");
+            } catch (Exception e) {
+                System.err.println("增量索引已损坏，将重新建立: " + e.getMessage());
+                cache.records.clear();
+                cache.names.clear();
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * 索引文件位置：优先放在项目的 .idea 目录下，否则放在用户目录的缓存目录
+     */
+    private static Path locate(Path root) {
+        Path idea = root.resolve(".idea");
+        if (Files.isDirectory(idea)) {
+            return idea.resolve("bigclean").resolve(INDEX_FILE_NAME);
+        }
+        String key = Integer.toHexString(root.toString().hashCode());
+        return Paths.get(System.getProperty("user.home"), ".bigclean", "cache", key, INDEX_FILE_NAME);
+    }
+
+    /**
+     * 校验文件是否与缓存一致：修改时间和大小相同直接复用；否则比较内容哈希。
+     * 返回可复用的记录，文件有变化或不在缓存中时返回null
+     */
+    FileRecord validate(Path file, SourceStore sourceStore) throws IOException {
+        FileRecord cached = records.get(file.toAbsolutePath().normalize());
+        if (cached == null) {
+            return null;
+        }
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long mtime = attributes.lastModifiedTime().toMillis();
+        long size = attributes.size();
+        if (cached.mtime == mtime && cached.size == size) {
+            return cached;
+        }
+        if (cached.size == size && cached.hash == hash(sourceStore.bytes(file))) {
+            return new FileRecord(file, mtime, size, cached.hash, cached.className, cached.otherNames, cached.hits);
+        }
+        return null;
+    }
+
+    /**
+     * 缓存记录中的引用所对应的类名表
+     */
+    List<String> names() {
+        return names;
+    }
+
+    /**
+     * 写回索引文件：先写临时文件再替换，避免写到一半的索引被读到；
+     * 每次保存使用独立的临时文件，同时保存的多个进程互不覆盖，最后替换的一份生效
+     */
+    public void save(IdentifierIndex index) {
+        Path tmp = null;
+        try {
+            Files.createDirectories(indexFile.getParent());
+            tmp = Files.createTempFile(indexFile.getParent(), INDEX_FILE_NAME, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeString(out, rootDir.toString());
+                ClassNameMatcher matcher = index.matcher();
+                out.writeInt(matcher.size());
+                for (int i = 0; i < matcher.size(); i++) {
+                    writeString(out, matcher.nameOf(i));
+                }
+                List<FileRecord> fileRecords = index.records();
+                out.writeInt(fileRecords.size());
+                for (FileRecord record : fileRecords) {
+                    writeString(out, rootDir.relativize(record.file.toAbsolutePath().normalize()).toString());
+                    out.writeLong(record.mtime);
+                    out.writeLong(record.size);
+                    out.writeLong(record.hash);
+                    int[] nameIds = nameIds(matcher, record);
+                    out.writeInt(nameIds.length > 0 ? nameIds[0] : -1);
+                    out.writeInt(Math.max(nameIds.length - 1, 0));
+                    for (int k = 1; k < nameIds.length; k++) {
+                        out.writeInt(nameIds[k]);
+                    }
+                    out.writeInt(record.hits.length);
+                    for (int hit : record.hits) {
+                        out.writeInt(hit);
+                    }
+                }
+            }
+            try {
+                Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            System.err.println("保存增量索引失败: " + e.getMessage());
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ex) {
+                    // 残留的临时文件不影响读取
+                }
+            }
+        }
+    }
+
+    /**
+     * 记录中声明的类名在类名表中的编号，主类名在前；
+     * 复用自上次缓存的非候选文件可能带有本次类名表中没有的类名，此时不保存，下次作为候选文件时重新提取
+     */
+    private static int[] nameIds(ClassNameMatcher matcher, FileRecord record) {
+        if (record.className == null) {
+            return new int[0];
+        }
+        int[] nameIds = new int[record.otherNames.length + 1];
+        nameIds[0] = matcher.idOf(record.className);
+        for (int k = 0; k < record.otherNames.length; k++) {
+            nameIds[k + 1] = matcher.idOf(record.otherNames[k]);
+        }
+        for (int nameId : nameIds) {
+            if (nameId < 0) {
+                return new int[0];
+            }
+        }
+        return nameIds;
+    }
+
+    private void read() throws IOException {
+        ByteBuffer in;
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            // Windows 下映射中的文件无法被替换，只在其他平台上内存映射
+            in = File.separatorChar == '/'
+                    ? channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                    : ByteBuffer.wrap(Files.readAllBytes(indexFile));
+        }
+        if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+            throw new IOException("索引文件版本不匹配");
+        }
+        if (!rootDir.toString().equals(readString(in))) {
+            throw new IOException("索引文件不属于当前项目");
+        }
+        int nameCount = in.getInt();
+        for (int i = 0; i < nameCount; i++) {
+            names.add(readString(in));
+        }
+        int fileCount = in.getInt();
+        for (int i = 0; i < fileCount; i++) {
+            Path file = rootDir.resolve(readString(in));
+            long mtime = in.getLong();
+            long size = in.getLong();
+            long hash = in.getLong();
+            int classNameId = in.getInt();
+            String[] otherNames = new String[in.getInt()];
+            for (int k = 0; k < otherNames.length; k++) {
+                otherNames[k] = names.get(in.getInt());
+            }
+            int[] hits = new int[in.getInt()];
+            for (int k = 0; k < hits.length; k++) {
+                hits[k] = in.getInt();
+            }
+            String className = classNameId >= 0 ? names.get(classNameId) : null;
+            records.put(file, new FileRecord(file, mtime, size, hash, className, otherNames, hits));
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 64位 FNV-1a 内容哈希
+     */
+    static long hash(ByteBuffer bytes) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = bytes.position(); i < bytes.limit(); i++) {
+            h ^= bytes.get(i) & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /**
+     * 单个文件的索引记录：声明的主类名和其余类名（仅候选文件）以及 [类名编号, 引用方式掩码] 成对排列的引用
+     */
+    static class FileRecord {
+        final Path file;
+        final long mtime;
+        final long size;
+        final long hash;
+        final String className;
+        final String[] otherNames;
+        final int[] hits;
+
+        FileRecord(Path file, long mtime, long size, long hash, String className, String[] otherNames, int[] hits) {
+            this.file = file;
+            this.mtime = mtime;
+            this.size = size;
+            this.hash = hash;
+            this.className = className;
+            this.otherNames = otherNames;
+            this.hits = hits;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.hello.bigclean.scan;
+
+/**
+ * 手写的流式Java词法分析器。
+ * 只产出标识符、关键字、单字符符号三类记号，跳过空白、注释（含Javadoc）以及字符串、字符、文本块和数字字面量
+ * （字面量整体作为一个 LITERAL 记号，便于上层维护前后记号）。
+ * 记号只以起止下标表示，扫描过程中不分配任何对象。
+ */
+public final class JavaLexer {
+    public static final int EOF = -1;
+    public static final int IDENTIFIER = 1;
+    public static final int KEYWORD = 2;
+    public static final int SYMBOL = 3;
+    public static final int LITERAL = 4;
+
+    // 按长度分组的关键字表，用于不分配对象的关键字判断
+    private static final String[][] KEYWORDS_BY_LENGTH = new String[13][];
+    static {
+        String[] keywords = {
+                "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const",
+                "continue", "default", "do", "double", "else", "enum", "extends", "final", "finally", "float",
+                "for", "goto", "if", "implements", "import", "instanceof", "int", "interface", "long", "native",
+                "new", "package", "private", "protected", "public", "return", "short", "static", "strictfp",
+                "super", "switch", "synchronized", "this", "throw", "throws", "transient", "try", "void",
+                "volatile", "while", "true", "false", "null"
+        };
+        for (int len = 0; len < KEYWORDS_BY_LENGTH.length; len++) {
+            int count = 0;
+            for (String keyword : keywords) {
+                if (keyword.length() == len) {
+                    count++;
+                }
+            }
+            KEYWORDS_BY_LENGTH[len] = new String[count];
+            count = 0;
+            for (String keyword : keywords) {
+                if (keyword.length() == len) {
+                    KEYWORDS_BY_LENGTH[len][count++] = keyword;
+                }
+            }
+        }
+    }
+
+    private final CharSequence source;
+    private final int length;
+    private int pos;
+    private int tokenStart;
+    private int tokenEnd;
+
+    public JavaLexer(CharSequence source) {
+        this.source = source;
+        this.length = source.length();
+    }
+
+    /**
+     * 读取下一个记号，返回记号类型
+     */
+    public int next() {
+        skipTrivia();
+        if (pos >= length) {
+            tokenStart = tokenEnd = length;
+            return EOF;
+        }
+        tokenStart = pos;
+        char c = source.charAt(pos);
+        if (Character.isJavaIdentifierStart(c)) {
+            pos++;
+            while (pos < length && Character.isJavaIdentifierPart(source.charAt(pos))) {
+                pos++;
+            }
+            tokenEnd = pos;
+            return isKeyword(tokenStart, tokenEnd) ? KEYWORD : IDENTIFIER;
+        }
+        if (c == '"') {
+            skipString();
+        } else if (c == '\'') {
+            skipQuoted('\'');
+        } else if (Character.isDigit(c) || (c == '.' && pos + 1 < length && Character.isDigit(source.charAt(pos + 1)))) {
+            skipNumber();
+        } else {
+            pos++;
+            tokenEnd = pos;
+            return SYMBOL;
+        }
+        tokenEnd = pos;
+        return LITERAL;
+    }
+
+    public int tokenStart() {
+        return tokenStart;
+    }
+
+    public int tokenEnd() {
+        return tokenEnd;
+    }
+
+    /**
+     * 当前符号记号的字符
+     */
+    public char symbol() {
+        return source.charAt(tokenStart);
+    }
+
+    /**
+     * 当前记号是否与给定文本相同
+     */
+    public boolean tokenEquals(String text) {
+        return regionEquals(tokenStart, tokenEnd, text);
+    }
+
+    /**
+     * 当前扫描位置，配合 {@link #reset(int)} 实现向前看
+     */
+    public int position() {
+        return pos;
+    }
+
+    public void reset(int position) {
+        this.pos = position;
+    }
+
+    private boolean isKeyword(int start, int end) {
+        int len = end - start;
+        if (len >= KEYWORDS_BY_LENGTH.length) {
+            return false;
+        }
+        char first = source.charAt(start);
+        if (first < 'a' || first > 'z') {
+            return false;
+        }
+        for (String keyword : KEYWORDS_BY_LENGTH[len]) {
+            if (keyword.charAt(0) == first && regionEquals(start, end, keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean regionEquals(int start, int end, String text) {
+        if (end - start != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (source.charAt(start + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 跳过空白和注释
+     */
+    private void skipTrivia() {
+        while (pos < length) {
+            char c = source.charAt(pos);
+            if (Character.isWhitespace(c)) {
+                pos++;
+            } else if (c == '/' && pos + 1 < length && source.charAt(pos + 1) == '/') {
+                pos += 2;
+                while (pos < length && source.charAt(pos) != '\n' && source.charAt(pos) != '\r') {
+                    pos++;
+                }
+            } else if (c == '/' && pos + 1 < length && source.charAt(pos + 1) == '*') {
+                pos += 2;
+                while (pos < length && !(source.charAt(pos) == '*' && pos + 1 < length && source.charAt(pos + 1) == '/')) {
+                    pos++;
+                }
+                pos = Math.min(length, pos + 2);
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 跳过字符串字面量，支持文本块
+     */
+    private void skipString() {
+        if (pos + 2 < length && source.charAt(pos + 1) == '"' && source.charAt(pos + 2) == '"') {
+            pos += 3;
+            while (pos < length) {
+                char c = source.charAt(pos);
+                if (c == '\\') {
+                    pos += 2;
+                } else if (c == '"' && pos + 2 < length && source.charAt(pos + 1) == '"' && source.charAt(pos + 2) == '"') {
+                    pos += 3;
+                    return;
+                } else {
+                    pos++;
+                }
+            }
+            pos = length;
+            return;
+        }
+        skipQuoted('"');
+    }
+
+    /**
+     * 跳过单行的引号字面量，遇到换行视为未闭合并停止
+     */
+    private void skipQuoted(char quote) {
+        pos++;
+        while (pos < length) {
+            char c = source.charAt(pos);
+            if (c == '\\') {
+                pos += 2;
+            } else if (c == quote) {
+                pos++;
+                return;
+            } else if (c == '\n' || c == '\r') {
+                return;
+            } else {
+                pos++;
+            }
+        }
+        pos = Math.min(pos, length);
+    }
+
+    private void skipNumber() {
+        pos++;
+        while (pos < length) {
+            char c = source.charAt(pos);
+            if (Character.isLetterOrDigit(c) || c == '_' || c == '.') {
+                pos++;
+            } else if ((c == '+' || c == '-') && isExponent(source.charAt(pos - 1))) {
+                pos++;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static boolean isExponent(char c) {
+        return c == 'e' || c == 'E' || c == 'p' || c == 'P';
+    }
+}
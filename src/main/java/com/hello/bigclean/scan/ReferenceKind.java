@@ -0,0 +1,40 @@
+package com.hello.bigclean.scan;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * 标识符在文件中出现的引用方式，对应原先 REFERENCE_PATTERNS 中的各类正则
+ */
+public enum ReferenceKind {
+    IMPORT,          // Import语句
+    EXTENDS,         // 继承
+    IMPLEMENTS,      // 实现接口
+    ANNOTATION,      // 注解
+    GENERIC,         // 泛型类型 / 通配符
+    INSTANTIATION,   // 对象实例化
+    THROWS,          // 异常声明
+    CATCH,           // Catch块
+    INSTANCEOF,      // instanceof检查
+    CLASS_LITERAL,   // 类字面量
+    STATIC_ACCESS,   // 静态方法/字段访问
+    ARRAY,           // 数组声明
+    TYPE_USAGE;      // 变量、参数、返回值等其他类型使用
+
+    public int mask() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * 将位掩码还原为引用方式集合
+     */
+    public static Set<ReferenceKind> fromMask(int mask) {
+        Set<ReferenceKind> kinds = EnumSet.noneOf(ReferenceKind.class);
+        for (ReferenceKind kind : values()) {
+            if ((mask & kind.mask()) != 0) {
+                kinds.add(kind);
+            }
+        }
+        return kinds;
+    }
+}
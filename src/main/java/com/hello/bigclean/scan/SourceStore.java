@@ -0,0 +1,112 @@
+package com.hello.bigclean.scan;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 源码存储：一次扫描内每个文件只读取一次，按路径缓存并用修改时间和大小校验，
+ * 向各分析引擎提供只读的 {@link ByteBuffer} / {@link CharSequence} 视图。
+ * 小文件读入堆内缓冲区，大文件直接内存映射。
+ * 调用方处理完一个文件后用 {@link #release} 释放它，整个项目的内容不会同时驻留内存。
+ */
+public class SourceStore {
+    // 超过该大小的文件使用内存映射
+    private static final long MAP_THRESHOLD = 1024 * 1024;
+
+    private final Map<Path, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 获取文件内容的只读字节视图，文件未变化时直接复用缓存
+     */
+    public ByteBuffer bytes(Path file) throws IOException {
+        return load(file).bytes.asReadOnlyBuffer();
+    }
+
+    /**
+     * 获取文件内容的只读字符视图（UTF-8解码），首次访问时解码并缓存
+     */
+    public CharBuffer chars(Path file) throws IOException {
+        Entry entry = load(file);
+        CharBuffer chars = entry.chars;
+        if (chars == null) {
+            chars = StandardCharsets.UTF_8.decode(entry.bytes.asReadOnlyBuffer());
+            entry.chars = chars;
+        }
+        return chars.asReadOnlyBuffer();
+    }
+
+    /**
+     * 已缓存文件的修改时间，未缓存时返回-1
+     */
+    public long lastModified(Path file) {
+        Entry entry = entries.get(file);
+        return entry != null ? entry.mtime : -1;
+    }
+
+    /**
+     * 释放单个文件缓存的内容，之后再访问时重新读取
+     */
+    public void release(Path file) {
+        entries.remove(file);
+    }
+
+    /**
+     * 释放所有缓存的文件内容
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private Entry load(Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long mtime = attributes.lastModifiedTime().toMillis();
+        long size = attributes.size();
+        Entry entry = entries.get(file);
+        if (entry != null && entry.mtime == mtime && entry.size == size) {
+            return entry;
+        }
+        entry = new Entry(mtime, size, read(file, size));
+        entries.put(file, entry);
+        return entry;
+    }
+
+    private static ByteBuffer read(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (size >= MAP_THRESHOLD) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // 读满为止
+            }
+            buffer.flip();
+            return buffer;
+        }
+    }
+
+    private static class Entry {
+        final long mtime;
+        final long size;
+        final ByteBuffer bytes;
+        volatile CharBuffer chars;
+
+        Entry(long mtime, long size, ByteBuffer bytes) {
+            this.mtime = mtime;
+            this.size = size;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.hello.bigclean.spoon.helper;
+
+import spoon.reflect.declaration.CtType;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 单次分析的上下文：持有一次扫描中建立的全部索引（类型引用图、类层次索引、方法签名索引）。
+ * 每次扫描新建一个会话，扫描结束时 close 释放，索引不会在多次刷新之间累积，也不会把旧的 CtModel 留在堆里；
+ * 不同项目的扫描各自使用自己的会话，可以并行执行。
+ * <pre>
+ * try (AnalysisSession session = new AnalysisSession()) {
+ *     SpoonHelper.loadAllActualCtTypeMapping(session, types, progress);
+ *     ...
+ * }
+ * </pre>
+ */
+public class AnalysisSession implements AutoCloseable {
+    // 类 -> 它引用的类，按对象身份存放
+    Map<CtType<?>, Set<CtType<?>>> actualTypeMapping = Collections.emptyMap();
+    // 被引用的类 -> 引用它的类，按对象身份存放
+    Map<CtType<?>, Set<CtType<?>>> reverseTypeMapping = Collections.emptyMap();
+    // 类层次：子类集合和重写表
+    ClassHierarchyIndex classHierarchy = new ClassHierarchyIndex();
+    // （声明类全限定名，方法名，参数类型） -> 方法
+    MethodSignatureIndex methodSignatureIndex = new MethodSignatureIndex();
+
+    private volatile boolean closed;
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 会话关闭后不能再使用，避免拿到已清空的索引而得出"无引用"的错误结论
+     */
+    void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("分析会话已关闭");
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        actualTypeMapping = Collections.emptyMap();
+        reverseTypeMapping = Collections.emptyMap();
+        classHierarchy = new ClassHierarchyIndex();
+        methodSignatureIndex = new MethodSignatureIndex();
+    }
+}
@@ -0,0 +1,179 @@
+package com.hello.bigclean.spoon.helper;
+
+import spoon.reflect.declaration.CtClass;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.declaration.CtParameter;
+import spoon.reflect.declaration.CtType;
+import spoon.reflect.reference.CtTypeReference;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 类层次索引（CHA）：用于方法分析中的虚调用分派。
+ * 建立时一次算好：每个类型（全限定名ID）的子类集合（包括自身），以及重写表（被重写方法ID -> 重写它的方法ID）。
+ * 重写关系由 Spoon 的 isOverriding 判断，会代入父类型的泛型实参，
+ * 例如 Handler&lt;T&gt;.handle(T) 能匹配到 StringHandler.handle(String)。
+ * 分派时只查两张表：调用的方法的重写者中，所在类属于接收者类型子类集合的即为可能被调用的实现。
+ */
+public class ClassHierarchyIndex {
+    private static final int[] NO_METHODS = new int[0];
+
+    private final SymbolTable types = new SymbolTable();
+    // 类型ID -> 子类下标集合，下标为0的位置不用
+    private final List<BitSet> subtypes = new ArrayList<>();
+    private final List<CtClass<?>> classes = new ArrayList<>();
+
+    private final Map<CtMethod<?>, Integer> methodIds = new IdentityHashMap<>();
+    private final List<CtMethod<?>> methods = new ArrayList<>();
+    // 方法ID -> 所在类下标
+    private int[] methodClasses = new int[256];
+    // 被重写方法ID -> 重写它的方法ID
+    private int[][] overriders = new int[256][];
+
+    public ClassHierarchyIndex() {
+        subtypes.add(null);
+    }
+
+    /**
+     * 登记类：记录它的全部父类和接口（递归），并把它声明的方法挂到被重写方法的重写表上
+     */
+    public void add(CtClass<?> clazz) {
+        int classIndex = classes.size();
+        classes.add(clazz);
+
+        Set<CtTypeReference<?>> supertypes = new LinkedHashSet<>();
+        collectSupertypes(clazz.getReference(), supertypes, new LinkedHashSet<>());
+        List<CtType<?>> superDeclarations = new ArrayList<>();
+        for (CtTypeReference<?> supertype : supertypes) {
+            int typeId = types.intern(supertype.getQualifiedName());
+            while (subtypes.size() <= typeId) {
+                subtypes.add(new BitSet());
+            }
+            subtypes.get(typeId).set(classIndex);
+
+            CtType<?> declaration = supertype.getTypeDeclaration();
+            if (declaration != null && declaration != clazz && !superDeclarations.contains(declaration)) {
+                superDeclarations.add(declaration);
+            }
+        }
+
+        for (CtMethod<?> method : clazz.getMethods()) {
+            for (CtType<?> superDeclaration : superDeclarations) {
+                for (CtMethod<?> superMethod : superDeclaration.getMethods()) {
+                    if (overrides(method, superMethod)) {
+                        addOverrider(methodId(superMethod, -1), methodId(method, classIndex));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 虚调用分派：接收者类型为 receiverType 时，调用 method 可能执行到的重写方法
+     */
+    public List<CtMethod<?>> dispatch(CtMethod<?> method, CtTypeReference<?> receiverType) {
+        Integer methodId = methodIds.get(method);
+        int typeId = types.idOf(receiverType.getQualifiedName());
+        if (methodId == null || typeId == SymbolTable.NOT_FOUND) {
+            return new ArrayList<>();
+        }
+        BitSet receivers = subtypes.get(typeId);
+        List<CtMethod<?>> targets = new ArrayList<>();
+        for (int overrider : overridersOf(methodId)) {
+            if (receivers.get(methodClasses[overrider])) {
+                targets.add(methods.get(overrider));
+            }
+        }
+        return targets;
+    }
+
+    public int classCount() {
+        return classes.size();
+    }
+
+    private int[] overridersOf(int methodId) {
+        int[] ids = overriders[methodId];
+        return ids != null ? ids : NO_METHODS;
+    }
+
+    private int methodId(CtMethod<?> method, int classIndex) {
+        Integer id = methodIds.get(method);
+        if (id == null) {
+            id = methods.size();
+            methods.add(method);
+            methodIds.put(method, id);
+            if (id == methodClasses.length) {
+                methodClasses = Arrays.copyOf(methodClasses, id * 2);
+                overriders = Arrays.copyOf(overriders, id * 2);
+            }
+            methodClasses[id] = -1;
+        }
+        if (classIndex >= 0) {
+            methodClasses[id] = classIndex;
+        }
+        return id;
+    }
+
+    private void addOverrider(int methodId, int overriderId) {
+        int[] ids = overriders[methodId];
+        if (ids == null) {
+            overriders[methodId] = new int[]{overriderId};
+            return;
+        }
+        for (int id : ids) {
+            if (id == overriderId) {
+                return;
+            }
+        }
+        ids = Arrays.copyOf(ids, ids.length + 1);
+        ids[ids.length - 1] = overriderId;
+        overriders[methodId] = ids;
+    }
+
+    /**
+     * 自身、父类和接口的引用，递归到顶；visited 按全限定名去重，避免菱形继承重复展开
+     */
+    private static void collectSupertypes(CtTypeReference<?> type, Set<CtTypeReference<?>> result, Set<String> visited) {
+        if (type == null || !visited.add(type.getQualifiedName())) {
+            return;
+        }
+        result.add(type);
+        collectSupertypes(type.getSuperclass(), result, visited);
+        for (CtTypeReference<?> iface : type.getSuperInterfaces()) {
+            collectSupertypes(iface, result, visited);
+        }
+    }
+
+    /**
+     * 先按方法名和参数个数快速排除，再由 Spoon 结合泛型实参判断；
+     * Spoon 判断不是重写或无法判断时（缺少类路径），仍按参数类型简单名比较，保持原有的匹配范围
+     */
+    private static boolean overrides(CtMethod<?> method, CtMethod<?> superMethod) {
+        if (!method.getSimpleName().equals(superMethod.getSimpleName())
+                || method.getParameters().size() != superMethod.getParameters().size()) {
+            return false;
+        }
+        try {
+            if (method.isOverriding(superMethod)) {
+                return true;
+            }
+        } catch (Exception e) {
+            System.out.println("⚠️ 判断方法重写异常: " + e.getMessage());
+        }
+        List<CtParameter<?>> params1 = method.getParameters();
+        List<CtParameter<?>> params2 = superMethod.getParameters();
+        for (int i = 0; i < params1.size(); i++) {
+            if (!params1.get(i).getType().getSimpleName().equals(params2.get(i).getType().getSimpleName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,16 +1,19 @@
 package com.hello.bigclean.spoon.helper;
 
+import com.hello.bigclean.util.ScanProgress;
+import com.hello.bigclean.util.ScanScheduler;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import spoon.reflect.CtModel;
 import spoon.reflect.code.*;
+import spoon.reflect.cu.SourcePosition;
 import spoon.reflect.declaration.*;
 import spoon.reflect.reference.CtExecutableReference;
 import spoon.reflect.reference.CtTypeReference;
 import spoon.reflect.code.CtTypeAccess;
-import spoon.reflect.visitor.filter.TypeFilter;
+import spoon.reflect.visitor.CtScanner;
 
 import java.util.*;
 
@@ -20,242 +23,143 @@ import java.util.*;
  * @date 2025/7/17-23:54
  */
 public class MethodScanHelper {
-    private static final Map<String, List<CtClass<?>>> interfaceToImplMap = new HashMap<>();
-    private static final Map<String, CtMethod<?>> methodSigToMethodMap = new HashMap<>();
-
     private static final Set<String> CT_EXECUTABLE_REFERENCE_SIMPLE_NAMES = new HashSet<>(Arrays.asList(
             "get", "set", "add", "remove", "contains", "size", "clear", "isEmpty",
             "put", "getOrDefault", "computeIfAbsent", "computeIfPresent",
             "compute", "merge", "replaceAll", "forEach", "entrySet", "values", "keySet", "stream", "parallelStream"
     ));
 
-    public static Set<CtMethod<?>> getUsedMethods(List<CtMethod<?>> allMethods, CtModel ctModel) {
+    /**
+     * 计算被使用的方法，按已处理的编译单元汇报进度，取消时抛出 InterruptedException。
+     * 方法签名索引和类层次索引建立在本次扫描的会话中，扫描结束随会话释放。
+     * 调用解析按编译单元由 ScanScheduler 并行执行：各工作任务只读共享的方法签名映射，
+     * 结果写入各自的 UsageCollector，最后按编译单元顺序单线程合并
+     */
+    public static Set<CtMethod<?>> getUsedMethods(AnalysisSession session, List<CtMethod<?>> allMethods, CtModel ctModel, ScanProgress progress) throws InterruptedException {
+        session.checkOpen();
         for (CtMethod<?> method : allMethods) {
-            String methodSignature = method.getDeclaringType().getSimpleName() + "#" + method.getSimpleName() + "#" + CollectionUtils.size(method.getParameters());
-            methodSigToMethodMap.put(methodSignature, method);
+            session.methodSignatureIndex.add(method);
         }
-        Set<CtMethod<?>> usedMethods = new HashSet<>();
+        Set<CtMethod<?>> usedMethods = Collections.newSetFromMap(new IdentityHashMap<>());
 
-        // 获取所有类
-        List<CtClass<?>> ctClassesList = ctModel.getElements(new TypeFilter<>(CtClass.class));
-        List<CtClass<?>> allClasses = new ArrayList<>();
-        for (CtClass<?> ctClass : ctClassesList) {
-            boolean exclued = "{}".equals(ctClass.toString()) ||
-                    ctClass.hasAnnotation(Configuration.class) ||
-                    ctClass.hasAnnotation(ConfigurationProperties.class);
-            if (!exclued) {
-                allClasses.add(ctClass);
+        // 每个编译单元一遍遍历：记录类、解析方法调用和方法引用，不再先把所有节点收集成列表
+        List<UsageCollector> collectors = ScanScheduler.map(groupByCompilationUnit(ctModel), types -> {
+            UsageCollector collector = new UsageCollector(session, progress);
+            for (CtType<?> type : types) {
+                type.accept(collector);
             }
-        }
-        //预先构建接口到实现类的映射
-        for (CtClass<?> clazz : allClasses) {
-            populateInterfaceToImplMap(clazz.getReference(), clazz);
-        }
+            return collector;
+        }, progress);
 
-        List<CtInvocation<?>> ctInvocations = new ArrayList<>();
-        List<CtExecutableReferenceExpression> ctExecutableReferenceExpressions = new ArrayList<>();
-        List<CtElement> ctElements = ctModel.getElements(new TypeFilter<>(CtElement.class));
-        for (CtElement ctElement : ctElements) {
-            if (ctElement instanceof CtInvocation) {
-                ctInvocations.add((CtInvocation<?>) ctElement);
-            } else if (ctElement instanceof CtExecutableReferenceExpression) {
-                ctExecutableReferenceExpressions.add((CtExecutableReferenceExpression) ctElement);
+        // 类层次索引要等所有类都登记后才完整，实现方法的查找放在合并之后
+        for (UsageCollector collector : collectors) {
+            for (CtClass<?> clazz : collector.classes) {
+                session.classHierarchy.add(clazz);
             }
+            usedMethods.addAll(collector.usedMethods);
         }
-        
-        // 处理可执行引用表达式（方法引用）
-        for (CtExecutableReferenceExpression expression : ctExecutableReferenceExpressions) {
-            CtExecutableReference executable = expression.getExecutable();
-            
-            // 使用增强的方法获取逻辑
-            CtMethod<?> method = getMethodFromExecutableReference(executable);
-            if (method == null) {
-                // 如果获取失败，尝试备用方法
-                method = findMethodFromExecutableReference(executable, expression);
-            }
-            if (method != null) {
-                usedMethods.add(method);
-                // 如果是接口方法，查找实现类
-                setImplMethodForCurrentInterface(usedMethods, method, expression.getType());
-            } else {
-                // 调试信息
-                if (executable.getDeclaringType() != null && !nonBizCLass(executable.getDeclaringType())) {
-                    System.out.println("⚠️ 未找到方法引用: " + executable.getSimpleName() + " (声明类型: " + executable.getDeclaringType().getQualifiedName() + ")");
-                }
-            }
-        }
-
-        // 处理方法调用
-        for (CtInvocation<?> invocation : ctInvocations) {
-            try {
-                if (Objects.equals(invocation.toString(), "super()")) {
-                    continue;
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-            
-            CtExecutableReference<?> execRef = invocation.getExecutable();
-            CtMethod<?> method = null;
-            
-            if (execRef != null) {
-                if (CT_EXECUTABLE_REFERENCE_SIMPLE_NAMES.contains(execRef.getSimpleName()) && filterMiddleWare(execRef)) {
-                    continue;
-                }
-                
-                // 使用增强的方法获取逻辑
-                method = getMethodFromExecutableReference(execRef);
-                if (method == null) {
-                    // 如果获取失败，尝试备用方法
-                    method = findMethodBySignature(execRef, invocation);
-                }
-                
-                if (method != null) {
-                    usedMethods.add(method);
-                    CtExpression<?> target = invocation.getTarget();
-                    if (target instanceof CtVariableRead) {
-                        CtTypeReference<?> declaringType = invocation.getExecutable().getDeclaringType();
-                        if (Objects.isNull(declaringType)) {
-                            declaringType = invocation.getTarget().getType();
-                        }
-                        setImplMethodForCurrentInterface(usedMethods, method, declaringType);
-                    } else if (target instanceof CtArrayRead) {
-                        //TODO
-                    } else if(target instanceof CtInvocation) {
-                        setImplMethodForCurrentInterface(usedMethods, method, target.getType());
-                    } else {
-                        setImplMethodForCurrentInterface(usedMethods, method, invocation.getTarget().getType());
-                    }
-                } else {
-                    // 增强的调试信息
-                    CtTypeReference ctTypeReference = invocation.getExecutable().getDeclaringType();
-                    if(Objects.nonNull(ctTypeReference) && !nonBizCLass(ctTypeReference)){
-                        System.out.println("⚠️ 未找到方法: " + invocation + " (声明类型: " + ctTypeReference.getQualifiedName() + ")");
-                    }
-                }
+        for (UsageCollector collector : collectors) {
+            for (PendingDispatch dispatch : collector.pendingDispatches) {
+                setImplMethodForCurrentInterface(session, usedMethods, dispatch.method, dispatch.type);
             }
         }
 
         return usedMethods;
     }
 
-    public static boolean nonBizCLass(CtTypeReference<?> ctTypeReference) {
-        String qualifiedName = ctTypeReference.getQualifiedName();
-        return StringUtils.isNotEmpty(qualifiedName)
-                && !qualifiedName.startsWith("cn.") && !qualifiedName.startsWith("com.");
-
-    }
-
-    public static void setImplMethodForCurrentInterface(Set<CtMethod<?>> usedMethods, CtMethod<?> ctMethod, CtTypeReference<?> ctTypeReference) {
-        try {
-            if (ctTypeReference == null || nonBizCLass(ctTypeReference)) return;
-            List<CtClass<?>> implClasses = interfaceToImplMap.getOrDefault(ctTypeReference.getSimpleName(), Collections.emptyList());
-            if (implClasses.isEmpty()) {
-                // 如果没有找到实现类，可能是因为接口没有被实现
-                return;
-            }
-            for (CtClass<?> clazz : implClasses) {
-                addImplMethodForSameSignature(usedMethods, clazz.getMethods(), ctMethod);
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-
-    }
-
     /**
-     * @param usedMethods
-     * @param methods     实现类的方法集合
-     * @param ctMethod    接口方法
+     * 把顶层类型按所在编译单元分组，作为并行解析的任务单位；没有源码位置的类型单独成组
      */
-    static void addImplMethodForSameSignature(Set<CtMethod<?>> usedMethods, Set<CtMethod<?>> methods, CtMethod<?> ctMethod) {
-        for (CtMethod<?> method : methods) {
-            if (isSameSignature(method, ctMethod)) {
-                usedMethods.add(method);
-                break;
-            }
+    private static List<List<CtType<?>>> groupByCompilationUnit(CtModel ctModel) {
+        Map<Object, List<CtType<?>>> units = new LinkedHashMap<>();
+        for (CtType<?> type : ctModel.getAllTypes()) {
+            CtCompilationUnit unit = type.getPosition().getCompilationUnit();
+            units.computeIfAbsent(unit != null ? unit : type, k -> new ArrayList<>()).add(type);
         }
+        return new ArrayList<>(units.values());
     }
 
-    static boolean isSameSignature(CtMethod<?> m1, CtMethod<?> m2) {
-        if (!m1.getSimpleName().equals(m2.getSimpleName())) {
-            return false;
-        }
-        List<CtParameter<?>> params1 = m1.getParameters();
-        List<CtParameter<?>> params2 = m2.getParameters();
-        if (params1.size() != params2.size()) {
+    /**
+     * 空的匿名类（如 new Object() {}），只含编译器生成的隐式成员。
+     * 与 "{}".equals(ctClass.toString()) 等价，但不调用打印器
+     */
+    static boolean isEmptyAnonymousClass(CtClass<?> ctClass) {
+        if (!ctClass.isAnonymous()) {
             return false;
         }
-        for (int i = 0; i < params1.size(); i++) {
-            if (!params1.get(i).getType().getSimpleName().equals(params2.get(i).getType().getSimpleName())) {
+        for (CtTypeMember member : ctClass.getTypeMembers()) {
+            if (!member.isImplicit()) {
                 return false;
             }
         }
         return true;
     }
 
-    private static void populateInterfaceToImplMap(CtTypeReference<?> type, CtClass<?> clazz) {
-        if (type == null) {
-            return;
+    /**
+     * 无参的 super() 构造器调用（包括编译器补上的隐式调用），this() 不算。
+     * 与 "super()".equals(invocation.toString()) 等价，但不调用打印器：
+     * 构造器调用、没有参数、声明类型不是当前类
+     */
+    static boolean isNoArgSuperCall(CtInvocation<?> invocation) {
+        CtExecutableReference<?> executable = invocation.getExecutable();
+        if (executable == null || !executable.isConstructor() || !invocation.getArguments().isEmpty()) {
+            return false;
         }
-        interfaceToImplMap.computeIfAbsent(type.getSimpleName(), k -> new ArrayList<>()).add(clazz);
+        CtTypeReference<?> declaringType = executable.getDeclaringType();
+        CtType<?> currentType = invocation.getParent(CtType.class);
+        return declaringType == null || currentType == null
+                || !declaringType.getQualifiedName().equals(currentType.getQualifiedName());
+    }
 
-        // 递归处理父类和接口
-        CtTypeReference<?> superclass = type.getSuperclass();
-        if (superclass != null) {
-            populateInterfaceToImplMap(superclass, clazz);
+    /**
+     * 日志中的源码位置（文件名:行号），不调用打印器
+     */
+    private static String positionOf(CtElement element) {
+        SourcePosition position = element.getPosition();
+        if (!position.isValidPosition() || position.getFile() == null) {
+            return "未知";
         }
-        Set<CtTypeReference<?>> superInterfaces = type.getSuperInterfaces();
-        for (CtTypeReference<?> iface : superInterfaces) {
-            populateInterfaceToImplMap(iface, clazz);
+        return position.getFile().getName() + ":" + position.getLine();
+    }
+
+    public static boolean nonBizCLass(CtTypeReference<?> ctTypeReference) {
+        String qualifiedName = ctTypeReference.getQualifiedName();
+        return StringUtils.isNotEmpty(qualifiedName)
+                && !qualifiedName.startsWith("cn.") && !qualifiedName.startsWith("com.");
+
+    }
+
+    /**
+     * 接收者类型为 ctTypeReference 时调用 ctMethod，把类层次索引中可能被分派到的重写方法都计为已使用
+     */
+    public static void setImplMethodForCurrentInterface(AnalysisSession session, Set<CtMethod<?>> usedMethods, CtMethod<?> ctMethod, CtTypeReference<?> ctTypeReference) {
+        try {
+            if (ctTypeReference == null || nonBizCLass(ctTypeReference)) return;
+            usedMethods.addAll(session.classHierarchy.dispatch(ctMethod, ctTypeReference));
+        } catch (Exception e) {
+            e.printStackTrace();
         }
+
     }
 
     /**
      * 从 CtExecutableReference 获取对应的 CtMethod
      * 支持多种获取策略
      */
-    public static CtMethod<?> getMethodFromExecutableReference(CtExecutableReference<?> execRef) {
+    public static CtMethod<?> getMethodFromExecutableReference(AnalysisSession session, CtExecutableReference<?> execRef) {
         try {
             // 1. 直接获取方法声明（最可靠）
             if (execRef.getDeclaration() instanceof CtMethod) {
                 return (CtMethod<?>) execRef.getDeclaration();
             }
             
-            // 2. 通过方法签名匹配
+            // 2. 通过方法签名索引匹配：先按实际参数个数和参数类型，再尝试0个和1个参数
             if (execRef.getDeclaringType() != null) {
-                String className = execRef.getDeclaringType().getSimpleName();
-                String methodName = execRef.getSimpleName();
-                int paramCount = CollectionUtils.size(execRef.getParameters());
-                
-                // 尝试不同的签名格式
-                String[] signatures = {
-                    className + "#" + methodName + "#" + paramCount,
-                    className + "#" + methodName + "#0",
-                    className + "#" + methodName + "#1"
-                };
-                
-                for (String sig : signatures) {
-                    if (methodSigToMethodMap.containsKey(sig)) {
-                        return methodSigToMethodMap.get(sig);
-                    }
-                }
-                
-                // 尝试全限定名匹配
-                String fullClassName = execRef.getDeclaringType().getQualifiedName();
-                if (fullClassName != null) {
-                    String fullClassNameSimple = fullClassName.substring(fullClassName.lastIndexOf('.') + 1);
-                    String[] fullSignatures = {
-                        fullClassNameSimple + "#" + methodName + "#" + paramCount,
-                        fullClassNameSimple + "#" + methodName + "#0",
-                        fullClassNameSimple + "#" + methodName + "#1"
-                    };
-                    
-                    for (String sig : fullSignatures) {
-                        if (methodSigToMethodMap.containsKey(sig)) {
-                            return methodSigToMethodMap.get(sig);
-                        }
-                    }
+                List<CtTypeReference<?>> parameters = execRef.getParameters();
+                CtMethod<?> method = findMethod(session, execRef.getDeclaringType().getQualifiedName(), execRef.getSimpleName(),
+                        CollectionUtils.size(parameters), parameters);
+                if (method != null) {
+                    return method;
                 }
             }
             
@@ -274,7 +178,7 @@ public class MethodScanHelper {
     /**
      * 从可执行引用中查找方法（用于方法引用）
      */
-    private static CtMethod<?> findMethodFromExecutableReference(CtExecutableReference<?> executable, CtExecutableReferenceExpression expression) {
+    private static CtMethod<?> findMethodFromExecutableReference(AnalysisSession session, CtExecutableReference<?> executable, CtExecutableReferenceExpression expression) {
         try {
             // 1. 尝试直接获取方法声明
             if (executable.getDeclaration() instanceof CtMethod) {
@@ -282,60 +186,23 @@ public class MethodScanHelper {
             }
             
             // 2. 通过方法签名匹配
-            String className = null;
+            CtTypeReference<?> declaringType = null;
             if (executable.getDeclaringType() != null) {
-                className = executable.getDeclaringType().getSimpleName();
+                declaringType = executable.getDeclaringType();
             } else if (expression.getTarget() instanceof CtTypeAccess) {
                 // 处理静态方法引用，如 RouterHelper::random
                 CtTypeAccess<?> typeAccess = (CtTypeAccess<?>) expression.getTarget();
-                className = typeAccess.getAccessedType().getSimpleName();
-            } else {
-                // 尝试从target获取类名
-                className = expression.getTarget().toString();
+                declaringType = typeAccess.getAccessedType();
+            } else if (expression.getTarget() != null) {
+                // 尝试从target的类型获取类名
+                declaringType = expression.getTarget().getType();
             }
             
-            if (className != null) {
-                // 尝试不同的参数数量匹配
-                String methodName = executable.getSimpleName();
-                
-                // 对于方法引用，参数数量可能为0（如 RouterHelper::random）
-                String sig = className + "#" + methodName + "#0";
-                if (methodSigToMethodMap.containsKey(sig)) {
-                    return methodSigToMethodMap.get(sig);
-                }
-                
-                // 尝试参数数量为1（如 Function<T,R> 的情况）
-                sig = className + "#" + methodName + "#1";
-                if (methodSigToMethodMap.containsKey(sig)) {
-                    return methodSigToMethodMap.get(sig);
-                }
-                
-                // 尝试实际参数数量
-                int paramCount = CollectionUtils.size(executable.getParameters());
-                sig = className + "#" + methodName + "#" + paramCount;
-                if (methodSigToMethodMap.containsKey(sig)) {
-                    return methodSigToMethodMap.get(sig);
-                }
-                
-                // 尝试全限定名匹配
-                if (executable.getDeclaringType() != null) {
-                    String fullClassName = executable.getDeclaringType().getQualifiedName();
-                    if (fullClassName != null) {
-                        String fullClassNameSimple = fullClassName.substring(fullClassName.lastIndexOf('.') + 1);
-                        sig = fullClassNameSimple + "#" + methodName + "#0";
-                        if (methodSigToMethodMap.containsKey(sig)) {
-                            return methodSigToMethodMap.get(sig);
-                        }
-                        sig = fullClassNameSimple + "#" + methodName + "#1";
-                        if (methodSigToMethodMap.containsKey(sig)) {
-                            return methodSigToMethodMap.get(sig);
-                        }
-                        sig = fullClassNameSimple + "#" + methodName + "#" + paramCount;
-                        if (methodSigToMethodMap.containsKey(sig)) {
-                            return methodSigToMethodMap.get(sig);
-                        }
-                    }
-                }
+            if (declaringType != null) {
+                // 对于方法引用，实际参数数量找不到时再尝试0（如 RouterHelper::random）和1（如 Function<T,R> 的情况）
+                List<CtTypeReference<?>> parameters = executable.getParameters();
+                return findMethod(session, declaringType.getQualifiedName(), executable.getSimpleName(),
+                        CollectionUtils.size(parameters), parameters);
             }
             
         } catch (Exception e) {
@@ -348,55 +215,205 @@ public class MethodScanHelper {
     /**
      * 增强的方法签名匹配逻辑
      */
-    private static CtMethod<?> findMethodBySignature(CtExecutableReference<?> execRef, CtInvocation<?> invocation) {
-        String sig = null;
+    private static CtMethod<?> findMethodBySignature(AnalysisSession session, CtExecutableReference<?> execRef, CtInvocation<?> invocation) {
         try {
+            List<CtTypeReference<?>> parameters = execRef.getParameters();
             if (execRef.getDeclaringType() != null) {
                 // 标准方法调用
-                sig = execRef.getDeclaringType().getSimpleName() + "#" + execRef.getSimpleName() + "#" + CollectionUtils.size(execRef.getParameters());
-                if (methodSigToMethodMap.containsKey(sig)) {
-                    return methodSigToMethodMap.get(sig);
-                }
-                
-                // 尝试使用全限定名
-                String fullClassName = execRef.getDeclaringType().getQualifiedName();
-                if (fullClassName != null) {
-                    String className = fullClassName.substring(fullClassName.lastIndexOf('.') + 1);
-                    sig = className + "#" + execRef.getSimpleName() + "#" + CollectionUtils.size(execRef.getParameters());
-                    if (methodSigToMethodMap.containsKey(sig)) {
-                        return methodSigToMethodMap.get(sig);
-                    }
-                }
-            } else {
-                // 处理this访问
-                if (invocation.getTarget() instanceof CtThisAccess) {
-                    String fileName = invocation.getPosition().getCompilationUnit().toString();
-                    String clsName = fileName.substring(0, fileName.lastIndexOf(".java"));
-                    sig = clsName + "#" + execRef.getSimpleName() + "#" + CollectionUtils.size(((CtInvocation)execRef.getParent()).getArguments());
-                    if (methodSigToMethodMap.containsKey(sig)) {
-                        return methodSigToMethodMap.get(sig);
-                    }
-                }
-                
-                // 处理静态方法调用
-                CtExpression<?> target = invocation.getTarget();
-                if (target instanceof CtTypeAccess) {
-                    CtTypeAccess<?> typeAccess = (CtTypeAccess<?>) target;
-                    String className = typeAccess.getAccessedType().getSimpleName();
-                    sig = className + "#" + execRef.getSimpleName() + "#" + CollectionUtils.size(execRef.getParameters());
-                    if (methodSigToMethodMap.containsKey(sig)) {
-                        return methodSigToMethodMap.get(sig);
+                return session.methodSignatureIndex.find(execRef.getDeclaringType().getQualifiedName(), execRef.getSimpleName(),
+                        CollectionUtils.size(parameters), parameters);
+            }
+
+            // 处理this访问：由内向外依次在外围类中查找
+            if (invocation.getTarget() instanceof CtThisAccess) {
+                int arity = invocation.getArguments().size();
+                for (CtType<?> type = invocation.getParent(CtType.class); type != null; type = type.getDeclaringType()) {
+                    CtMethod<?> method = session.methodSignatureIndex.find(type.getQualifiedName(), execRef.getSimpleName(), arity, parameters);
+                    if (method != null) {
+                        return method;
                     }
                 }
             }
+
+            // 处理静态方法调用
+            CtExpression<?> target = invocation.getTarget();
+            if (target instanceof CtTypeAccess) {
+                CtTypeAccess<?> typeAccess = (CtTypeAccess<?>) target;
+                return session.methodSignatureIndex.find(typeAccess.getAccessedType().getQualifiedName(), execRef.getSimpleName(),
+                        CollectionUtils.size(parameters), parameters);
+            }
         } catch (Exception e) {
             System.out.println("⚠️ 方法签名匹配异常: " + e.getMessage());
         }
         return null;
     }
 
+    /**
+     * 在方法签名索引中查找：先按给定参数个数和参数类型，找不到再尝试0个和1个参数
+     */
+    private static CtMethod<?> findMethod(AnalysisSession session, String declaringType, String name, int arity, List<CtTypeReference<?>> parameters) {
+        MethodSignatureIndex index = session.methodSignatureIndex;
+        CtMethod<?> method = index.find(declaringType, name, arity, parameters);
+        if (method == null && arity != 0) {
+            method = index.find(declaringType, name, 0, null);
+        }
+        if (method == null && arity != 1) {
+            method = index.find(declaringType, name, 1, null);
+        }
+        return method;
+    }
     private static boolean filterMiddleWare(CtExecutableReference<?> execRef) {
         return  Objects.nonNull(execRef.getDeclaringType()) && !execRef.getDeclaringType().getSimpleName().contains("redis") && !execRef.getDeclaringType().getSimpleName().contains("Redis");
     }
 
+    /**
+     * 方法使用情况收集器：一次 CtScanner 遍历中
+     * 记录类，解析方法调用和方法引用对应的方法，并记录待做的接口分派。
+     * 每个并行任务使用自己的收集器，遍历时只读会话中的方法签名映射，不写共享状态。
+     * 每遍历一定数量的节点检查一次取消，取消后不再深入子节点
+     */
+    private static class UsageCollector extends CtScanner {
+        private static final int CANCEL_CHECK_INTERVAL = 4096;
+
+        private final AnalysisSession session;
+        private final ScanProgress progress;
+        private final Set<CtMethod<?>> usedMethods = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final List<CtClass<?>> classes = new ArrayList<>();
+        private final List<PendingDispatch> pendingDispatches = new ArrayList<>();
+        private int visitedNodes;
+        private boolean canceled;
+
+        UsageCollector(AnalysisSession session, ScanProgress progress) {
+            this.session = session;
+            this.progress = progress;
+        }
+
+        @Override
+        public void scan(CtElement element) {
+            if (canceled) {
+                return;
+            }
+            if (++visitedNodes % CANCEL_CHECK_INTERVAL == 0) {
+                canceled = progress.isCanceled();
+            }
+            super.scan(element);
+        }
+
+        @Override
+        public <T> void visitCtClass(CtClass<T> ctClass) {
+            boolean exclued = isEmptyAnonymousClass(ctClass) ||
+                    ctClass.hasAnnotation(Configuration.class) ||
+                    ctClass.hasAnnotation(ConfigurationProperties.class);
+            if (!exclued) {
+                classes.add(ctClass);
+            }
+            super.visitCtClass(ctClass);
+        }
+
+        @Override
+        public <T, E extends CtExpression<?>> void visitCtExecutableReferenceExpression(CtExecutableReferenceExpression<T, E> expression) {
+            collectExecutableReferenceExpression(expression);
+            super.visitCtExecutableReferenceExpression(expression);
+        }
+
+        @Override
+        public <T> void visitCtInvocation(CtInvocation<T> invocation) {
+            collectInvocation(invocation);
+            super.visitCtInvocation(invocation);
+        }
+
+        /**
+         * 处理可执行引用表达式（方法引用）
+         */
+        private void collectExecutableReferenceExpression(CtExecutableReferenceExpression<?, ?> expression) {
+            CtExecutableReference executable = expression.getExecutable();
+            
+            // 使用增强的方法获取逻辑
+            CtMethod<?> method = getMethodFromExecutableReference(session, executable);
+            if (method == null) {
+                // 如果获取失败，尝试备用方法
+                method = findMethodFromExecutableReference(session, executable, expression);
+            }
+            if (method != null) {
+                usedMethods.add(method);
+                // 如果是接口方法，查找实现类
+                pendingDispatches.add(new PendingDispatch(method, expression.getType()));
+            } else {
+                // 调试信息
+                if (executable.getDeclaringType() != null && !nonBizCLass(executable.getDeclaringType())) {
+                    System.out.println("⚠️ 未找到方法引用: " + executable.getSimpleName() + " (声明类型: " + executable.getDeclaringType().getQualifiedName()
+                            + ", 位置: " + positionOf(expression) + ")");
+                }
+            }
+        }
+
+        /**
+         * 处理方法调用
+         */
+        private void collectInvocation(CtInvocation<?> invocation) {
+            try {
+                if (isNoArgSuperCall(invocation)) {
+                    return;
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            
+            CtExecutableReference<?> execRef = invocation.getExecutable();
+            CtMethod<?> method = null;
+            
+            if (execRef != null) {
+                if (CT_EXECUTABLE_REFERENCE_SIMPLE_NAMES.contains(execRef.getSimpleName()) && filterMiddleWare(execRef)) {
+                    return;
+                }
+                
+                // 使用增强的方法获取逻辑
+                method = getMethodFromExecutableReference(session, execRef);
+                if (method == null) {
+                    // 如果获取失败，尝试备用方法
+                    method = findMethodBySignature(session, execRef, invocation);
+                }
+                
+                if (method != null) {
+                    usedMethods.add(method);
+                    CtExpression<?> target = invocation.getTarget();
+                    if (target instanceof CtVariableRead) {
+                        CtTypeReference<?> declaringType = invocation.getExecutable().getDeclaringType();
+                        if (Objects.isNull(declaringType)) {
+                            declaringType = invocation.getTarget().getType();
+                        }
+                        pendingDispatches.add(new PendingDispatch(method, declaringType));
+                    } else if (target instanceof CtArrayRead) {
+                        // 数组元素作接收者（如 handlers[i].handle()）：数组读取表达式的类型即元素类型，多维数组逐层读取后同样如此
+                        CtTypeReference<?> elementType = target.getType();
+                        pendingDispatches.add(new PendingDispatch(method, elementType != null ? elementType : execRef.getDeclaringType()));
+                    } else if(target instanceof CtInvocation) {
+                        pendingDispatches.add(new PendingDispatch(method, target.getType()));
+                    } else {
+                        pendingDispatches.add(new PendingDispatch(method, invocation.getTarget().getType()));
+                    }
+                } else {
+                    // 增强的调试信息
+                    CtTypeReference ctTypeReference = invocation.getExecutable().getDeclaringType();
+                    if(Objects.nonNull(ctTypeReference) && !nonBizCLass(ctTypeReference)){
+                        System.out.println("⚠️ 未找到方法: " + execRef.getSimpleName() + " (声明类型: " + ctTypeReference.getQualifiedName()
+                                + ", 位置: " + positionOf(invocation) + ")");
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 待查找实现类的调用：被调用的方法及调用处的接收者类型
+     */
+    private static class PendingDispatch {
+        final CtMethod<?> method;
+        final CtTypeReference<?> type;
+
+        PendingDispatch(CtMethod<?> method, CtTypeReference<?> type) {
+            this.method = method;
+            this.type = type;
+        }
+    }
 }
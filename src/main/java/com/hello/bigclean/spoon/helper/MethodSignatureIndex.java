@@ -0,0 +1,163 @@
+package com.hello.bigclean.spoon.helper;
+
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.declaration.CtParameter;
+import spoon.reflect.reference.CtTypeReference;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 方法签名索引：按（声明类全限定名ID，方法名ID，参数个数）查找方法，同名同参数个数的重载再按擦除后的参数类型ID区分。
+ * 键打包为一个 long 存放在开放寻址的哈希表中，值为方法下标，同一个键的重载用 next 数组串成链表。
+ * 查找时不拼接字符串、不创建键对象；建立后只读，可以在多个线程中并发查找。
+ */
+public class MethodSignatureIndex {
+    private static final int NONE = -1;
+    private static final int MAX_ARITY = 0xFF;
+
+    private final SymbolTable symbols = new SymbolTable();
+
+    // 开放寻址哈希表：键为0表示空槽，值为该键第一个方法的下标
+    private long[] keys = new long[1024];
+    private int[] heads = new int[1024];
+    private int keyCount;
+
+    // 方法及其擦除后的参数类型ID，next 指向同一个键的下一个重载
+    private CtMethod<?>[] methods = new CtMethod<?>[1024];
+    private int[][] parameterTypeIds = new int[1024][];
+    private int[] next = new int[1024];
+    private int methodCount;
+
+    public void add(CtMethod<?> method) {
+        if (method.getDeclaringType() == null) {
+            return;
+        }
+        List<CtParameter<?>> parameters = method.getParameters();
+        int typeId = symbols.intern(method.getDeclaringType().getQualifiedName());
+        int nameId = symbols.intern(method.getSimpleName());
+        int[] typeIds = new int[parameters.size()];
+        for (int i = 0; i < typeIds.length; i++) {
+            typeIds[i] = symbols.intern(erasedName(parameters.get(i).getType()));
+        }
+
+        if (methodCount == methods.length) {
+            int capacity = methodCount * 2;
+            methods = Arrays.copyOf(methods, capacity);
+            parameterTypeIds = Arrays.copyOf(parameterTypeIds, capacity);
+            next = Arrays.copyOf(next, capacity);
+        }
+        int index = methodCount++;
+        methods[index] = method;
+        parameterTypeIds[index] = typeIds;
+        next[index] = NONE;
+
+        long key = key(typeId, nameId, typeIds.length);
+        int slot = slot(key);
+        if (keys[slot] == key) {
+            // 追加到重载链表末尾，保持登记顺序
+            int last = heads[slot];
+            while (next[last] != NONE) {
+                last = next[last];
+            }
+            next[last] = index;
+            return;
+        }
+        keys[slot] = key;
+        heads[slot] = index;
+        if (++keyCount * 2 > keys.length) {
+            rehash();
+        }
+    }
+
+    /**
+     * 按声明类、方法名和参数个数查找方法。有多个重载时按擦除后的参数类型匹配，
+     * parameterTypes 为空或没有完全匹配的重载时返回第一个登记的重载；找不到返回null
+     */
+    public CtMethod<?> find(String declaringType, String name, int arity, List<CtTypeReference<?>> parameterTypes) {
+        int typeId = symbols.idOf(declaringType);
+        int nameId = symbols.idOf(name);
+        if (typeId == SymbolTable.NOT_FOUND || nameId == SymbolTable.NOT_FOUND || arity > MAX_ARITY) {
+            return null;
+        }
+        long key = key(typeId, nameId, arity);
+        int slot = slot(key);
+        if (keys[slot] != key) {
+            return null;
+        }
+        int head = heads[slot];
+        if (next[head] == NONE || parameterTypes == null || parameterTypes.size() != arity) {
+            return methods[head];
+        }
+        for (int index = head; index != NONE; index = next[index]) {
+            if (matches(parameterTypeIds[index], parameterTypes)) {
+                return methods[index];
+            }
+        }
+        return methods[head];
+    }
+
+    public int size() {
+        return methodCount;
+    }
+
+    private boolean matches(int[] typeIds, List<CtTypeReference<?>> parameterTypes) {
+        for (int i = 0; i < typeIds.length; i++) {
+            if (typeIds[i] != symbols.idOf(erasedName(parameterTypes.get(i)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String erasedName(CtTypeReference<?> type) {
+        if (type == null) {
+            return null;
+        }
+        try {
+            return type.getTypeErasure().getQualifiedName();
+        } catch (Exception e) {
+            return type.getQualifiedName();
+        }
+    }
+
+    /**
+     * 类型ID占高28位，方法名ID占中间28位，参数个数占低8位；类型ID从1开始，打包后的键不会为0
+     */
+    private static long key(int typeId, int nameId, int arity) {
+        return ((long) typeId << 36) | ((long) nameId << 8) | Math.min(arity, MAX_ARITY);
+    }
+
+    /**
+     * 线性探测：返回键所在的槽，键不存在时返回应插入的空槽
+     */
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int slot = (int) mix(key) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldHeads = heads;
+        keys = new long[oldKeys.length * 2];
+        heads = new int[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                heads[slot] = oldHeads[i];
+            }
+        }
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
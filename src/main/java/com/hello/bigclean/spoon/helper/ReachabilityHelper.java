@@ -0,0 +1,131 @@
+package com.hello.bigclean.spoon.helper;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 引用图上的可达性分析工具：从入口出发的工作表遍历，以及迭代版 Tarjan 强连通分量。
+ * 节点按对象身份比较，适用于 Spoon 元素这类 equals 开销很大的节点。
+ */
+public class ReachabilityHelper {
+
+    /**
+     * 从入口节点出发做一遍工作表遍历，返回所有可达节点
+     */
+    public static <T> Set<T> reachable(Collection<? extends T> roots, Function<T, ? extends Collection<? extends T>> successors) {
+        return reachable(roots, successors, (node, worklist) -> {
+        });
+    }
+
+    /**
+     * 同 {@link #reachable(Collection, Function)}，每个节点展开时先调用 onExpand，它可以查询已到达的节点并追加新节点，
+     * 用于只有多个前提都可达时才成立的边（如动态分派）；整个遍历只进行一遍，每个节点只展开一次
+     */
+    public static <T> Set<T> reachable(Collection<? extends T> roots, Function<T, ? extends Collection<? extends T>> successors,
+                                       BiConsumer<T, Worklist<T>> onExpand) {
+        Set<T> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<T> pending = new ArrayDeque<>();
+        Worklist<T> worklist = new Worklist<T>() {
+            @Override
+            public boolean isReached(T node) {
+                return visited.contains(node);
+            }
+
+            @Override
+            public void add(T node) {
+                if (visited.add(node)) {
+                    pending.push(node);
+                }
+            }
+        };
+        roots.forEach(worklist::add);
+        while (!pending.isEmpty()) {
+            T node = pending.pop();
+            onExpand.accept(node, worklist);
+            successors.apply(node).forEach(worklist::add);
+        }
+        return visited;
+    }
+
+    /**
+     * 在给定节点集合内求强连通分量（只沿集合内部的边），结果按逆拓扑序排列。
+     * 用显式栈代替递归，长引用链不会栈溢出
+     */
+    public static <T> List<List<T>> stronglyConnectedComponents(Collection<? extends T> nodes,
+                                                               Function<T, ? extends Collection<? extends T>> successors) {
+        Set<T> members = Collections.newSetFromMap(new IdentityHashMap<>());
+        members.addAll(nodes);
+        Map<T, int[]> state = new IdentityHashMap<>(); // [index, lowLink, onStack]
+        Deque<T> stack = new ArrayDeque<>();
+        Deque<Frame<T>> callStack = new ArrayDeque<>();
+        List<List<T>> components = new ArrayList<>();
+        int counter = 0;
+
+        for (T start : nodes) {
+            if (state.containsKey(start)) {
+                continue;
+            }
+            state.put(start, new int[]{counter, counter, 1});
+            counter++;
+            stack.push(start);
+            callStack.push(new Frame<>(start, successors.apply(start).iterator()));
+
+            while (!callStack.isEmpty()) {
+                Frame<T> frame = callStack.peek();
+                int[] current = state.get(frame.node);
+                if (frame.successors.hasNext()) {
+                    T next = frame.successors.next();
+                    if (!members.contains(next)) {
+                        continue;
+                    }
+                    int[] nextState = state.get(next);
+                    if (nextState == null) {
+                        state.put(next, new int[]{counter, counter, 1});
+                        counter++;
+                        stack.push(next);
+                        callStack.push(new Frame<>(next, successors.apply(next).iterator()));
+                    } else if (nextState[2] == 1) {
+                        current[1] = Math.min(current[1], nextState[0]);
+                    }
+                    continue;
+                }
+                callStack.pop();
+                if (!callStack.isEmpty()) {
+                    int[] parent = state.get(callStack.peek().node);
+                    parent[1] = Math.min(parent[1], current[1]);
+                }
+                if (current[1] == current[0]) {
+                    List<T> component = new ArrayList<>();
+                    T member;
+                    do {
+                        member = stack.pop();
+                        state.get(member)[2] = 0;
+                        component.add(member);
+                    } while (member != frame.node);
+                    components.add(component);
+                }
+            }
+        }
+        return components;
+    }
+
+    /**
+     * 遍历中的工作表：已到达的节点和待展开的节点
+     */
+    public interface Worklist<T> {
+        boolean isReached(T node);
+
+        void add(T node);
+    }
+
+    private static class Frame<T> {
+        final T node;
+        final Iterator<? extends T> successors;
+
+        Frame(T node, Iterator<? extends T> successors) {
+            this.node = node;
+            this.successors = successors;
+        }
+    }
+}
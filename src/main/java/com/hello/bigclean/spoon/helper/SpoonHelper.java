@@ -1,11 +1,12 @@
 package com.hello.bigclean.spoon.helper;
 
+import com.hello.bigclean.util.ScanProgress;
+import com.hello.bigclean.util.ScanScheduler;
 import spoon.reflect.declaration.CtType;
 import spoon.reflect.reference.CtTypeReference;
 import spoon.reflect.visitor.filter.TypeFilter;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author hello.sheng
@@ -14,37 +15,98 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class SpoonHelper {
 
-    private static Map<CtType<?>, Set<CtType<?>>> ACTUAL_CTTYPE_MAPPING = new ConcurrentHashMap<>();
-
-    public static boolean isClassUsedBy(CtType<?> classA, CtType<?> classB) {
-        if (Objects.equals(classA.getSimpleName(), classB.getSimpleName()) && Objects.equals(classA.getPackage().getSimpleName(), classB.getPackage().getSimpleName())) {
+    /**
+     * 类型引用图存放在本次扫描的 AnalysisSession 中：
+     * 正向映射（类 -> 它引用的类）和反向引用图（被引用的类 -> 引用它的类）
+     */
+    public static boolean isClassUsedBy(AnalysisSession session, CtType<?> classA, CtType<?> classB) {
+        if (isSameClass(classA, classB)) {
             return false;
         }
 
-        Set<CtType<?>> ctTypes = ACTUAL_CTTYPE_MAPPING.get(classB);
-        if (Objects.nonNull(ctTypes) && ctTypes.stream().anyMatch(ctType -> ctType.equals(classA))) {
-            return true;
+        Set<CtType<?>> ctTypes = session.actualTypeMapping.get(classB);
+        return Objects.nonNull(ctTypes) && ctTypes.contains(classA);
+    }
+
+    /**
+     * 类是否被其他类引用：查反向引用图，存在同名同包以外的引用方即视为被使用（外部入度大于0）
+     */
+    public static boolean isClassUsed(AnalysisSession session, CtType<?> ctType) {
+        Set<CtType<?>> referrers = session.reverseTypeMapping.get(ctType);
+        if (Objects.isNull(referrers)) {
+            return false;
+        }
+        for (CtType<?> referrer : referrers) {
+            if (!isSameClass(ctType, referrer)) {
+                return true;
+            }
         }
         return false;
     }
 
-    public static void loadAllActualCtTypeMapping(List<CtType> refElements) {
-        Map<CtType<?>, Set<CtType<?>>> resultMap = new HashMap<>();
-        for (CtType refCtype : refElements) {
+    /**
+     * 获取该类引用的所有类
+     */
+    public static Set<CtType<?>> getReferences(AnalysisSession session, CtType<?> ctType) {
+        Set<CtType<?>> references = session.actualTypeMapping.get(ctType);
+        return Objects.nonNull(references) ? references : Collections.emptySet();
+    }
+
+    /**
+     * 获取引用该类的所有类
+     */
+    public static Set<CtType<?>> getReferrers(AnalysisSession session, CtType<?> ctType) {
+        Set<CtType<?>> referrers = session.reverseTypeMapping.get(ctType);
+        return Objects.nonNull(referrers) ? referrers : Collections.emptySet();
+    }
+
+    /**
+     * 一遍遍历所有类型引用，同时建立正向映射（类 -> 它引用的类）和反向引用图（类 -> 引用它的类），存入本次扫描的会话。
+     * 各类的引用由 ScanScheduler 并行收集，再按输入顺序单线程合并；按已处理的类汇报进度，取消时抛出 InterruptedException
+     */
+    public static void loadAllActualCtTypeMapping(AnalysisSession session, List<CtType> refElements, ScanProgress progress) throws InterruptedException {
+        session.checkOpen();
+        List<Set<CtType<?>>> collected = ScanScheduler.map(refElements, SpoonHelper::collectActualTypes, progress);
+        Map<CtType<?>, Set<CtType<?>>> resultMap = new IdentityHashMap<>();
+        Map<CtType<?>, Set<CtType<?>>> reverseMap = new IdentityHashMap<>();
+        for (int i = 0; i < refElements.size(); i++) {
+            CtType<?> refCtype = refElements.get(i);
+            Set<CtType<?>> actualTypes = collected.get(i);
+            if (actualTypes.isEmpty()) {
+                continue;
+            }
+            resultMap.put(refCtype, actualTypes);
+            for (CtType<?> actualType : actualTypes) {
+                reverseMap.computeIfAbsent(actualType, k -> Collections.newSetFromMap(new IdentityHashMap<>())).add(refCtype);
+            }
+        }
+        session.actualTypeMapping = resultMap;
+        session.reverseTypeMapping = reverseMap;
+        System.out.println("✅loadAllActualCtTypeMapping done.........");
+    }
+
+    private static Set<CtType<?>> collectActualTypes(CtType<?> refCtype) {
+        Set<CtType<?>> actualTypes = Collections.newSetFromMap(new IdentityHashMap<>());
+        try {
             List<CtTypeReference<?>> refs = refCtype.getElements(new TypeFilter<>(CtTypeReference.class));
-            refs.stream()
-                    .forEach(ctTypeReference -> {
+            for (CtTypeReference<?> ctTypeReference : refs) {
                 CtType<?> actualType = ctTypeReference.getTypeDeclaration();
                 if (Objects.nonNull(actualType)) {
-                    Set<CtType<?>> actualTypes = resultMap.containsKey(refCtype) ? resultMap.get(refCtype) : new HashSet<>();
                     actualTypes.add(actualType);
-                    resultMap.put(refCtype, actualTypes);
                 }
-            });
-
+            }
+        } catch (Exception e) {
+            System.err.println("收集类型引用时出错: " + e.getMessage());
         }
-        ACTUAL_CTTYPE_MAPPING =  resultMap;
-        System.out.println("✅loadAllActualCtTypeMapping done.........");
+        return actualTypes;
+    }
+
+    /**
+     * 同名同包视为同一个类（自身或重复声明），不计为引用
+     */
+    private static boolean isSameClass(CtType<?> classA, CtType<?> classB) {
+        return Objects.equals(classA.getSimpleName(), classB.getSimpleName())
+                && Objects.equals(classA.getPackage().getSimpleName(), classB.getPackage().getSimpleName());
     }
 
     public static boolean filterCtype(CtType<?> ctType) {
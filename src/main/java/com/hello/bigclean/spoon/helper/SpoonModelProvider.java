@@ -0,0 +1,183 @@
+package com.hello.bigclean.spoon.helper;
+
+import com.hello.bigclean.util.ProjectFiles;
+import spoon.Launcher;
+import spoon.reflect.CtModel;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Spoon 模型提供者：每个项目的源码快照只解析一次，类分析、方法分析和可达性分析共用同一个 CtModel。
+ * 快照指纹由所有 .java 文件的路径、修改时间和大小计算；源码有变化时指纹不同，自动重新解析。
+ * 同一项目并发请求时只有一个线程解析，其余线程等待并复用结果。
+ * 各分析只读取模型，不做修改。
+ * 模型一直缓存到调用 invalidate/clear 为止，IDE 中由工具窗口在项目关闭时释放。
+ */
+public class SpoonModelProvider {
+    private static final Map<String, Holder> MODELS = new ConcurrentHashMap<>();
+
+    /**
+     * 获取项目的 Spoon 模型，源码未变化时直接复用上次解析的结果，解析失败返回null
+     */
+    public static CtModel getModel(String path) {
+        Holder holder = MODELS.computeIfAbsent(normalize(path), k -> new Holder());
+        synchronized (holder) {
+            long fingerprint = fingerprint(path);
+            if (holder.model != null && holder.fingerprint == fingerprint) {
+                System.out.println("复用已解析的Spoon模型: " + path);
+                return holder.model;
+            }
+            // 先释放旧模型，避免新旧两份模型同时占用内存
+            holder.model = null;
+            long start = System.currentTimeMillis();
+            CtModel model = buildModel(launcher -> ProjectFiles.roots(path).forEach(root -> launcher.addInputResource(root.toString())));
+            System.out.println("Spoon模型解析完成，耗时 " + (System.currentTimeMillis() - start) + "ms");
+            holder.model = model;
+            holder.fingerprint = fingerprint;
+            return model;
+        }
+    }
+
+    /**
+     * 只用给定的源码文件构建模型，不进入缓存；用于只需要部分源码的定向分析，失败返回null
+     */
+    public static CtModel buildModel(Collection<Path> files) {
+        long start = System.currentTimeMillis();
+        try {
+            CtModel model = buildModel(launcher -> files.forEach(file -> launcher.addInputResource(file.toString())));
+            System.out.println("Spoon模型解析完成（" + files.size() + " 个文件），耗时 " + (System.currentTimeMillis() - start) + "ms");
+            return model;
+        } catch (Exception e) {
+            System.err.println("Spoon构建模型失败: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 丢弃项目的缓存模型，下次分析时重新解析；IDE 中项目关闭时调用，守护进程和 Gradle 工作进程也会调用
+     */
+    public static void invalidate(String path) {
+        MODELS.remove(normalize(path));
+    }
+
+    /**
+     * 丢弃所有缓存模型
+     */
+    public static void clear() {
+        MODELS.clear();
+    }
+
+    /**
+     * 源码快照指纹：各文件（路径、修改时间、大小）哈希之和，与遍历顺序无关
+     */
+    static long fingerprint(String path) {
+        long[] fingerprint = {0};
+        try (Stream<Path> paths = ProjectFiles.walk(path)) {
+            paths.filter(file -> file.toString().endsWith(".java")).forEach(file -> {
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    if (attributes.isRegularFile()) {
+                        long h = file.toString().hashCode();
+                        h = h * 31 + attributes.lastModifiedTime().toMillis();
+                        h = h * 31 + attributes.size();
+                        fingerprint[0] += mix(h);
+                    }
+                } catch (IOException e) {
+                    fingerprint[0] += mix(file.toString().hashCode());
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            System.err.println("计算源码指纹失败: " + e.getMessage());
+            // 无法判断是否变化时强制重新解析
+            return System.nanoTime();
+        }
+        return fingerprint[0];
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static String normalize(String path) {
+        return Paths.get(path).toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * 构建Spoon模型，遇到重复类名等问题时退回容错模式
+     */
+    private static CtModel buildModel(Consumer<Launcher> inputs) {
+        Launcher launcher = createSpoonLauncher();
+        inputs.accept(launcher);
+        try {
+            return launcher.buildModel();
+        } catch (Exception e) {
+            System.err.println("Spoon构建模型时遇到重复类名，尝试使用容错模式: " + e.getMessage());
+            launcher = createTolerantSpoonLauncher();
+            inputs.accept(launcher);
+            return launcher.buildModel();
+        }
+    }
+
+    /**
+     * 创建Spoon Launcher，避免类加载器冲突
+     */
+    private static Launcher createSpoonLauncher() {
+        try {
+            // 设置系统属性以避免日志冲突
+            System.setProperty("org.slf4j.simpleLogger.defaultLogLevel", "warn");
+            System.setProperty("org.slf4j.simpleLogger.showLogName", "false");
+            System.setProperty("org.slf4j.simpleLogger.showShortLogName", "false");
+            System.setProperty("org.slf4j.simpleLogger.showDateTime", "false");
+
+            // 设置Spoon环境属性以避免断言错误
+            System.setProperty("spoon.ignoreErrors", "true");
+            System.setProperty("spoon.ignoreMissingTypes", "true");
+            System.setProperty("spoon.ignoreSyntaxErrors", "true");
+
+            Launcher launcher = new Launcher();
+
+            // 配置环境 - 添加重复类名处理
+            launcher.getEnvironment().setAutoImports(false);
+            launcher.getEnvironment().setNoClasspath(true);
+            launcher.getEnvironment().setComplianceLevel(8);
+            launcher.getEnvironment().setIgnoreDuplicateDeclarations(true);  // 忽略重复声明
+            launcher.getEnvironment().setShouldCompile(false);  // 不编译，只解析
+
+            return launcher;
+        } catch (Exception e) {
+            System.err.println("创建Spoon Launcher失败: " + e.getMessage());
+            throw new RuntimeException("无法初始化Spoon", e);
+        }
+    }
+
+    /**
+     * 创建容错模式的Spoon Launcher，处理重复类名问题
+     */
+    private static Launcher createTolerantSpoonLauncher() {
+        System.out.println("使用容错模式创建Spoon Launcher");
+        Launcher launcher = createSpoonLauncher();
+        // 设置更多容错选项
+        launcher.getEnvironment().setIgnoreSyntaxErrors(true);
+        launcher.getEnvironment().setPreserveLineNumbers(false);
+        return launcher;
+    }
+
+    private static class Holder {
+        CtModel model;
+        long fingerprint;
+    }
+}
@@ -0,0 +1,49 @@
+package com.hello.bigclean.spoon.helper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 符号表：把类名、方法名等字符串驻留为从1开始的连续整数ID，索引中只存ID，比较和哈希都按整数进行。
+ * 建立索引时用 intern 登记，查询时用 idOf 只读查找，不会新增符号，可以在多个线程中并发查询。
+ */
+public class SymbolTable {
+    public static final int NOT_FOUND = 0;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> symbols = new ArrayList<>();
+
+    /**
+     * 登记符号并返回ID，已登记的返回原ID
+     */
+    public int intern(String symbol) {
+        Integer id = ids.get(symbol);
+        if (id == null) {
+            symbols.add(symbol);
+            id = symbols.size();
+            ids.put(symbol, id);
+        }
+        return id;
+    }
+
+    /**
+     * 查找符号ID，未登记的返回 NOT_FOUND
+     */
+    public int idOf(String symbol) {
+        if (symbol == null) {
+            return NOT_FOUND;
+        }
+        Integer id = ids.get(symbol);
+        return id != null ? id : NOT_FOUND;
+    }
+
+    public String symbolOf(int id) {
+        return symbols.get(id - 1);
+    }
+
+    public int size() {
+        return symbols.size();
+    }
+}
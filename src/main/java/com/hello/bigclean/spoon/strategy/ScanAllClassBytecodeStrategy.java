@@ -0,0 +1,142 @@
+package com.hello.bigclean.spoon.strategy;
+
+import com.hello.bigclean.bytecode.ClassFileInfo;
+import com.hello.bigclean.bytecode.ClassFileScanner;
+import com.hello.bigclean.spoon.reference.Reference;
+import com.hello.bigclean.util.ScanProgress;
+import com.hello.bigclean.util.ScanScheduler;
+import org.aspectj.lang.annotation.Aspect;
+import org.mapstruct.Mapper;
+import org.objectweb.asm.Type;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Repository;
+import org.springframework.stereotype.Service;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 基于字节码的无用类分析：读取项目已编译的 .class 文件（build/classes、target/classes），
+ * 不解析源码，类型全部是编译器解析过的全限定名，没有 noClasspath 下的重复声明和无法解析的类型。
+ * 判定规则与 ScanAllClassStrategy 一致：没有被其他类引用、且不带 Spring 等框架注解的类为无用类，
+ * 返回结果的格式也相同（包名.简单名）。外部类引用自己的嵌套类计为引用，嵌套类和匿名类引用外部类不计。
+ * 需要先编译项目；编译期常量会被内联，只通过常量引用的类会被误报，结果请结合源码分析确认。
+ */
+public class ScanAllClassBytecodeStrategy implements ScanStrategy {
+    // 与 ScanAllClassStrategy 相同：带这些注解的类视为已使用
+    private static final Set<String> USED_TYPE_ANNOTATIONS = new HashSet<>(Arrays.asList(
+            Type.getDescriptor(Component.class),
+            Type.getDescriptor(Service.class),
+            Type.getDescriptor(RestController.class),
+            Type.getDescriptor(Aspect.class),
+            Type.getDescriptor(Configuration.class),
+            Type.getDescriptor(Repository.class),
+            Type.getDescriptor(Mapper.class)
+    ));
+
+    @Override
+    public List<Reference> scan(String path) throws InterruptedException {
+        return scan(path, ScanProgress.NONE);
+    }
+
+    @Override
+    public List<Reference> scan(String path, ScanProgress progress) throws InterruptedException {
+        List<Reference> result = new ArrayList<>();
+        scan(path, progress, result::add);
+        result.sort(Comparator.comparing(Reference::getOriginalClass));
+        return result;
+    }
+
+    /**
+     * 逐个判定类，无用类一经确认就交给 sink，按类文件的读取顺序交付
+     */
+    @Override
+    public void scan(String path, ScanProgress progress, Consumer<? super Reference> sink) throws InterruptedException {
+        try {
+            progress.setText("查找编译输出...");
+            List<Path> classFiles = ClassFileScanner.findClassFiles(path);
+            if (classFiles.isEmpty()) {
+                System.out.println("未找到编译输出（build/classes、target/classes），请先编译项目");
+                return;
+            }
+            System.out.println("字节码文件数量: " + classFiles.size());
+
+            progress.setText("读取字节码...");
+            List<ClassFileInfo> infos = ScanScheduler.map(classFiles, ClassFileScanner::read, progress.range(0.05, 0.9));
+            findUnusedClasses(infos, sink);
+            progress.setFraction(1.0);
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            System.err.println("字节码分析失败: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 按类引用判定无用类，每个无用类（包名.简单名，同名只交付一次）交给 sink；
+     * 编译器插件记录的引用文件（ScanAllClassJavacStrategy）也使用这套规则
+     */
+    static void findUnusedClasses(List<ClassFileInfo> infos, Consumer<? super Reference> sink) {
+        // 同名类出现在多个输出目录时合并引用
+        Map<String, ClassFileInfo> classes = new LinkedHashMap<>();
+        for (ClassFileInfo info : infos) {
+            ClassFileInfo existing = classes.putIfAbsent(info.getName(), info);
+            if (existing != null) {
+                existing.getReferences().addAll(info.getReferences());
+            }
+        }
+
+        Set<String> usedClasses = new HashSet<>();
+        for (ClassFileInfo info : classes.values()) {
+            for (String reference : info.getReferences()) {
+                if (classes.containsKey(reference) && !isSelfOrEnclosing(reference, info.getName())) {
+                    usedClasses.add(reference);
+                }
+            }
+        }
+
+        Set<String> reported = new HashSet<>();
+        for (ClassFileInfo info : classes.values()) {
+            if (info.isAnonymous()
+                    || info.getPackageName().isEmpty()
+                    || usedClasses.contains(info.getName())
+                    || hasUsedAnnotation(info)) {
+                continue;
+            }
+            String oriClass = info.getPackageName() + "." + info.getSimpleName();
+            if (reported.add(oriClass)) {
+                sink.accept(new Reference(oriClass, null));
+            }
+        }
+    }
+
+    /**
+     * reference 是 className 自身或它的外部类（className 以 reference$ 开头）
+     */
+    private static boolean isSelfOrEnclosing(String reference, String className) {
+        return className.equals(reference)
+                || (className.length() > reference.length()
+                && className.startsWith(reference)
+                && className.charAt(reference.length()) == '$');
+    }
+
+    private static boolean hasUsedAnnotation(ClassFileInfo info) {
+        for (String annotation : info.getAnnotations()) {
+            if (USED_TYPE_ANNOTATIONS.contains(annotation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
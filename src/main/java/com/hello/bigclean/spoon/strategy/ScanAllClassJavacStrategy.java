@@ -0,0 +1,73 @@
+package com.hello.bigclean.spoon.strategy;
+
+import com.hello.bigclean.javac.ClassRecord;
+import com.hello.bigclean.javac.ReferenceFile;
+import com.hello.bigclean.spoon.reference.Reference;
+import com.hello.bigclean.util.ScanProgress;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * 基于编译器插件引用文件的无用类分析：读取各模块编译时由 ReferenceRecorderPlugin 写出的引用文件并合并，
+ * 不解析源码也不读取字节码，判定规则和结果与 ScanAllClassBytecodeStrategy 相同。
+ * 引用来自源码中解析过的名称，只通过编译期常量引用的类也计为已使用；需要项目已带插件编译过
+ */
+public class ScanAllClassJavacStrategy implements ScanStrategy {
+
+    @Override
+    public List<Reference> scan(String path) throws InterruptedException {
+        return scan(path, ScanProgress.NONE);
+    }
+
+    @Override
+    public List<Reference> scan(String path, ScanProgress progress) throws InterruptedException {
+        List<Reference> result = new ArrayList<>();
+        scan(path, progress, result::add);
+        result.sort(Comparator.comparing(Reference::getOriginalClass));
+        return result;
+    }
+
+    @Override
+    public void scan(String path, ScanProgress progress, Consumer<? super Reference> sink) throws InterruptedException {
+        try {
+            progress.setText("读取引用文件...");
+            List<ClassRecord> classes = loadClasses(path);
+            if (classes.isEmpty()) {
+                System.out.println("未找到引用文件（" + ReferenceFile.FILE_NAME + "），请先带 BigCleanReferences 插件编译项目");
+                return;
+            }
+            progress.checkCanceled();
+            progress.setText("检查类的使用情况...");
+            ScanAllClassBytecodeStrategy.findUnusedClasses(
+                    classes.stream().map(ClassRecord::toClassFileInfo).collect(Collectors.toList()), sink);
+            progress.setFraction(1.0);
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            System.err.println("引用文件分析失败: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 合并项目中所有引用文件记录的类，无法读取的文件跳过
+     */
+    static List<ClassRecord> loadClasses(String rootDir) throws Exception {
+        List<ClassRecord> classes = new ArrayList<>();
+        List<Path> files = ReferenceFile.find(rootDir);
+        for (Path file : files) {
+            try {
+                classes.addAll(ReferenceFile.read(file).getClasses());
+            } catch (Exception e) {
+                System.err.println("读取引用文件失败: " + file + " " + e.getMessage());
+            }
+        }
+        System.out.println("引用文件数量: " + files.size() + "，类数量: " + classes.size());
+        return classes;
+    }
+}
@@ -1,8 +1,11 @@
 package com.hello.bigclean.spoon.strategy;
 
-import com.google.common.collect.Lists;
+import com.hello.bigclean.spoon.helper.AnalysisSession;
 import com.hello.bigclean.spoon.helper.SpoonHelper;
+import com.hello.bigclean.spoon.helper.SpoonModelProvider;
 import com.hello.bigclean.spoon.reference.Reference;
+import com.hello.bigclean.util.ScanProgress;
+import com.hello.bigclean.util.ScanScheduler;
 import org.aspectj.lang.annotation.Aspect;
 import org.mapstruct.Mapper;
 import org.springframework.context.annotation.Configuration;
@@ -10,19 +13,14 @@ import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Repository;
 import org.springframework.stereotype.Service;
 import org.springframework.web.bind.annotation.RestController;
-import spoon.Launcher;
 import spoon.reflect.CtModel;
 import spoon.reflect.declaration.CtType;
 import spoon.reflect.visitor.filter.TypeFilter;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
@@ -32,36 +30,37 @@ import java.util.stream.Collectors;
  * @date 2025/4/3-14:06
  */
 public class ScanAllClassStrategy implements ScanStrategy {
-    private AtomicLong atomicLong = new AtomicLong(0);
+
+    /**
+     * 参与无用判定的类：有包，且不带 Spring 等框架注解
+     */
+    static boolean isCandidate(CtType<?> ctType) {
+        return SpoonHelper.filterCtype(ctType)
+                && !ctType.hasAnnotation(Component.class)
+                && !ctType.hasAnnotation(Service.class)
+                && !ctType.hasAnnotation(RestController.class)
+                && !ctType.hasAnnotation(Aspect.class)
+                && !ctType.hasAnnotation(Configuration.class)
+                && !ctType.hasAnnotation(Repository.class)
+                && !ctType.hasAnnotation(Mapper.class);
+    }
 
     @Override
     public List<Reference> scan(String path) throws InterruptedException {
-        Map<String, Reference> referenceMap = new HashMap<String, Reference>();
-        try {
-            // 使用更安全的Spoon初始化方法
-            Launcher launcher = createSpoonLauncher();
-            
-            // 添加输入资源
-            launcher.addInputResource(path);
-            
-            // 构建模型 - 添加错误处理和重复类名处理
-            launcher.getEnvironment().setAutoImports(false);
-            launcher.getEnvironment().setNoClasspath(true);
-            launcher.getEnvironment().setIgnoreDuplicateDeclarations(true);  // 忽略重复声明
-            launcher.getEnvironment().setShouldCompile(false);  // 不编译，只解析
-            
-            CtModel ctModel = null;
-            try {
-                ctModel = launcher.buildModel();
-            } catch (Exception e) {
-                System.err.println("Spoon构建模型时遇到重复类名，尝试使用容错模式: " + e.getMessage());
-                // 重新创建launcher，使用更宽松的配置
-                launcher = createTolerantSpoonLauncher();
-                launcher.addInputResource(path);
-                ctModel = launcher.buildModel();
-            }
+        return scan(path, ScanProgress.NONE);
+    }
+
+    @Override
+    public List<Reference> scan(String path, ScanProgress progress) throws InterruptedException {
+        Map<String, Reference> referenceMap = new TreeMap<String, Reference>();
+        // 本次扫描的索引归会话所有，扫描结束即释放
+        try (AnalysisSession session = new AnalysisSession()) {
+            // 同一源码快照只解析一次，与方法分析共用模型
+            progress.setText("解析源码...");
+            CtModel ctModel = SpoonModelProvider.getModel(path);
+            progress.checkCanceled();
+            progress.setFraction(0.5);
 
-            
             if (ctModel == null) {
                 System.err.println("无法构建Spoon模型");
                 return new ArrayList<>();
@@ -88,14 +87,7 @@ public class ScanAllClassStrategy implements ScanStrategy {
             try {
                 filterOriElements = elements.stream().filter(ctType -> {
                     try {
-                        return SpoonHelper.filterCtype(ctType)
-                                && !ctType.hasAnnotation(Component.class)
-                                && !ctType.hasAnnotation(Service.class)
-                                && !ctType.hasAnnotation(RestController.class)
-                                && !ctType.hasAnnotation(Aspect.class)
-                                && !ctType.hasAnnotation(Configuration.class)
-                                && !ctType.hasAnnotation(Repository.class)
-                                && !ctType.hasAnnotation(Mapper.class);
+                        return isCandidate(ctType);
                     } catch (Exception e) {
                         System.err.println("过滤类时出错: " + e.getMessage());
                         return false;
@@ -117,86 +109,43 @@ public class ScanAllClassStrategy implements ScanStrategy {
             
             // 安全地加载映射
             try {
-                SpoonHelper.loadAllActualCtTypeMapping(refElements);
+                progress.setText("建立类型引用图...");
+                SpoonHelper.loadAllActualCtTypeMapping(session, refElements, progress.range(0.5, 0.9));
+            } catch (InterruptedException e) {
+                throw e;
             } catch (Exception e) {
                 System.err.println("加载类型映射时出错: " + e.getMessage());
             }
             
-            // 分批处理，减少内存压力
-            List<List<CtType>> splitCTypeList = Lists.partition(filterOriElements, 20); // 减少批次大小
-            ExecutorService executorService = Executors.newFixedThreadPool(2); // 减少线程数
-            List<CompletableFuture<String>> futures = new ArrayList<>();
-            
-            // 创建final变量供lambda使用
-            final List<CtType> finalRefElements = refElements;
+            // 由扫描调度器并行检查，每个工作线程的结果各自收集，合并后按类名排序
+            progress.setText("检查类的使用情况...");
             final int totalSize = filterOriElements.size();
-            
-            for (List<CtType> childCTypeList : splitCTypeList) {
-                futures.add(CompletableFuture.supplyAsync(() -> {
-                    try {
-                        for (CtType<?> originalCType : childCTypeList) {
-                            try {
-                                boolean ref = false;
-                                long incr = atomicLong.incrementAndGet();
-                                if (incr % 20 == 0) {
-                                    System.out.println("进度：" + incr + "/" + totalSize);
-                                }
-                                
-                                for (CtType<?> referenceCType : finalRefElements) {
-                                    try {
-                                        if (SpoonHelper.isClassUsedBy(originalCType, referenceCType)) {
-                                            ref = true;
-                                            break;
-                                        }
-                                    } catch (Exception e) {
-                                        System.err.println("检查类使用关系时出错: " + e.getMessage());
-                                        continue;
-                                    }
-                                }
-                                
-                                if (!ref) {
-                                    try {
-                                        String oriClass = originalCType.getPackage() + "." + originalCType.getSimpleName();
-                                        referenceMap.put(oriClass, new Reference(oriClass, null));
-                                    } catch (Exception e) {
-                                        System.err.println("获取类名时出错: " + e.getMessage());
-                                    }
-                                }
-                            } catch (Exception e) {
-                                System.err.println("处理类时出错: " + e.getMessage());
-                                continue;
-                            }
-                        }
-                        return Thread.currentThread().getName() + "- 完成";
-                    } catch (Exception e) {
-                        System.err.println("异步任务执行出错: " + e.getMessage());
-                        return Thread.currentThread().getName() + "- 失败";
+            AtomicLong atomicLong = new AtomicLong(0);
+            List<Reference> unused = ScanScheduler.map(filterOriElements, originalCType -> {
+                try {
+                    long incr = atomicLong.incrementAndGet();
+                    if (incr % 20 == 0) {
+                        System.out.println("进度：" + incr + "/" + totalSize);
                     }
-                }, executorService));
-            }
 
-            try {
-                List<String> results = CompletableFuture.allOf(
-                        futures.toArray(new CompletableFuture[0])
-                ).thenApply(v ->
-                        futures.stream()
-                                .map(future -> {
-                                    try {
-                                        return future.join();
-                                    } catch (Exception e) {
-                                        return "任务失败: " + e.getMessage();
-                                    }
-                                })
-                                .collect(Collectors.toList())
-                ).get();
-                System.out.println("所有任务完成，结果: " + results);
-            } catch (Exception e) {
-                System.err.println("任务执行异常或超时: " + e.getMessage());
-            } finally {
-                executorService.shutdown();  // 关闭线程池
+                    // 查反向引用图，外部入度为0即为无用类
+                    if (SpoonHelper.isClassUsed(session, originalCType)) {
+                        return null;
+                    }
+                    String oriClass = originalCType.getPackage() + "." + originalCType.getSimpleName();
+                    return new Reference(oriClass, null);
+                } catch (Exception e) {
+                    System.err.println("处理类时出错: " + e.getMessage());
+                    return null;
+                }
+            }, progress.range(0.9, 1.0));
+            for (Reference reference : unused) {
+                referenceMap.putIfAbsent(reference.getOriginalClass(), reference);
             }
             return new ArrayList<>(referenceMap.values());
             
+        } catch (InterruptedException e) {
+            throw e;
         } catch (Exception e) {
             System.err.println("Spoon分析失败: " + e.getMessage());
             e.printStackTrace();
@@ -207,84 +156,4 @@ public class ScanAllClassStrategy implements ScanStrategy {
             return new ArrayList<>();
         }
     }
-    
-    /**
-     * 创建容错模式的Spoon Launcher，处理重复类名问题
-     */
-    private Launcher createTolerantSpoonLauncher() {
-        try {
-            System.out.println("使用容错模式创建Spoon Launcher");
-            
-            Launcher launcher = new Launcher();
-            
-            // 更宽松的配置
-            launcher.getEnvironment().setAutoImports(false);
-            launcher.getEnvironment().setNoClasspath(true);
-            launcher.getEnvironment().setIgnoreDuplicateDeclarations(true);
-            launcher.getEnvironment().setShouldCompile(false);
-            launcher.getEnvironment().setComplianceLevel(8);
-            
-            // 设置更多容错选项
-            launcher.getEnvironment().setIgnoreSyntaxErrors(true);
-            launcher.getEnvironment().setPreserveLineNumbers(false);
-            
-            return launcher;
-            
-        } catch (Exception e) {
-            System.err.println("创建容错Spoon Launcher失败: " + e.getMessage());
-            throw new RuntimeException("无法初始化容错Spoon", e);
-        }
-    }
-    
-    /**
-     * 创建Spoon Launcher，避免类加载器冲突
-     */
-    private Launcher createSpoonLauncher() {
-        try {
-            // 设置系统属性以避免日志冲突
-            System.setProperty("org.slf4j.simpleLogger.defaultLogLevel", "warn");
-            System.setProperty("org.slf4j.simpleLogger.showLogName", "false");
-            System.setProperty("org.slf4j.simpleLogger.showShortLogName", "false");
-            System.setProperty("org.slf4j.simpleLogger.showDateTime", "false");
-            
-            // 设置Spoon环境属性以避免断言错误
-            System.setProperty("spoon.ignoreErrors", "true");
-            System.setProperty("spoon.ignoreMissingTypes", "true");
-            System.setProperty("spoon.ignoreSyntaxErrors", "true");
-            
-            // 测试Spoon是否能正常加载
-            testSpoonAvailability();
-            
-            Launcher launcher = new Launcher();
-            
-            // 配置环境 - 添加重复类名处理
-            launcher.getEnvironment().setAutoImports(false);
-            launcher.getEnvironment().setNoClasspath(true);
-            launcher.getEnvironment().setComplianceLevel(8);
-            launcher.getEnvironment().setIgnoreDuplicateDeclarations(true);  // 忽略重复声明
-            launcher.getEnvironment().setShouldCompile(false);  // 不编译，只解析
-            
-            return launcher;
-            
-        } catch (Exception e) {
-            System.err.println("创建Spoon Launcher失败: " + e.getMessage());
-            throw new RuntimeException("无法初始化Spoon", e);
-        }
-    }
-    
-    /**
-     * 测试Spoon类是否能正常加载
-     */
-    private void testSpoonAvailability() {
-        try {
-            // 测试基本类是否能加载
-            Class.forName("spoon.Launcher");
-            Class.forName("spoon.reflect.CtModel");
-            Class.forName("spoon.reflect.declaration.CtType");
-            System.out.println("Spoon类加载成功");
-        } catch (ClassNotFoundException e) {
-            System.err.println("Spoon类加载失败: " + e.getMessage());
-            throw new RuntimeException("Spoon类不可用", e);
-        }
-    }
 }
@@ -0,0 +1,191 @@
+package com.hello.bigclean.spoon.strategy;
+
+import com.hello.bigclean.bytecode.CallGraph;
+import com.hello.bigclean.bytecode.CallGraphScanner;
+import com.hello.bigclean.bytecode.ClassCallInfo;
+import com.hello.bigclean.bytecode.ClassFileScanner;
+import com.hello.bigclean.bytecode.MethodInfo;
+import com.hello.bigclean.spoon.reference.MethodReference;
+import com.hello.bigclean.spoon.reference.Reference;
+import com.hello.bigclean.util.ScanProgress;
+import com.hello.bigclean.util.ScanScheduler;
+import org.aspectj.lang.annotation.Aspect;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import javax.annotation.PostConstruct;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 基于字节码调用图的无用方法分析：读取编译输出中的 .class 文件，按调用指令和方法句柄构建调用图（见 {@link CallGraph}），
+ * 重载按描述符、lambda 和方法引用按引导方法参数精确解析。
+ * 排除规则和返回结果与 ScanAllMethodStrategy 相同；此外跳过构造器、编译器生成的方法（桥接、lambda 实现、枚举的 values/valueOf）、
+ * 匿名类和局部类中的方法以及 main 方法。方法行数取行号表的首末行，需要项目已编译且保留调试信息。
+ */
+public class ScanAllMethodBytecodeStrategy implements ScanStrategy {
+    // 与 ScanAllMethodStrategy 相同：带这些注解的类中的方法不报告
+    private static final Set<String> EXCLUDED_TYPE_ANNOTATIONS = new HashSet<>(Arrays.asList(
+            Type.getDescriptor(Controller.class),
+            Type.getDescriptor(RestController.class),
+            Type.getDescriptor(RestControllerAdvice.class),
+            Type.getDescriptor(ControllerAdvice.class),
+            Type.getDescriptor(Aspect.class),
+            Type.getDescriptor(Configuration.class)
+    ));
+    private static final String POST_CONSTRUCT = Type.getDescriptor(PostConstruct.class);
+    private static final String MAPSTRUCT_PREFIX = "Lorg/mapstruct/";
+
+    @Override
+    public List<? extends Reference> scan(String path) throws InterruptedException {
+        return scan(path, ScanProgress.NONE);
+    }
+
+    @Override
+    public List<? extends Reference> scan(String path, ScanProgress progress) throws InterruptedException {
+        List<MethodReference> unusedMethods = new ArrayList<>();
+        scan(path, progress, reference -> unusedMethods.add((MethodReference) reference));
+        return sortByLines(unusedMethods);
+    }
+
+    /**
+     * 调用图建好后逐个类判定，无用方法一经确认就交给 sink，按类的读取顺序交付，不再按行数排序
+     */
+    @Override
+    public void scan(String path, ScanProgress progress, Consumer<? super Reference> sink) throws InterruptedException {
+        try {
+            progress.setText("查找编译输出...");
+            List<Path> classFiles = ClassFileScanner.findClassFiles(path);
+            if (classFiles.isEmpty()) {
+                System.out.println("未找到编译输出（build/classes、target/classes），请先编译项目");
+                return;
+            }
+            System.out.println("字节码文件数量: " + classFiles.size());
+
+            progress.setText("读取字节码...");
+            List<ClassCallInfo> infos = ScanScheduler.map(classFiles, CallGraphScanner::read, progress.range(0.05, 0.8));
+            findUnusedMethods(infos, progress, sink);
+            progress.setFraction(1.0);
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            System.err.println("字节码方法扫描失败: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 按调用图判定无用方法，每个无用方法交给 sink；编译器插件记录的引用文件（ScanAllMethodJavacStrategy）也使用这套规则
+     */
+    static void findUnusedMethods(List<ClassCallInfo> infos, ScanProgress progress, Consumer<? super MethodReference> sink) throws InterruptedException {
+        progress.setText("分析方法调用...");
+        CallGraph callGraph = new CallGraph(infos);
+        Set<MethodInfo> usedMethods = callGraph.computeUsedMethods(progress);
+        progress.setFraction(0.95);
+
+        int count = 0;
+        for (ClassCallInfo info : callGraph.getClasses().values()) {
+            if (isExcludedClass(info)) {
+                continue;
+            }
+            String qualifiedName = info.getName().replace('/', '.');
+            for (MethodInfo method : info.getMethods().values()) {
+                if (usedMethods.contains(method) || isExcludedMethod(info, method)) {
+                    continue;
+                }
+                MethodReference methodReference = new MethodReference();
+                methodReference.setOriginalClass(qualifiedName);
+                methodReference.setMethod(method.getName());
+                methodReference.setMethodDescriptor(signature(method));
+                methodReference.setMethodLines(lines(method));
+                sink.accept(methodReference);
+                count++;
+            }
+        }
+        System.out.println("Unused methods (" + count + "):");
+    }
+
+    /**
+     * 按方法行数从多到少排序，供 IDE 中的结果列表使用
+     */
+    static List<MethodReference> sortByLines(List<MethodReference> unusedMethods) {
+        unusedMethods.sort((o1, o2) -> o2.getMethodLines() - o1.getMethodLines());
+        return unusedMethods;
+    }
+
+    private static boolean isExcludedClass(ClassCallInfo info) {
+        String qualifiedName = info.getName().replace('/', '.');
+        if (info.isAnonymous()
+                || (info.getAccess() & (Opcodes.ACC_INTERFACE | Opcodes.ACC_ANNOTATION | Opcodes.ACC_SYNTHETIC)) != 0
+                || qualifiedName.contains("Controller")
+                || qualifiedName.contains("Test")
+                || qualifiedName.contains("FallbackFactory")
+                || qualifiedName.endsWith("Builder")) {
+            return true;
+        }
+        for (String annotation : info.getAnnotations()) {
+            if (EXCLUDED_TYPE_ANNOTATIONS.contains(annotation) || annotation.startsWith(MAPSTRUCT_PREFIX)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isExcludedMethod(ClassCallInfo info, MethodInfo method) {
+        String name = method.getName();
+        if ((method.getAccess() & (Opcodes.ACC_SYNTHETIC | Opcodes.ACC_BRIDGE)) != 0
+                || "<init>".equals(name)
+                || "<clinit>".equals(name)
+                || Objects.equals(name, "afterPropertiesSet")
+                || method.getAnnotations().contains(POST_CONSTRUCT)) {
+            return true;
+        }
+        boolean isStatic = (method.getAccess() & Opcodes.ACC_STATIC) != 0;
+        if (isStatic && "main".equals(name) && "([Ljava/lang/String;)V".equals(method.getDescriptor())) {
+            return true;
+        }
+        // 枚举的 values()/valueOf(String) 由编译器生成，但没有 synthetic 标记
+        if (isStatic && (info.getAccess() & Opcodes.ACC_ENUM) != 0) {
+            String descriptor = method.getDescriptor();
+            return ("values".equals(name) && descriptor.equals("()[L" + info.getName() + ";"))
+                    || ("valueOf".equals(name) && descriptor.equals("(Ljava/lang/String;)L" + info.getName() + ";"));
+        }
+        return false;
+    }
+
+    /**
+     * 与 CtMethod.getSignature() 相同的格式，如 sort(int[],java.util.Comparator)
+     */
+    private static String signature(MethodInfo method) {
+        StringBuilder signature = new StringBuilder(method.getName()).append('(');
+        Type[] argumentTypes = Type.getArgumentTypes(method.getDescriptor());
+        for (int i = 0; i < argumentTypes.length; i++) {
+            if (i > 0) {
+                signature.append(',');
+            }
+            signature.append(argumentTypes[i].getClassName());
+        }
+        return signature.append(')').toString();
+    }
+
+    /**
+     * 行号表首末行之间的行数，抽象方法等没有行号的方法计为1行
+     */
+    private static int lines(MethodInfo method) {
+        if (method.getFirstLine() == 0) {
+            return 1;
+        }
+        return method.getLastLine() - method.getFirstLine() + 1;
+    }
+}
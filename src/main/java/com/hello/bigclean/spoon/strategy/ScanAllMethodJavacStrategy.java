@@ -0,0 +1,52 @@
+package com.hello.bigclean.spoon.strategy;
+
+import com.hello.bigclean.javac.ClassRecord;
+import com.hello.bigclean.javac.ReferenceFile;
+import com.hello.bigclean.spoon.reference.MethodReference;
+import com.hello.bigclean.spoon.reference.Reference;
+import com.hello.bigclean.util.ScanProgress;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * 基于编译器插件引用文件的无用方法分析：用引用文件中记录的方法声明和调用构建调用图，
+ * 调用解析、排除规则和结果与 ScanAllMethodBytecodeStrategy 相同。方法行数取源码中方法声明的首末行
+ */
+public class ScanAllMethodJavacStrategy implements ScanStrategy {
+
+    @Override
+    public List<? extends Reference> scan(String path) throws InterruptedException {
+        return scan(path, ScanProgress.NONE);
+    }
+
+    @Override
+    public List<? extends Reference> scan(String path, ScanProgress progress) throws InterruptedException {
+        List<MethodReference> unusedMethods = new ArrayList<>();
+        scan(path, progress, reference -> unusedMethods.add((MethodReference) reference));
+        return ScanAllMethodBytecodeStrategy.sortByLines(unusedMethods);
+    }
+
+    @Override
+    public void scan(String path, ScanProgress progress, Consumer<? super Reference> sink) throws InterruptedException {
+        try {
+            progress.setText("读取引用文件...");
+            List<ClassRecord> classes = ScanAllClassJavacStrategy.loadClasses(path);
+            if (classes.isEmpty()) {
+                System.out.println("未找到引用文件（" + ReferenceFile.FILE_NAME + "），请先带 BigCleanReferences 插件编译项目");
+                return;
+            }
+            progress.setFraction(0.2);
+            ScanAllMethodBytecodeStrategy.findUnusedMethods(
+                    classes.stream().map(ClassRecord::toClassCallInfo).collect(Collectors.toList()), progress, sink);
+            progress.setFraction(1.0);
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            System.err.println("引用文件方法分析失败: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
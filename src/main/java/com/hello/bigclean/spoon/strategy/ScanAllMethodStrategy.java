@@ -1,8 +1,11 @@
 package com.hello.bigclean.spoon.strategy;
 
+import com.hello.bigclean.spoon.helper.AnalysisSession;
 import com.hello.bigclean.spoon.helper.MethodScanHelper;
+import com.hello.bigclean.spoon.helper.SpoonModelProvider;
 import com.hello.bigclean.spoon.reference.MethodReference;
 import com.hello.bigclean.spoon.reference.Reference;
+import com.hello.bigclean.util.ScanProgress;
 import org.apache.commons.collections.CollectionUtils;
 import org.aspectj.lang.annotation.Aspect;
 import org.springframework.context.annotation.Configuration;
@@ -10,10 +13,10 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
-import spoon.Launcher;
 import spoon.reflect.CtModel;
 import spoon.reflect.cu.SourcePosition;
 import spoon.reflect.declaration.*;
+import spoon.reflect.reference.CtTypeReference;
 
 import javax.annotation.PostConstruct;
 import java.lang.annotation.Annotation;
@@ -47,33 +50,24 @@ public class ScanAllMethodStrategy implements ScanStrategy {
 
     @Override
     public List<? extends Reference> scan(String path) throws InterruptedException {
-        try {
-            Launcher launcher = createSpoonLauncher();
-            launcher.addInputResource(path);
-            
-            // 配置环境以处理重复类名
-            launcher.getEnvironment().setNoClasspath(true);
-            launcher.getEnvironment().setAutoImports(false);
-            launcher.getEnvironment().setIgnoreDuplicateDeclarations(true);  // 忽略重复声明
-            launcher.getEnvironment().setShouldCompile(false);  // 不编译，只解析
-            
-            CtModel ctModel = null;
-            try {
-                ctModel = launcher.buildModel();
-            } catch (Exception e) {
-                System.err.println("方法扫描遇到重复类名，尝试使用容错模式: " + e.getMessage());
-                // 重新创建launcher，使用更宽松的配置
-                launcher = createTolerantSpoonLauncher();
-                launcher.addInputResource(path);
-                ctModel = launcher.buildModel();
-            }
+        return scan(path, ScanProgress.NONE);
+    }
+
+    @Override
+    public List<? extends Reference> scan(String path, ScanProgress progress) throws InterruptedException {
+        // 本次扫描的索引归会话所有，扫描结束即释放
+        try (AnalysisSession session = new AnalysisSession()) {
+            // 同一源码快照只解析一次，与类分析共用模型
+            progress.setText("解析源码...");
+            CtModel ctModel = SpoonModelProvider.getModel(path);
+            progress.checkCanceled();
+            progress.setFraction(0.4);
             
             if (ctModel == null) {
                 System.err.println("无法构建Spoon模型用于方法扫描");
                 return new ArrayList<>();
             }
             
-            launcher.process();
         System.out.println("----------------------");
         // 获取所有项目中的方法，排除main方法和测试方法
         Collection<CtType<?>> allTypes = ctModel.getAllTypes();
@@ -81,7 +75,8 @@ public class ScanAllMethodStrategy implements ScanStrategy {
         for (CtType<?> type : allTypes) {
             allMethods.addAll(type.getMethods());
         }
-        Set<CtMethod<?>> usedMethods = MethodScanHelper.getUsedMethods(allMethods, ctModel);
+        progress.setText("分析方法调用...");
+        Set<CtMethod<?>> usedMethods = MethodScanHelper.getUsedMethods(session, allMethods, ctModel, progress.range(0.4, 0.95));
 
         // 找出未使用的方法
         List<CtMethod> unusedMethods = allMethods.stream()
@@ -114,8 +109,11 @@ public class ScanAllMethodStrategy implements ScanStrategy {
         }
         Collections.sort(unusedMethodsSet, (o1, o2) -> o2.getMethodLines() - o1.getMethodLines());
         System.out.println("Unused methods (" + unusedMethods.size() + "):");
+        progress.setFraction(1.0);
         return unusedMethodsSet;
         
+        } catch (InterruptedException e) {
+            throw e;
         } catch (Exception e) {
             System.err.println("方法扫描失败: " + e.getMessage());
             e.printStackTrace();
@@ -140,74 +138,18 @@ public class ScanAllMethodStrategy implements ScanStrategy {
     }
 
 
+    /**
+     * 声明类是否带有 MapStruct 注解，按注解类型的全限定名判断，不打印注解
+     */
     private static boolean hasMapStructAnnotation(CtMethod method) {
         List<CtAnnotation<? extends Annotation>> annotations = method.getDeclaringType().getAnnotations();
         if (CollectionUtils.isNotEmpty(annotations)) {
-            return annotations.stream().anyMatch(annotation ->
-                    annotation.toString().contains("org.mapstruct"));
+            return annotations.stream().anyMatch(annotation -> {
+                CtTypeReference<?> annotationType = annotation.getAnnotationType();
+                return annotationType != null && annotationType.getQualifiedName().startsWith("org.mapstruct.");
+            });
 
         }
         return false;
     }
-    
-    /**
-     * 创建容错模式的Spoon Launcher，处理重复类名问题
-     */
-    private Launcher createTolerantSpoonLauncher() {
-        try {
-            System.out.println("方法扫描使用容错模式创建Spoon Launcher");
-            
-            Launcher launcher = new Launcher();
-            
-            // 更宽松的配置
-            launcher.getEnvironment().setAutoImports(false);
-            launcher.getEnvironment().setNoClasspath(true);
-            launcher.getEnvironment().setIgnoreDuplicateDeclarations(true);
-            launcher.getEnvironment().setShouldCompile(false);
-            launcher.getEnvironment().setComplianceLevel(8);
-            
-            // 设置更多容错选项
-            launcher.getEnvironment().setIgnoreSyntaxErrors(true);
-            launcher.getEnvironment().setPreserveLineNumbers(false);
-            
-            return launcher;
-            
-        } catch (Exception e) {
-            System.err.println("创建容错Spoon Launcher失败: " + e.getMessage());
-            throw new RuntimeException("无法初始化容错Spoon", e);
-        }
-    }
-    
-    /**
-     * 创建Spoon Launcher，避免类加载器冲突
-     */
-    private Launcher createSpoonLauncher() {
-        try {
-            // 设置系统属性以避免日志冲突
-            System.setProperty("org.slf4j.simpleLogger.defaultLogLevel", "warn");
-            System.setProperty("org.slf4j.simpleLogger.showLogName", "false");
-            System.setProperty("org.slf4j.simpleLogger.showShortLogName", "false");
-            System.setProperty("org.slf4j.simpleLogger.showDateTime", "false");
-            
-            // 设置Spoon环境属性以避免断言错误
-            System.setProperty("spoon.ignoreErrors", "true");
-            System.setProperty("spoon.ignoreMissingTypes", "true");
-            System.setProperty("spoon.ignoreSyntaxErrors", "true");
-            
-            Launcher launcher = new Launcher();
-            
-            // 配置环境 - 添加重复类名处理
-            launcher.getEnvironment().setAutoImports(false);
-            launcher.getEnvironment().setNoClasspath(true);
-            launcher.getEnvironment().setComplianceLevel(8);
-            launcher.getEnvironment().setIgnoreDuplicateDeclarations(true);  // 忽略重复声明
-            launcher.getEnvironment().setShouldCompile(false);  // 不编译，只解析
-            
-            return launcher;
-            
-        } catch (Exception e) {
-            System.err.println("创建Spoon Launcher失败: " + e.getMessage());
-            throw new RuntimeException("无法初始化Spoon", e);
-        }
-    }
 }
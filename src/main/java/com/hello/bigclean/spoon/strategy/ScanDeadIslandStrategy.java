@@ -0,0 +1,381 @@
+package com.hello.bigclean.spoon.strategy;
+
+import com.hello.bigclean.spoon.helper.AnalysisSession;
+import com.hello.bigclean.spoon.helper.ReachabilityHelper;
+import com.hello.bigclean.spoon.helper.SpoonHelper;
+import com.hello.bigclean.spoon.helper.SpoonModelProvider;
+import com.hello.bigclean.spoon.reference.MethodReference;
+import com.hello.bigclean.spoon.reference.Reference;
+import com.hello.bigclean.util.ScanProgress;
+import org.aspectj.lang.annotation.Aspect;
+import org.mapstruct.Mapper;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Controller;
+import org.springframework.stereotype.Repository;
+import org.springframework.stereotype.Service;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import spoon.reflect.CtModel;
+import spoon.reflect.code.CtAbstractInvocation;
+import spoon.reflect.code.CtExecutableReferenceExpression;
+import spoon.reflect.cu.SourcePosition;
+import spoon.reflect.declaration.*;
+import spoon.reflect.reference.CtExecutableReference;
+import spoon.reflect.reference.CtTypeReference;
+import spoon.reflect.visitor.filter.TypeFilter;
+
+import javax.annotation.PostConstruct;
+import java.lang.annotation.Annotation;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 可达性分析：从入口类和入口方法出发，沿类引用、方法调用和重写关系遍历一遍，
+ * 所有不可达的类和方法按强连通分量分组为"无用簇"，一次找出只互相引用的整块死代码。
+ * 入口沿用 ScanAllClassStrategy / ScanAllMethodStrategy 中的注解和命名规则。
+ *
+ * 返回的每个 Reference 代表一个无用簇：originalClass 为簇中第一个成员，referenceClasses 为簇的全部成员；
+ * 方法簇返回 MethodReference，成员格式为 类名#方法名。
+ */
+public class ScanDeadIslandStrategy implements ScanStrategy {
+    // 入口类注解：ScanAllClassStrategy 视为已使用的注解，以及 ScanAllMethodStrategy 排除的注解
+    private static final List<Class<? extends Annotation>> ENTRY_TYPE_ANNOTATIONS = Arrays.asList(
+            Component.class,
+            Service.class,
+            Repository.class,
+            Mapper.class,
+            Controller.class,
+            RestController.class,
+            RestControllerAdvice.class,
+            ControllerAdvice.class,
+            Aspect.class,
+            Configuration.class
+    );
+    // 所有方法都作为入口的类注解（同 ScanAllMethodStrategy）
+    private static final List<Class<? extends Annotation>> ENTRY_METHOD_TYPE_ANNOTATIONS = Arrays.asList(
+            Controller.class,
+            RestController.class,
+            RestControllerAdvice.class,
+            ControllerAdvice.class,
+            Aspect.class,
+            Configuration.class
+    );
+    private static final List<String> ENTRY_NAME_KEYWORDS = Arrays.asList("Controller", "Test", "FallbackFactory");
+
+    @Override
+    public List<Reference> scan(String path) throws InterruptedException {
+        return scan(path, ScanProgress.NONE);
+    }
+
+    @Override
+    public List<Reference> scan(String path, ScanProgress progress) throws InterruptedException {
+        // 本次扫描的索引归会话所有，扫描结束即释放
+        try (AnalysisSession session = new AnalysisSession()) {
+            progress.setText("解析源码...");
+            CtModel ctModel = SpoonModelProvider.getModel(path);
+            progress.checkCanceled();
+            progress.setFraction(0.4);
+            if (ctModel == null) {
+                System.err.println("无法构建Spoon模型用于可达性分析");
+                return new ArrayList<>();
+            }
+
+            List<CtType> types = new ArrayList<>();
+            for (CtType<?> ctType : ctModel.getElements(new TypeFilter<>(CtType.class))) {
+                if (SpoonHelper.filterCtype(ctType)) {
+                    types.add(ctType);
+                }
+            }
+            progress.setText("建立类型引用图...");
+            SpoonHelper.loadAllActualCtTypeMapping(session, types, progress.range(0.4, 0.7));
+
+            progress.setText("建立方法调用图...");
+            ReferenceGraph graph = buildGraph(session, types, progress.range(0.7, 0.95));
+            progress.setText("可达性遍历...");
+            Set<CtElement> reachable = ReachabilityHelper.reachable(graph.roots, graph::successors, graph::dispatch);
+            System.out.println("可达性分析: 入口 " + graph.roots.size() + " 个, 可达节点 " + reachable.size() + "/" + graph.edges.size());
+
+            List<Reference> result = new ArrayList<>();
+            result.addAll(collectDeadTypeIslands(graph, reachable));
+            result.addAll(collectDeadMethodIslands(graph, reachable));
+            System.out.println("无用簇: " + result.size() + " 个");
+            progress.setFraction(1.0);
+            return result;
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            System.err.println("可达性分析失败: " + e.getMessage());
+            e.printStackTrace();
+            return new ArrayList<>();
+        } catch (AssertionError e) {
+            System.err.println("可达性分析断言错误: " + e.getMessage());
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * 建立类和方法混合的引用图：
+     * 类 -> 它引用的类、外部类、匿名/局部类、构造器和初始化代码中调用的方法、随类存活的方法；
+     * 方法 -> 它调用或引用的方法、声明它的类、它重写的方法；
+     * 重写关系另外按被重写的方法索引，遍历时只在实现类可达时才沿分派方向展开
+     */
+    private ReferenceGraph buildGraph(AnalysisSession session, List<CtType> types, ScanProgress progress) throws InterruptedException {
+        ReferenceGraph graph = new ReferenceGraph();
+        int processed = 0;
+        for (CtType<?> ctType : types) {
+            if (++processed % 50 == 0) {
+                progress.checkCanceled();
+                progress.setFraction((double) processed / types.size());
+            }
+            List<CtElement> typeEdges = graph.edgesOf(ctType);
+            typeEdges.addAll(SpoonHelper.getReferences(session, ctType));
+            CtType<?> declaringType = ctType.getDeclaringType();
+            if (declaringType != null) {
+                typeEdges.add(declaringType);
+                if (ctType.isAnonymous() || ctType.isLocalType()) {
+                    graph.edgesOf(declaringType).add(ctType);
+                }
+            }
+            if (isEntryType(ctType)) {
+                graph.roots.add(ctType);
+            }
+            for (CtTypeMember member : ctType.getTypeMembers()) {
+                if (member instanceof CtMethod) {
+                    CtMethod<?> method = (CtMethod<?>) member;
+                    graph.methods.add(method);
+                    List<CtElement> methodEdges = graph.edgesOf(method);
+                    methodEdges.add(ctType);
+                    addInvokedMethods(method, methodEdges);
+                    if (isEntryMethod(method)) {
+                        graph.roots.add(method);
+                    } else if (isTypeBoundMethod(method)) {
+                        typeEdges.add(method);
+                    }
+                    if (hasSupertypes(ctType)) {
+                        for (CtMethod<?> top : method.getTopDefinitions()) {
+                            if (top != method) {
+                                methodEdges.add(top);
+                                graph.overridersOf(top).add(method);
+                            }
+                        }
+                    }
+                } else if (member instanceof CtConstructor || member instanceof CtField || member instanceof CtAnonymousExecutable) {
+                    addInvokedMethods(member, typeEdges);
+                }
+            }
+        }
+        return graph;
+    }
+
+    private static void addInvokedMethods(CtElement element, List<CtElement> edges) {
+        for (CtAbstractInvocation<?> invocation : element.getElements(new TypeFilter<>(CtAbstractInvocation.class))) {
+            addDeclaration(invocation.getExecutable(), edges);
+        }
+        for (CtExecutableReferenceExpression<?, ?> expression : element.getElements(new TypeFilter<>(CtExecutableReferenceExpression.class))) {
+            addDeclaration(expression.getExecutable(), edges);
+        }
+    }
+
+    private static void addDeclaration(CtExecutableReference<?> execRef, List<CtElement> edges) {
+        if (execRef == null) {
+            return;
+        }
+        try {
+            CtExecutable<?> declaration = execRef.getDeclaration();
+            if (declaration instanceof CtMethod) {
+                edges.add(declaration);
+            }
+        } catch (Exception e) {
+            System.err.println("解析方法调用时出错: " + e.getMessage());
+        }
+    }
+
+    private List<Reference> collectDeadTypeIslands(ReferenceGraph graph, Set<CtElement> reachable) {
+        List<CtElement> deadTypes = new ArrayList<>();
+        for (CtElement node : graph.edges.keySet()) {
+            if (node instanceof CtType && !reachable.contains(node)) {
+                CtType<?> ctType = (CtType<?>) node;
+                if (!ctType.isAnonymous() && !ctType.isLocalType()) {
+                    deadTypes.add(ctType);
+                }
+            }
+        }
+        List<Reference> islands = new ArrayList<>();
+        for (List<CtElement> component : ReachabilityHelper.stronglyConnectedComponents(deadTypes, graph::successors)) {
+            Set<String> members = new TreeSet<>();
+            for (CtElement member : component) {
+                members.add(((CtType<?>) member).getQualifiedName());
+            }
+            islands.add(new Reference(members.iterator().next(), members));
+        }
+        islands.sort(Comparator.comparing((Reference r) -> -r.getReferenceClasses().size())
+                .thenComparing(Reference::getOriginalClass));
+        System.out.println("不可达的类: " + deadTypes.size() + " 个, 分为 " + islands.size() + " 个无用类簇");
+        return islands;
+    }
+
+    /**
+     * 只报告所在类可达的无用方法，不可达类中的方法已随类簇一起报告
+     */
+    private List<Reference> collectDeadMethodIslands(ReferenceGraph graph, Set<CtElement> reachable) {
+        List<CtElement> deadMethods = graph.methods.stream()
+                .filter(method -> !reachable.contains(method) && reachable.contains(((CtMethod<?>) method).getDeclaringType()))
+                .collect(Collectors.toList());
+        List<MethodReference> islands = new ArrayList<>();
+        for (List<CtElement> component : ReachabilityHelper.stronglyConnectedComponents(deadMethods, graph::successors)) {
+            Map<String, CtMethod<?>> members = new TreeMap<>();
+            int totalLines = 0;
+            for (CtElement member : component) {
+                CtMethod<?> method = (CtMethod<?>) member;
+                members.put(method.getDeclaringType().getQualifiedName() + "#" + method.getSimpleName(), method);
+                totalLines += lines(method);
+            }
+            CtMethod<?> first = members.values().iterator().next();
+            MethodReference methodReference = new MethodReference();
+            methodReference.setOriginalClass(first.getDeclaringType().getQualifiedName());
+            methodReference.setMethod(first.getSimpleName());
+            methodReference.setMethodDescriptor(first.getSignature());
+            methodReference.setMethodLines(totalLines);
+            methodReference.setReferenceClasses(new TreeSet<>(members.keySet()));
+            islands.add(methodReference);
+        }
+        islands.sort((o1, o2) -> o2.getMethodLines() - o1.getMethodLines());
+        System.out.println("可达类中的无用方法: " + deadMethods.size() + " 个, 分为 " + islands.size() + " 个无用方法簇");
+        return new ArrayList<>(islands);
+    }
+
+    private static boolean isEntryType(CtType<?> ctType) {
+        String qualifiedName = ctType.getQualifiedName();
+        for (String keyword : ENTRY_NAME_KEYWORDS) {
+            if (qualifiedName.contains(keyword)) {
+                return true;
+            }
+        }
+        for (Class<? extends Annotation> annotation : ENTRY_TYPE_ANNOTATIONS) {
+            if (ctType.hasAnnotation(annotation)) {
+                return true;
+            }
+        }
+        return ctType.getMethods().stream().anyMatch(ScanDeadIslandStrategy::isMainMethod);
+    }
+
+    private static boolean isEntryMethod(CtMethod<?> method) {
+        CtType<?> declaringType = method.getDeclaringType();
+        if (isMainMethod(method)
+                || method.hasAnnotation(PostConstruct.class)
+                || Objects.equals(method.getSimpleName(), "afterPropertiesSet")) {
+            return true;
+        }
+        String qualifiedName = declaringType.getQualifiedName();
+        for (String keyword : ENTRY_NAME_KEYWORDS) {
+            if (qualifiedName.contains(keyword)) {
+                return true;
+            }
+        }
+        for (Class<? extends Annotation> annotation : ENTRY_METHOD_TYPE_ANNOTATIONS) {
+            if (declaringType.hasAnnotation(annotation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 随所在类一起存活的方法：ScanAllMethodStrategy 不报告的接口、注解、Builder、MapStruct 类中的方法，
+     * 匿名/局部类中的方法，以及重写了模型之外（JDK或三方库）方法的实现
+     */
+    private static boolean isTypeBoundMethod(CtMethod<?> method) {
+        CtType<?> declaringType = method.getDeclaringType();
+        if (declaringType instanceof CtInterface
+                || declaringType instanceof CtAnnotationType
+                || declaringType.isAnonymous()
+                || declaringType.isLocalType()
+                || declaringType.getQualifiedName().endsWith("Builder")
+                || hasMapStructAnnotation(declaringType)) {
+            return true;
+        }
+        if (method.hasAnnotation(Override.class)) {
+            return method.getTopDefinitions().stream().allMatch(top -> top == method || top.isShadow());
+        }
+        return false;
+    }
+
+    private static boolean isMainMethod(CtMethod<?> method) {
+        return Objects.equals(method.getSimpleName(), "main")
+                && method.isStatic()
+                && method.getParameters().size() == 1;
+    }
+
+    private static boolean hasMapStructAnnotation(CtType<?> ctType) {
+        for (CtAnnotation<? extends Annotation> annotation : ctType.getAnnotations()) {
+            CtTypeReference<?> annotationType = annotation.getAnnotationType();
+            if (annotationType != null && annotationType.getQualifiedName().startsWith("org.mapstruct")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasSupertypes(CtType<?> ctType) {
+        return ctType.getSuperclass() != null || !ctType.getSuperInterfaces().isEmpty();
+    }
+
+    private static int lines(CtMethod<?> method) {
+        SourcePosition position = method.getPosition();
+        if (position == null || !position.isValidPosition()) {
+            return 0;
+        }
+        return position.getEndLine() - position.getLine() + 1;
+    }
+
+    /**
+     * 混合引用图：节点为类或方法，按对象身份存放
+     */
+    private static class ReferenceGraph {
+        final Map<CtElement, List<CtElement>> edges = new IdentityHashMap<>();
+        final List<CtElement> roots = new ArrayList<>();
+        final List<CtElement> methods = new ArrayList<>();
+        // 被重写的方法 -> 实现方法
+        final Map<CtElement, List<CtMethod<?>>> overriders = new IdentityHashMap<>();
+        // 实现类 -> 被重写的方法已可达、只等实现类可达的实现方法
+        final Map<CtElement, List<CtMethod<?>>> pendingDispatch = new IdentityHashMap<>();
+
+        List<CtElement> edgesOf(CtElement node) {
+            return edges.computeIfAbsent(node, k -> new ArrayList<>());
+        }
+
+        List<CtMethod<?>> overridersOf(CtElement method) {
+            return overriders.computeIfAbsent(method, k -> new ArrayList<>());
+        }
+
+        /**
+         * 动态分派：被重写的方法可达且实现类可达时，实现方法才可达。
+         * 被重写的方法展开时，实现类已到达的直接加入，否则挂到实现类上，等实现类展开时再加入
+         */
+        void dispatch(CtElement node, ReachabilityHelper.Worklist<CtElement> worklist) {
+            List<CtMethod<?>> methods = overriders.get(node);
+            if (methods != null) {
+                for (CtMethod<?> overrider : methods) {
+                    CtType<?> declaringType = overrider.getDeclaringType();
+                    if (worklist.isReached(declaringType)) {
+                        worklist.add(overrider);
+                    } else {
+                        pendingDispatch.computeIfAbsent(declaringType, k -> new ArrayList<>()).add(overrider);
+                    }
+                }
+            }
+            List<CtMethod<?>> pending = pendingDispatch.remove(node);
+            if (pending != null) {
+                pending.forEach(worklist::add);
+            }
+        }
+
+        List<CtElement> successors(CtElement node) {
+            List<CtElement> successors = edges.get(node);
+            return successors != null ? successors : Collections.emptyList();
+        }
+    }
+}
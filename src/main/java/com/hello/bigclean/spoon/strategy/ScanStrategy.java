@@ -2,8 +2,10 @@ package com.hello.bigclean.spoon.strategy;
 
 
 import com.hello.bigclean.spoon.reference.Reference;
+import com.hello.bigclean.util.ScanProgress;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * @author hello.sheng
@@ -12,4 +14,21 @@ import java.util.List;
  */
 public interface ScanStrategy {
     List<? extends Reference>  scan(String path) throws InterruptedException;
+
+    /**
+     * 带进度汇报的扫描，取消时抛出 InterruptedException
+     */
+    default List<? extends Reference> scan(String path, ScanProgress progress) throws InterruptedException {
+        return scan(path);
+    }
+
+    /**
+     * 流式扫描：结果逐个交给 sink，调用方（如命令行运行器）可以直接写出，不必再保存一份结果列表。
+     * 字节码和引用文件引擎在判定过程中逐个交付；默认实现（Spoon 等整体判定的引擎）在扫描结束后按结果顺序交付
+     */
+    default void scan(String path, ScanProgress progress, Consumer<? super Reference> sink) throws InterruptedException {
+        for (Reference reference : scan(path, progress)) {
+            sink.accept(reference);
+        }
+    }
 }
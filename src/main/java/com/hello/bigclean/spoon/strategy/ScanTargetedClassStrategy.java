@@ -0,0 +1,287 @@
+package com.hello.bigclean.spoon.strategy;
+
+import com.hello.bigclean.scan.ClassNameMatcher;
+import com.hello.bigclean.scan.ReferenceKind;
+import com.hello.bigclean.scan.SourceStore;
+import com.hello.bigclean.spoon.helper.AnalysisSession;
+import com.hello.bigclean.spoon.helper.SpoonHelper;
+import com.hello.bigclean.spoon.helper.SpoonModelProvider;
+import com.hello.bigclean.spoon.reference.Reference;
+import com.hello.bigclean.util.ProjectFiles;
+import com.hello.bigclean.util.ScanProgress;
+import com.hello.bigclean.util.ScanScheduler;
+import spoon.reflect.CtModel;
+import spoon.reflect.cu.SourcePosition;
+import spoon.reflect.declaration.CtType;
+import spoon.reflect.visitor.filter.TypeFilter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 定向的无用类分析：只判定 path（项目中的某个包目录或源码文件）中的类，不解析整个项目。
+ * 1. 记号预扫：所有 Java 文件经 {@link ClassNameMatcher} 各扫描一遍，找出提到候选类简单名的文件，
+ *    以及声明了同名类的文件（保证模型中的简单名仍解析到原来的类，不会被误解析到候选类上）；
+ * 2. 只用候选文件和上述文件构建 Spoon 模型；
+ * 3. 在这个小模型上按 ScanAllClassStrategy 的规则确认候选类是否被其他类引用。
+ * 要引用一个类，源码中必然出现它的简单名（同一文件内的引用由候选文件本身覆盖），因此结果与全量扫描一致，
+ * 模型大小只与候选类的被提及范围有关。项目根目录由候选文件的包声明推出源码根目录，再向上找到构建文件所在的最外层目录。
+ */
+public class ScanTargetedClassStrategy implements ScanStrategy {
+    private static final Pattern PACKAGE_PATTERN = Pattern.compile("(?m)^\\s*package\\s+([\\w.]+)\\s*;");
+    private static final List<String> BUILD_FILES = Arrays.asList(
+            "pom.xml", "build.gradle", "build.gradle.kts", "settings.gradle", "settings.gradle.kts");
+
+    @Override
+    public List<Reference> scan(String path) throws InterruptedException {
+        return scan(path, ScanProgress.NONE);
+    }
+
+    @Override
+    public List<Reference> scan(String path, ScanProgress progress) throws InterruptedException {
+        try {
+            return scan(locateProjectRoot(Paths.get(path)).toString(), path, progress);
+        } catch (IOException e) {
+            System.err.println("定位项目根目录失败: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * 在 rootDir 范围内判定 scopePath 中的类
+     */
+    public List<Reference> scan(String rootDir, String scopePath, ScanProgress progress) throws InterruptedException {
+        List<Path> candidateFiles;
+        try {
+            candidateFiles = findJavaFiles(Paths.get(scopePath));
+        } catch (IOException e) {
+            System.err.println("查找Java文件失败: " + e.getMessage());
+            return new ArrayList<>();
+        }
+        if (candidateFiles.isEmpty()) {
+            System.out.println("范围内没有Java文件: " + scopePath);
+            return new ArrayList<>();
+        }
+        return verify(rootDir, candidateFiles, progress);
+    }
+
+    /**
+     * 在 rootDir 范围内判定给定源码文件中的类，其余文件只作为可能的引用方
+     */
+    public List<Reference> verify(String rootDir, Collection<Path> files, ScanProgress progress) throws InterruptedException {
+        SourceStore sourceStore = new SourceStore();
+        Set<Path> candidateFiles;
+        List<Path> related;
+        try {
+            progress.setText("查找Java文件...");
+            List<Path> allFiles = findJavaFiles(ProjectFiles.walk(rootDir));
+            candidateFiles = files.stream().map(ScanTargetedClassStrategy::normalize)
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+            allFiles.removeAll(candidateFiles);
+
+            progress.setText("预扫描候选类名...");
+            Set<String> candidateNames = new HashSet<>();
+            for (Set<String> names : ScanScheduler.map(new ArrayList<>(candidateFiles),
+                    file -> declaredNames(sourceStore, file), progress.range(0, 0.1))) {
+                candidateNames.addAll(names);
+            }
+            ClassNameMatcher matcher = new ClassNameMatcher(candidateNames);
+            related = ScanScheduler.map(allFiles,
+                    file -> isRelated(sourceStore, file, matcher, candidateNames) ? file : null, progress.range(0.1, 0.3));
+            System.out.println("定向分析: 候选文件 " + candidateFiles.size() + " 个，相关文件 " + related.size() + "/" + allFiles.size() + " 个");
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            System.err.println("定向分析失败: " + e.getMessage());
+            e.printStackTrace();
+            return new ArrayList<>();
+        } finally {
+            sourceStore.clear();
+        }
+        return verify(candidateFiles, related, progress.range(0.3, 1.0));
+    }
+
+    /**
+     * 判定给定源码文件中的类，模型只包含这些文件和 related（提到其中类名或声明了同名类的文件）。
+     * 调用方已有记号索引时（如分层分析）直接传入相关文件，不再重新扫描项目
+     */
+    public List<Reference> verify(Collection<Path> files, Collection<Path> related, ScanProgress progress) throws InterruptedException {
+        try (AnalysisSession session = new AnalysisSession()) {
+            Set<Path> candidateFiles = files.stream().map(ScanTargetedClassStrategy::normalize)
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+            progress.setText("解析相关源码...");
+            List<Path> modelFiles = new ArrayList<>(candidateFiles);
+            for (Path file : related) {
+                if (!candidateFiles.contains(normalize(file))) {
+                    modelFiles.add(file);
+                }
+            }
+            CtModel ctModel = SpoonModelProvider.buildModel(modelFiles);
+            progress.checkCanceled();
+            progress.setFraction(0.45);
+            if (ctModel == null) {
+                return new ArrayList<>();
+            }
+
+            List<CtType> elements = ctModel.getElements(new TypeFilter<>(CtType.class));
+            List<CtType> refElements = elements.stream().filter(SpoonHelper::filterCtype).collect(Collectors.toList());
+            progress.setText("建立类型引用图...");
+            SpoonHelper.loadAllActualCtTypeMapping(session, refElements, progress.range(0.45, 0.95));
+
+            progress.setText("检查类的使用情况...");
+            Map<String, Reference> referenceMap = new TreeMap<>();
+            for (CtType<?> ctType : refElements) {
+                if (!isInFiles(ctType, candidateFiles)
+                        || !ScanAllClassStrategy.isCandidate(ctType)
+                        || SpoonHelper.isClassUsed(session, ctType)) {
+                    continue;
+                }
+                String oriClass = ctType.getPackage() + "." + ctType.getSimpleName();
+                referenceMap.putIfAbsent(oriClass, new Reference(oriClass, null));
+            }
+            progress.setFraction(1.0);
+            return new ArrayList<>(referenceMap.values());
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            System.err.println("定向分析失败: " + e.getMessage());
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * 文件中声明的所有类名（包括嵌套类）
+     */
+    private static Set<String> declaredNames(SourceStore sourceStore, Path file) {
+        Set<String> names = new HashSet<>();
+        CharSequence source = readChars(sourceStore, file);
+        sourceStore.release(file);
+        if (source != null) {
+            ClassNameMatcher.DECLARATIONS_ONLY.match(source, new ClassNameMatcher.Listener() {
+                @Override
+                public boolean onReference(int nameId, ReferenceKind kind) {
+                    return true;
+                }
+
+                @Override
+                public boolean onDeclaration(CharSequence buffer, int start, int end) {
+                    names.add(ClassNameMatcher.decode(buffer, start, end));
+                    return true;
+                }
+            });
+        }
+        return names;
+    }
+
+    /**
+     * 文件提到了某个候选类名，或声明了与候选类同名的类；读取失败时保守地计入
+     */
+    private static boolean isRelated(SourceStore sourceStore, Path file, ClassNameMatcher matcher, Set<String> candidateNames) {
+        CharSequence source = readChars(sourceStore, file);
+        sourceStore.release(file);
+        if (source == null) {
+            return true;
+        }
+        boolean[] related = {false};
+        matcher.match(source, new ClassNameMatcher.Listener() {
+            @Override
+            public boolean onReference(int nameId, ReferenceKind kind) {
+                related[0] = true;
+                return false;
+            }
+
+            @Override
+            public boolean onDeclaration(CharSequence buffer, int start, int end) {
+                related[0] = candidateNames.contains(ClassNameMatcher.decode(buffer, start, end));
+                return !related[0];
+            }
+        });
+        return related[0];
+    }
+
+    private static boolean isInFiles(CtType<?> ctType, Set<Path> files) {
+        SourcePosition position = ctType.getPosition();
+        File file = position.isValidPosition() ? position.getFile() : null;
+        return file != null && files.contains(normalize(file.toPath()));
+    }
+
+    /**
+     * 项目根目录：由第一个源码文件的包声明推出源码根目录，再向上找到连续带有构建文件的最外层目录；
+     * 找不到构建文件时取源码根目录
+     */
+    static Path locateProjectRoot(Path scope) throws IOException {
+        Path sourceRoot = normalize(Files.isDirectory(scope) ? scope : scope.getParent());
+        List<Path> files = findJavaFiles(scope);
+        if (!files.isEmpty()) {
+            Matcher matcher = PACKAGE_PATTERN.matcher(new String(Files.readAllBytes(files.get(0)), "UTF-8"));
+            Path dir = normalize(files.get(0)).getParent();
+            if (matcher.find()) {
+                for (int i = matcher.group(1).split("\\.").length; i > 0 && dir.getParent() != null; i--) {
+                    dir = dir.getParent();
+                }
+            }
+            sourceRoot = dir;
+        }
+        Path root = null;
+        for (Path dir = sourceRoot; dir != null; dir = dir.getParent()) {
+            if (hasBuildFile(dir)) {
+                root = dir;
+            } else if (root != null) {
+                break;
+            }
+        }
+        return root != null ? root : sourceRoot;
+    }
+
+    private static boolean hasBuildFile(Path dir) {
+        for (String buildFile : BUILD_FILES) {
+            if (Files.isRegularFile(dir.resolve(buildFile))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Path> findJavaFiles(Path path) throws IOException {
+        return findJavaFiles(Files.walk(path));
+    }
+
+    private static List<Path> findJavaFiles(Stream<Path> walk) {
+        try (Stream<Path> paths = walk) {
+            return paths.filter(file -> file.toString().endsWith(".java"))
+                    .filter(Files::isRegularFile)
+                    .map(ScanTargetedClassStrategy::normalize)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static Path normalize(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+
+    private static CharSequence readChars(SourceStore sourceStore, Path file) {
+        try {
+            return sourceStore.chars(file);
+        } catch (IOException e) {
+            System.err.println("读取文件时出错 " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
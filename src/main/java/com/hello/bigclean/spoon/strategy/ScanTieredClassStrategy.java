@@ -0,0 +1,44 @@
+package com.hello.bigclean.spoon.strategy;
+
+import com.hello.bigclean.scan.FindUnusedClasses;
+import com.hello.bigclean.spoon.reference.Reference;
+import com.hello.bigclean.util.ScanProgress;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分层的无用类分析：先用正则引擎的记号索引（{@link FindUnusedClasses}，带增量缓存）确认绝大多数类已被使用，
+ * 只把无法确认的文件交给 Spoon 验证（{@link ScanTargetedClassStrategy#verify}），
+ * 模型只包含这些文件和索引中提到它们类名的文件，不再重新扫描项目。
+ * 声明了多个类的文件（含嵌套类、次要顶层类）总是交给 Spoon 验证，结果与 ScanAllClassStrategy 的判定规则相同，耗时接近正则分析。
+ */
+public class ScanTieredClassStrategy implements ScanStrategy {
+
+    @Override
+    public List<Reference> scan(String path) throws InterruptedException {
+        return scan(path, ScanProgress.NONE);
+    }
+
+    @Override
+    public List<Reference> scan(String path, ScanProgress progress) throws InterruptedException {
+        FindUnusedClasses.UnconfirmedFiles unconfirmed;
+        FindUnusedClasses finder = new FindUnusedClasses(path);
+        try {
+            progress.setText("记号预筛...");
+            unconfirmed = finder.findUnconfirmedFiles(progress.range(0, 0.3));
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            System.err.println("记号预筛失败: " + e.getMessage());
+            e.printStackTrace();
+            return new ArrayList<>();
+        } finally {
+            finder.shutdown();
+        }
+        if (unconfirmed.getFiles().isEmpty()) {
+            return new ArrayList<>();
+        }
+        return new ScanTargetedClassStrategy().verify(unconfirmed.getFiles(), unconfirmed.getRelatedFiles(), progress.range(0.3, 1.0));
+    }
+}
@@ -14,6 +14,13 @@ public class StrategyFactory {
     static {
         scanStrategyMap.put("SCAN_ALL_CLASS", new ScanAllClassStrategy());
         scanStrategyMap.put("SCAN_ALL_METHOD", new ScanAllMethodStrategy());
+        scanStrategyMap.put("SCAN_DEAD_ISLAND", new ScanDeadIslandStrategy());
+        scanStrategyMap.put("SCAN_ALL_CLASS_BYTECODE", new ScanAllClassBytecodeStrategy());
+        scanStrategyMap.put("SCAN_ALL_METHOD_BYTECODE", new ScanAllMethodBytecodeStrategy());
+        scanStrategyMap.put("SCAN_CLASS_TARGETED", new ScanTargetedClassStrategy());
+        scanStrategyMap.put("SCAN_ALL_CLASS_TIERED", new ScanTieredClassStrategy());
+        scanStrategyMap.put("SCAN_ALL_CLASS_JAVAC", new ScanAllClassJavacStrategy());
+        scanStrategyMap.put("SCAN_ALL_METHOD_JAVAC", new ScanAllMethodJavacStrategy());
     }
     public static ScanStrategy obtainScanner(String mode){
         return scanStrategyMap.get(mode);
@@ -25,4 +32,13 @@ public class StrategyFactory {
     public static boolean isMethodMode(String mode){
         return Objects.equals("SCAN_ALL_METHOD", mode);
     }
+    public static boolean isIslandMode(String mode){
+        return Objects.equals("SCAN_DEAD_ISLAND", mode);
+    }
+    public static boolean isBytecodeClassMode(String mode){
+        return Objects.equals("SCAN_ALL_CLASS_BYTECODE", mode);
+    }
+    public static boolean isBytecodeMethodMode(String mode){
+        return Objects.equals("SCAN_ALL_METHOD_BYTECODE", mode);
+    }
 }
@@ -0,0 +1,85 @@
+package com.hello.bigclean.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 项目文件的遍历入口：各引擎从这里查找源码、编译输出和引用文件。
+ * 默认遍历整个根目录；指定了输入目录（命令行的 --input）时，该根目录只遍历这些目录和文件。
+ * Gradle 插件借此让分析读取的文件与任务声明的输入一致，根项目目录下嵌套的子模块不会被读到。
+ * 输入在进程内全局生效，命令行运行器在每次分析结束时清除
+ */
+public class ProjectFiles {
+    private static volatile Path inputRoot;
+    private static volatile List<Path> inputs = Collections.emptyList();
+
+    /**
+     * 限定根目录的遍历范围，inputs 为空时恢复遍历整个根目录
+     */
+    public static synchronized void setInputs(Path root, Collection<Path> paths) {
+        List<Path> normalized = new ArrayList<>();
+        for (Path path : paths) {
+            normalized.add(normalize(path));
+        }
+        // 嵌套在其他输入中的目录只遍历一次
+        List<Path> distinct = new ArrayList<>();
+        for (Path path : normalized) {
+            boolean nested = false;
+            for (Path other : normalized) {
+                if (!other.equals(path) && path.startsWith(other)) {
+                    nested = true;
+                    break;
+                }
+            }
+            if (!nested && !distinct.contains(path)) {
+                distinct.add(path);
+            }
+        }
+        inputs = Collections.unmodifiableList(distinct);
+        inputRoot = distinct.isEmpty() ? null : normalize(root);
+    }
+
+    /**
+     * 根目录实际要遍历的目录或文件：指定了输入时为其中存在的部分，否则为根目录本身
+     */
+    public static synchronized List<Path> roots(String rootDir) {
+        Path root = Paths.get(rootDir);
+        if (inputRoot == null || !normalize(root).equals(inputRoot)) {
+            return Collections.singletonList(root);
+        }
+        List<Path> existing = new ArrayList<>();
+        for (Path input : inputs) {
+            if (Files.exists(input)) {
+                existing.add(input);
+            }
+        }
+        return existing;
+    }
+
+    /**
+     * 遍历根目录下的文件，同 {@link Files#walk}，使用完需要关闭
+     */
+    public static Stream<Path> walk(String rootDir) throws IOException {
+        Stream<Path> paths = Stream.empty();
+        try {
+            for (Path root : roots(rootDir)) {
+                paths = Stream.concat(paths, Files.walk(root));
+            }
+        } catch (IOException | RuntimeException e) {
+            paths.close();
+            throw e;
+        }
+        return paths;
+    }
+
+    private static Path normalize(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+}
@@ -0,0 +1,69 @@
+package com.hello.bigclean.util;
+
+/**
+ * 分析进度回调：各分析引擎通过它汇报当前阶段和完成比例，并在循环中检查是否已被取消。
+ * 引擎本身不依赖 IDE，由调用方把它适配到 IDE 的进度条上。
+ */
+public interface ScanProgress {
+    /**
+     * 不汇报进度、不可取消
+     */
+    ScanProgress NONE = new ScanProgress() {
+        @Override
+        public void setText(String text) {
+        }
+
+        @Override
+        public void setFraction(double fraction) {
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return false;
+        }
+    };
+
+    /**
+     * 当前阶段描述
+     */
+    void setText(String text);
+
+    /**
+     * 完成比例，取值 0~1
+     */
+    void setFraction(double fraction);
+
+    boolean isCanceled();
+
+    /**
+     * 已取消时抛出 InterruptedException，由引擎向上传播直到任务结束
+     */
+    default void checkCanceled() throws InterruptedException {
+        if (isCanceled()) {
+            throw new InterruptedException("分析已取消");
+        }
+    }
+
+    /**
+     * 把 [start, end] 区间映射为子阶段的 0~1，便于多阶段的引擎分段汇报
+     */
+    default ScanProgress range(double start, double end) {
+        ScanProgress parent = this;
+        return new ScanProgress() {
+            @Override
+            public void setText(String text) {
+                parent.setText(text);
+            }
+
+            @Override
+            public void setFraction(double fraction) {
+                parent.setFraction(start + (end - start) * Math.max(0, Math.min(1, fraction)));
+            }
+
+            @Override
+            public boolean isCanceled() {
+                return parent.isCanceled();
+            }
+        };
+    }
+}
@@ -0,0 +1,118 @@
+package com.hello.bigclean.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 扫描调度器：基于工作窃取的 ForkJoinPool 并行处理列表元素。
+ * 并行度取系统属性 bigclean.scan.parallelism（可在 IDE 的 VM Options 中设置），未设置时取CPU核数。
+ * 任务按需二分切块：只有其他线程空闲（本地队列没有富余任务）时才继续拆分，大小不均的元素也能均衡分配。
+ * 每个叶子任务把结果写入自己的局部列表，合并时按输入顺序拼接，无需加锁且结果顺序稳定。
+ */
+public class ScanScheduler {
+    public static final String PARALLELISM_PROPERTY = "bigclean.scan.parallelism";
+    // 本地队列中富余任务超过该数量时不再拆分
+    private static final int SURPLUS_THRESHOLD = 3;
+
+    private static ForkJoinPool pool;
+
+    /**
+     * 当前配置的并行度
+     */
+    public static int parallelism() {
+        int parallelism = Integer.getInteger(PARALLELISM_PROPERTY, Runtime.getRuntime().availableProcessors());
+        return Math.max(1, parallelism);
+    }
+
+    /**
+     * 共享的扫描线程池，并行度配置变化时重新创建。
+     * 旧线程池不关闭：其他页签正在进行的扫描仍在使用它，任务执行完后空闲线程会自行退出
+     */
+    public static synchronized ForkJoinPool pool() {
+        int parallelism = parallelism();
+        if (pool == null || pool.getParallelism() != parallelism) {
+            pool = new ForkJoinPool(parallelism);
+        }
+        return pool;
+    }
+
+    /**
+     * 并行地对每个元素执行 mapper，返回与输入顺序一致的结果列表，mapper 返回 null 的元素不计入结果
+     */
+    public static <T, R> List<R> map(List<T> items, Function<? super T, ? extends R> mapper) {
+        if (items.isEmpty()) {
+            return Collections.emptyList();
+        }
+        ForkJoinPool forkJoinPool = pool();
+        // 最小块：保证每个线程至少能分到若干块，避免拆得过细
+        int minChunk = Math.max(1, items.size() / (forkJoinPool.getParallelism() * 8));
+        return forkJoinPool.invoke(new MapTask<T, R>(items, 0, items.size(), minChunk, mapper));
+    }
+
+    /**
+     * 同 {@link #map(List, Function)}，并按已完成的元素数汇报进度；取消后剩余元素直接跳过，结束时抛出 InterruptedException
+     */
+    public static <T, R> List<R> map(List<T> items, Function<? super T, ? extends R> mapper, ScanProgress progress) throws InterruptedException {
+        int total = items.size();
+        int step = Math.max(1, total / 100);
+        AtomicInteger completed = new AtomicInteger();
+        List<R> result = map(items, item -> {
+            if (progress.isCanceled()) {
+                return null;
+            }
+            R value = mapper.apply(item);
+            int done = completed.incrementAndGet();
+            if (done % step == 0 || done == total) {
+                progress.setFraction((double) done / total);
+            }
+            return value;
+        });
+        progress.checkCanceled();
+        return result;
+    }
+
+    private static class MapTask<T, R> extends RecursiveTask<List<R>> {
+        private final List<T> items;
+        private final int from;
+        private final int to;
+        private final int minChunk;
+        private final Function<? super T, ? extends R> mapper;
+
+        MapTask(List<T> items, int from, int to, int minChunk, Function<? super T, ? extends R> mapper) {
+            this.items = items;
+            this.from = from;
+            this.to = to;
+            this.minChunk = minChunk;
+            this.mapper = mapper;
+        }
+
+        @Override
+        protected List<R> compute() {
+            if (to - from > minChunk && getSurplusQueuedTaskCount() <= SURPLUS_THRESHOLD) {
+                int mid = (from + to) >>> 1;
+                MapTask<T, R> right = new MapTask<T, R>(items, mid, to, minChunk, mapper);
+                right.fork();
+                List<R> left = new MapTask<T, R>(items, from, mid, minChunk, mapper).compute();
+                List<R> rightResult = right.join();
+                if (left.isEmpty()) {
+                    return rightResult;
+                }
+                left.addAll(rightResult);
+                return left;
+            }
+            List<R> result = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                R value = mapper.apply(items.get(i));
+                if (value != null) {
+                    result.add(value);
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.hello.bigclean.javac;
+
+import com.hello.bigclean.bytecode.MethodCall;
+import com.hello.bigclean.bytecode.MethodInfo;
+import com.hello.bigclean.spoon.reference.MethodReference;
+import com.hello.bigclean.spoon.reference.Reference;
+import com.hello.bigclean.spoon.strategy.ScanAllMethodBytecodeStrategy;
+import com.hello.bigclean.spoon.strategy.ScanAllMethodJavacStrategy;
+import com.sun.source.util.JavacTask;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReferenceCollectorTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void recordsIteratorCallsOfEnhancedForLoops() throws IOException {
+        source("p/Bag.java", "package p; import java.util.*;"
+                + " public class Bag implements Iterable<String> {"
+                + "  public Iterator<String> iterator() { return Collections.<String>emptyList().iterator(); }"
+                + " }");
+        source("p/Loops.java", "package p;"
+                + " public class Loops {"
+                + "  void bag(Bag bag) { for (String s : bag) { } }"
+                + "  <T extends Bag> void bounded(T bag) { for (String s : bag) { } }"
+                + "  void array(String[] values) { for (String s : values) { } }"
+                + " }");
+        ReferenceFile references = compile();
+
+        List<MethodCall> bag = calls(references, "p/Loops", "bag(Lp/Bag;)V");
+        assertTrue(bag.toString(), bag.contains(new MethodCall("p/Bag", "iterator", "()Ljava/util/Iterator;", true)));
+        assertTrue(bag.toString(), bag.contains(new MethodCall("java/util/Iterator", "hasNext", "()Z", true)));
+        assertTrue(bag.toString(), bag.contains(new MethodCall("java/util/Iterator", "next", "()Ljava/lang/Object;", true)));
+        // 类型变量取上界的擦除
+        assertTrue(calls(references, "p/Loops", "bounded(Lp/Bag;)V")
+                .contains(new MethodCall("p/Bag", "iterator", "()Ljava/util/Iterator;", true)));
+        assertTrue(calls(references, "p/Loops", "array([Ljava/lang/String;)V").isEmpty());
+    }
+
+    @Test
+    public void recordsCloseCallsOfTryWithResources() throws IOException {
+        source("p/Res.java", "package p; public class Res implements AutoCloseable { public void close() { } }");
+        source("p/Sub.java", "package p; public class Sub extends Res { }");
+        source("p/Use.java", "package p;"
+                + " public class Use {"
+                + "  void res() { try (Res r = new Res(); Sub s = new Sub()) { } }"
+                + "  <T extends Object & AutoCloseable> void bounded(T t) throws Exception { try (T r = t) { } }"
+                + " }");
+        ReferenceFile references = compile();
+
+        List<MethodCall> res = calls(references, "p/Use", "res()V");
+        assertTrue(res.toString(), res.contains(new MethodCall("p/Res", "close", "()V", true)));
+        // 继承来的 close 仍按资源的静态类型调用，与字节码相同
+        assertTrue(res.toString(), res.contains(new MethodCall("p/Sub", "close", "()V", true)));
+        // 上界擦除后不是 AutoCloseable 时，javac 先转型再调用
+        assertTrue(calls(references, "p/Use", "bounded(Ljava/lang/Object;)V")
+                .contains(new MethodCall("java/lang/AutoCloseable", "close", "()V", true)));
+    }
+
+    @Test
+    public void javacEngineMatchesBytecodeEngine() throws Exception {
+        source("p/Bag.java", "package p; import java.util.*;"
+                + " public class Bag implements Iterable<String> {"
+                + "  public Iterator<String> iterator() { return Collections.<String>emptyList().iterator(); }"
+                + " }");
+        source("p/Res.java", "package p; public class Res implements AutoCloseable { public void close() { } }");
+        source("p/Main.java", "package p;"
+                + " public class Main {"
+                + "  public static void main(String[] args) {"
+                + "   for (String s : new Bag()) { }"
+                + "   try (Res r = new Res()) { }"
+                + "  }"
+                + "  void unused() { }"
+                + " }");
+        compile();
+
+        String root = folder.getRoot().getPath();
+        List<String> javac = methods(new ScanAllMethodJavacStrategy().scan(root));
+        assertEquals(Collections.singletonList("p.Main.unused"), javac);
+        assertEquals(methods(new ScanAllMethodBytecodeStrategy().scan(root)), javac);
+    }
+
+    @Test
+    public void compileErrorKeepsPreviousReferenceFile() throws IOException {
+        source("p/A.java", "package p; public class A { void a() { new B().b(); } }");
+        source("p/B.java", "package p; public class B { void b() { } }");
+        ReferenceFile before = compile();
+
+        // A 先于出错的 B 完成分析，其记录不能合并进引用文件
+        source("p/A.java", "package p; public class A { void a() { new B().c(); } }");
+        source("p/B.java", "package p; public class B { void b() { } Missing m; }");
+        Path output = folder.getRoot().toPath().resolve("build/bigclean").resolve(ReferenceFile.FILE_NAME);
+        byte[] bytes = Files.readAllBytes(output);
+        compile(false);
+
+        assertArrayEquals(bytes, Files.readAllBytes(output));
+        assertEquals(before.getUnits(), ReferenceFile.read(output).getUnits());
+    }
+
+    private void source(String name, String content) throws IOException {
+        Path file = folder.getRoot().toPath().resolve("src").resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 带插件编译 src 下的所有源码，返回引用文件的内容
+     */
+    private ReferenceFile compile() throws IOException {
+        return compile(true);
+    }
+
+    private ReferenceFile compile(boolean success) throws IOException {
+        Path root = folder.getRoot().toPath();
+        Path classes = Files.createDirectories(root.resolve("build/classes/java/main"));
+        Path output = root.resolve("build/bigclean").resolve(ReferenceFile.FILE_NAME);
+        List<File> sources = new ArrayList<>();
+        Files.walk(root.resolve("src")).filter(path -> path.toString().endsWith(".java")).forEach(path -> sources.add(path.toFile()));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            JavacTask task = (JavacTask) compiler.getTask(null, fileManager, null,
+                    Arrays.asList("-d", classes.toString(), "-proc:none"), null, fileManager.getJavaFileObjectsFromFiles(sources));
+            new ReferenceRecorderPlugin().init(task, output.toString());
+            assertEquals("compilation result", success, task.call());
+        }
+        return ReferenceFile.read(output);
+    }
+
+    private static List<String> methods(List<? extends Reference> references) {
+        List<String> methods = new ArrayList<>();
+        for (Reference reference : references) {
+            methods.add(reference.getOriginalClass() + "." + ((MethodReference) reference).getMethod());
+        }
+        Collections.sort(methods);
+        return methods;
+    }
+
+    private static List<MethodCall> calls(ReferenceFile references, String className, String methodKey) {
+        for (ClassRecord record : references.getClasses()) {
+            if (className.equals(record.getName())) {
+                MethodInfo method = record.getMethods().get(methodKey);
+                if (method == null) {
+                    throw new AssertionError("missing method " + className + "." + methodKey + " in " + record.getMethods().keySet());
+                }
+                return method.getCalls();
+            }
+        }
+        throw new AssertionError("missing class " + className);
+    }
+}
@@ -0,0 +1,144 @@
+package com.hello.bigclean.javac;
+
+import com.hello.bigclean.bytecode.MethodCall;
+import com.hello.bigclean.bytecode.MethodInfo;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ReferenceFileTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writtenRecordsAreReadBack() throws IOException {
+        Path source = folder.newFile("Foo.java").toPath();
+        ClassRecord foo = record("com/foo/Foo", "com/foo/Base");
+        foo.getInterfaces().add("java/lang/Runnable");
+        foo.getAnnotations().add("Lcom/foo/Marker;");
+        foo.getReferences().addAll(Arrays.asList("com/foo/Base", "com/foo/Foo$Inner"));
+        MethodInfo run = method(foo, "run", "()V", 12, 15);
+        run.getAnnotations().add("Ljava/lang/Override;");
+        run.getCalls().add(new MethodCall("com/foo/Foo$Inner", "<init>", "(Lcom/foo/Foo;)V", false));
+        run.getCalls().add(new MethodCall("java/util/List", "size", "()I", true));
+        method(foo, "run", "(I)V", 17, 17);
+        // 父类为空的记录（同 java/lang/Object）也要能读回
+        ClassRecord inner = record("com/foo/Foo$Inner", null);
+
+        ReferenceFile written = new ReferenceFile();
+        written.merge(units(source, foo, inner));
+        Path file = folder.getRoot().toPath().resolve("build").resolve(ReferenceFile.FILE_NAME);
+        written.write(file);
+
+        ReferenceFile read = ReferenceFile.read(file);
+        assertEquals(written.getUnits(), read.getUnits());
+        ClassRecord readFoo = read.getClasses().get(0);
+        assertEquals(Arrays.asList("run()V", "run(I)V"), Arrays.asList(readFoo.getMethods().keySet().toArray()));
+        assertEquals("com/foo/Foo", readFoo.getMethods().get("run()V").getOwner());
+        assertNull(read.getClasses().get(1).getSuperName());
+    }
+
+    @Test
+    public void mergeReplacesRecompiledUnitsAndDropsDeletedSources() throws IOException {
+        Path kept = folder.newFile("Kept.java").toPath();
+        Path changed = folder.newFile("Changed.java").toPath();
+        Path deleted = folder.newFile("Deleted.java").toPath();
+        ReferenceFile referenceFile = new ReferenceFile();
+        Map<String, List<ClassRecord>> first = units(kept, record("p/Kept", "java/lang/Object"));
+        first.putAll(units(changed, record("p/Changed", "java/lang/Object")));
+        first.putAll(units(deleted, record("p/Deleted", "java/lang/Object")));
+        referenceFile.merge(first);
+
+        Files.delete(deleted);
+        referenceFile.merge(units(changed, record("p/Renamed", "java/lang/Object")));
+
+        assertEquals(Arrays.asList(kept.toString(), changed.toString()), Arrays.asList(referenceFile.getUnits().keySet().toArray()));
+        assertEquals("p/Kept", referenceFile.getUnits().get(kept.toString()).get(0).getName());
+        assertEquals("p/Renamed", referenceFile.getUnits().get(changed.toString()).get(0).getName());
+    }
+
+    @Test
+    public void missingFileReadsAsEmpty() throws IOException {
+        ReferenceFile referenceFile = ReferenceFile.read(folder.getRoot().toPath().resolve(ReferenceFile.FILE_NAME));
+        assertTrue(referenceFile.getUnits().isEmpty());
+    }
+
+    @Test
+    public void fileOfAnotherVersionIsRejected() throws IOException {
+        Path file = folder.getRoot().toPath().resolve(ReferenceFile.FILE_NAME);
+        new ReferenceFile().write(file);
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer.wrap(bytes).putInt(4, 2);
+        Files.write(file, bytes);
+        assertRejected(file);
+
+        Files.write(file, "not a reference file".getBytes(StandardCharsets.UTF_8));
+        assertRejected(file);
+    }
+
+    @Test
+    public void findsReferenceFilesOfAllModules() throws IOException {
+        Path root = folder.getRoot().toPath();
+        Path app = root.resolve("app/build/classes/java/main").resolve(ReferenceFile.FILE_NAME);
+        Path lib = root.resolve("lib/build/classes/java/main").resolve(ReferenceFile.FILE_NAME);
+        new ReferenceFile().write(app);
+        new ReferenceFile().write(lib);
+        Files.createDirectories(root.resolve("docs").resolve(ReferenceFile.FILE_NAME));
+
+        List<Path> found = ReferenceFile.find(root.toString());
+        Collections.sort(found);
+        assertEquals(Arrays.asList(app, lib), found);
+    }
+
+    private static void assertRejected(Path file) {
+        try {
+            ReferenceFile.read(file);
+            fail("expected IOException for " + file);
+        } catch (IOException expected) {
+            // 格式不符
+        }
+    }
+
+    private static ClassRecord record(String name, String superName) {
+        ClassRecord record = new ClassRecord();
+        record.setName(name);
+        record.setSimpleName(name.substring(Math.max(name.lastIndexOf('/'), name.lastIndexOf('$')) + 1));
+        record.setSuperName(superName);
+        record.setAccess(0x0021);
+        return record;
+    }
+
+    private static MethodInfo method(ClassRecord owner, String name, String descriptor, int firstLine, int lastLine) {
+        MethodInfo method = new MethodInfo();
+        method.setOwner(owner.getName());
+        method.setName(name);
+        method.setDescriptor(descriptor);
+        method.setAccess(0x0001);
+        method.setFirstLine(firstLine);
+        method.setLastLine(lastLine);
+        owner.getMethods().put(method.getKey(), method);
+        return method;
+    }
+
+    private static Map<String, List<ClassRecord>> units(Path source, ClassRecord... records) {
+        Map<String, List<ClassRecord>> units = new LinkedHashMap<>();
+        units.put(source.toString(), Arrays.asList(records));
+        return units;
+    }
+}
@@ -0,0 +1,60 @@
+package com.hello.bigclean.scan;
+
+import com.hello.bigclean.util.ScanProgress;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+
+public class FindUnusedClassesTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path root;
+    private FindUnusedClasses finder;
+
+    @Before
+    public void setUp() throws IOException {
+        root = folder.getRoot().toPath().toAbsolutePath().normalize();
+        Files.createDirectories(root.resolve(".idea"));
+        finder = new FindUnusedClasses(root.toString());
+    }
+
+    @After
+    public void tearDown() {
+        finder.shutdown();
+    }
+
+    @Test
+    public void unconfirmedFilesComeWithTheirReferrersFromTheIndex() throws Exception {
+        Path main = write("Main.java", "public class Main { Outer outer; }");
+        // 主类已被使用，但嵌套类和次要顶层类仍需验证
+        Path outer = write("Outer.java", "public class Outer { static class Inner {} } class Helper {}");
+        Path user = write("User.java", "public class User { Helper helper; }");
+        Path shadow = write("Shadow.java", "public class Shadow { class Inner {} }");
+        Path other = write("Other.java", "public class Other { User user; Main main; }");
+        Path info = write("package-info.java", "@Marker package p;");
+        Path marker = write("Marker.java", "public @interface Marker {} class MarkerValue {}");
+
+        FindUnusedClasses.UnconfirmedFiles result = finder.findUnconfirmedFiles(ScanProgress.NONE);
+
+        // Other 没有被引用；Shadow 的嵌套类与 Outer.Inner 重名
+        assertEquals(new HashSet<>(Arrays.asList(outer, shadow, other, marker)), new HashSet<>(result.getFiles()));
+        // 提到待验证类名的文件（包括 package-info）作为引用方一同解析，User 只引用了 Helper
+        assertEquals(new HashSet<>(Arrays.asList(main, user, info)), new HashSet<>(result.getRelatedFiles()));
+    }
+
+    private Path write(String name, String source) throws IOException {
+        return Files.write(root.resolve(name), source.getBytes(StandardCharsets.UTF_8));
+    }
+}
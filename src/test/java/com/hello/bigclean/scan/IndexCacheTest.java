@@ -0,0 +1,225 @@
+package com.hello.bigclean.scan;
+
+import com.hello.bigclean.util.ScanProgress;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class IndexCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ExecutorService executor;
+    private Path root;
+    private Path alpha;
+    private Path beta;
+
+    @Before
+    public void setUp() throws IOException {
+        executor = Executors.newFixedThreadPool(2);
+        root = folder.getRoot().toPath().toAbsolutePath().normalize();
+        // 有 .idea 目录时索引文件写在项目内，不会落到用户目录
+        Files.createDirectories(root.resolve(".idea"));
+        alpha = write("Alpha.java", "public class Alpha {}");
+        beta = write("Beta.java", "public class Beta extends Alpha { Gamma gamma; }");
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void savedIndexIsReadBack() throws Exception {
+        IndexCache.load(root.toString()).save(build(null, alpha, beta));
+
+        IndexCache cache = IndexCache.load(root.toString());
+        assertEquals(Arrays.asList("Alpha", "Beta"), cache.names());
+        IndexCache.FileRecord record = cache.validate(beta, new SourceStore());
+        assertNotNull(record);
+        assertEquals("Beta", record.className);
+        assertEquals(Files.size(beta), record.size);
+        assertEquals(IndexCache.hash(ByteBuffer.wrap(Files.readAllBytes(beta))), record.hash);
+        assertArrayEquals(new int[]{0, ReferenceKind.EXTENDS.mask()}, record.hits);
+    }
+
+    @Test
+    public void sameContentWithNewTimestampIsReused() throws Exception {
+        IndexCache.load(root.toString()).save(build(null, alpha, beta));
+        IndexCache cache = IndexCache.load(root.toString());
+        IndexCache.FileRecord before = cache.validate(alpha, new SourceStore());
+
+        FileTime touched = FileTime.fromMillis(before.mtime + 60_000);
+        Files.setLastModifiedTime(alpha, touched);
+        IndexCache.FileRecord after = cache.validate(alpha, new SourceStore());
+        assertNotNull(after);
+        assertEquals(touched.toMillis(), after.mtime);
+        assertEquals(before.hash, after.hash);
+        assertEquals("Alpha", after.className);
+    }
+
+    @Test
+    public void changedFilesAreNotReused() throws Exception {
+        IndexCache.load(root.toString()).save(build(null, alpha, beta));
+        IndexCache cache = IndexCache.load(root.toString());
+
+        // 大小相同但内容不同，需要靠内容哈希识别
+        write("Alpha.java", "public class Alfa_ {}");
+        Files.setLastModifiedTime(alpha, FileTime.fromMillis(Files.getLastModifiedTime(alpha).toMillis() + 60_000));
+        assertNull(cache.validate(alpha, new SourceStore()));
+
+        write("Beta.java", "public class Beta {}");
+        assertNull(cache.validate(beta, new SourceStore()));
+    }
+
+    @Test
+    public void incrementalBuildMatchesFullBuild() throws Exception {
+        IndexCache.load(root.toString()).save(build(null, alpha, beta));
+        // 新增的候选类名只出现在未变化的文件里，必须靠补扫发现
+        Path gamma = write("Gamma.java", "public class Gamma { Alpha alpha; }");
+
+        IdentifierIndex incremental = build(IndexCache.load(root.toString()), alpha, beta, gamma);
+        IdentifierIndex full = build(null, alpha, beta, gamma);
+        for (String name : Arrays.asList("Alpha", "Beta", "Gamma")) {
+            assertEquals(name, full.getReferences(name), incremental.getReferences(name));
+        }
+        assertEquals(EnumSet.of(ReferenceKind.TYPE_USAGE), incremental.getReferences("Gamma").get(beta));
+        assertTrue(incremental.isReferencedOutside("Gamma", gamma));
+        assertEquals("Gamma", incremental.getClassName(gamma));
+    }
+
+    @Test
+    public void nestedClassNamesAreIndexedAndReused() throws Exception {
+        Path outer = write("Outer.java", "public class Outer { static class Inner {} } class Helper {}");
+        Path user = write("User.java", "public class User { Outer.Inner inner; Helper helper; }");
+        IdentifierIndex full = build(null, alpha, beta, outer, user);
+        IndexCache.load(root.toString()).save(full);
+
+        IdentifierIndex incremental = build(IndexCache.load(root.toString()), alpha, beta, outer, user);
+        for (IdentifierIndex index : Arrays.asList(full, incremental)) {
+            assertEquals(Arrays.asList("Outer", "Inner", "Helper"), index.getDeclaredNames(outer));
+            assertEquals(Arrays.asList("Alpha"), index.getDeclaredNames(alpha));
+            assertTrue(index.getReferences("Inner").containsKey(user));
+            assertTrue(index.isReferencedOutside("Helper", outer));
+        }
+    }
+
+    @Test
+    public void indexedFilesAreReleased() throws Exception {
+        IndexCache.load(root.toString()).save(build(null, alpha, beta));
+        write("Beta.java", "public class Beta { Alpha alpha; }");
+
+        SourceStore sourceStore = new SourceStore();
+        List<Path> all = Arrays.asList(alpha, beta);
+        IdentifierIndex.build(all, all, sourceStore, executor, IndexCache.load(root.toString()), ScanProgress.NONE);
+        assertEquals(0, sourceStore.size());
+    }
+
+    @Test
+    public void concurrentSavesLeaveAReadableIndex() throws Exception {
+        IdentifierIndex index = build(null, alpha, beta);
+        ExecutorService savers = Executors.newFixedThreadPool(8);
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        PrintStream err = System.err;
+        System.setErr(new PrintStream(errors, true));
+        try {
+            for (int round = 0; round < 20; round++) {
+                List<Future<?>> saves = new ArrayList<>();
+                for (int i = 0; i < 8; i++) {
+                    saves.add(savers.submit(() -> IndexCache.load(root.toString()).save(index)));
+                }
+                for (Future<?> save : saves) {
+                    save.get();
+                }
+            }
+        } finally {
+            System.setErr(err);
+            savers.shutdownNow();
+        }
+        // 保存失败只会打印错误，不会抛出
+        assertFalse(errors.toString(), errors.toString().contains("保存增量索引失败"));
+
+        IndexCache cache = IndexCache.load(root.toString());
+        assertEquals(Arrays.asList("Alpha", "Beta"), cache.names());
+        assertNotNull(cache.validate(beta, new SourceStore()));
+        try (Stream<Path> files = Files.list(root.resolve(".idea/bigclean"))) {
+            assertEquals(Collections.singletonList(root.resolve(".idea/bigclean/regex-index.bin")), files.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void indexOfAnotherVersionIsDiscarded() throws Exception {
+        IndexCache.load(root.toString()).save(build(null, alpha, beta));
+        Path indexFile = root.resolve(".idea/bigclean/regex-index.bin");
+        byte[] bytes = Files.readAllBytes(indexFile);
+        ByteBuffer.wrap(bytes).putInt(4, 1);
+        Files.write(indexFile, bytes);
+
+        IndexCache cache = IndexCache.load(root.toString());
+        assertTrue(cache.names().isEmpty());
+        assertNull(cache.validate(alpha, new SourceStore()));
+    }
+
+    @Test
+    public void truncatedIndexIsDiscarded() throws Exception {
+        IndexCache.load(root.toString()).save(build(null, alpha, beta));
+        Path indexFile = root.resolve(".idea/bigclean/regex-index.bin");
+        byte[] bytes = Files.readAllBytes(indexFile);
+        Files.write(indexFile, Arrays.copyOf(bytes, bytes.length - 6));
+
+        IndexCache cache = IndexCache.load(root.toString());
+        assertTrue(cache.names().isEmpty());
+        assertNull(cache.validate(beta, new SourceStore()));
+    }
+
+    @Test
+    public void indexOfAnotherProjectIsDiscarded() throws Exception {
+        IndexCache.load(root.toString()).save(build(null, alpha, beta));
+        Path other = folder.newFolder("other").toPath().toAbsolutePath().normalize();
+        Files.createDirectories(other.resolve(".idea/bigclean"));
+        Files.copy(root.resolve(".idea/bigclean/regex-index.bin"), other.resolve(".idea/bigclean/regex-index.bin"));
+        Path copied = Files.copy(alpha, other.resolve("Alpha.java"));
+        Files.setLastModifiedTime(copied, Files.getLastModifiedTime(alpha));
+
+        IndexCache cache = IndexCache.load(other.toString());
+        assertTrue(cache.names().isEmpty());
+        assertNull(cache.validate(copied, new SourceStore()));
+    }
+
+    private IdentifierIndex build(IndexCache cache, Path... files) throws Exception {
+        List<Path> all = Arrays.asList(files);
+        return IdentifierIndex.build(all, all, new SourceStore(), executor, cache, ScanProgress.NONE);
+    }
+
+    private Path write(String name, String source) throws IOException {
+        return Files.write(root.resolve(name), source.getBytes(StandardCharsets.UTF_8));
+    }
+}
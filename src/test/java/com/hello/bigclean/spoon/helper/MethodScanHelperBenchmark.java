@@ -0,0 +1,80 @@
+package com.hello.bigclean.spoon.helper;
+
+import spoon.Launcher;
+import spoon.reflect.CtModel;
+import spoon.reflect.code.CtInvocation;
+import spoon.reflect.declaration.CtClass;
+import spoon.reflect.visitor.filter.TypeFilter;
+import spoon.support.compiler.VirtualFile;
+
+import java.util.List;
+
+/**
+ * 对比 {@link MethodScanHelper#isNoArgSuperCall} / {@link MethodScanHelper#isEmptyAnonymousClass}
+ * 与原先基于 toString() 的判断的耗时，并确认两者结果一致。
+ * 用测试类路径直接运行：java -cp <测试类路径> com.hello.bigclean.spoon.helper.MethodScanHelperBenchmark [类数] [轮数]
+ */
+public class MethodScanHelperBenchmark {
+
+    public static void main(String[] args) {
+        int classes = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        CtModel model = buildModel(classes);
+        List<CtInvocation<?>> invocations = model.getElements(new TypeFilter<>(CtInvocation.class));
+        List<CtClass<?>> ctClasses = model.getElements(new TypeFilter<>(CtClass.class));
+        System.out.println("模型: " + invocations.size() + " 个调用, " + ctClasses.size() + " 个类");
+
+        for (int round = 1; round <= rounds; round++) {
+            long start = System.nanoTime();
+            int printed = 0;
+            for (CtInvocation<?> invocation : invocations) {
+                printed += "super()".equals(invocation.toString()) ? 1 : 0;
+            }
+            for (CtClass<?> ctClass : ctClasses) {
+                printed += "{}".equals(ctClass.toString()) ? 1 : 0;
+            }
+            long toStringNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int structural = 0;
+            for (CtInvocation<?> invocation : invocations) {
+                structural += MethodScanHelper.isNoArgSuperCall(invocation) ? 1 : 0;
+            }
+            for (CtClass<?> ctClass : ctClasses) {
+                structural += MethodScanHelper.isEmptyAnonymousClass(ctClass) ? 1 : 0;
+            }
+            long structuralNanos = System.nanoTime() - start;
+
+            if (printed != structural) {
+                throw new IllegalStateException("结果不一致: toString() " + printed + ", 结构判断 " + structural);
+            }
+            System.out.printf("第 %d 轮: toString() %.1f ms, 结构判断 %.1f ms, 命中 %d%n",
+                    round, toStringNanos / 1e6, structuralNanos / 1e6, structural);
+        }
+    }
+
+    /**
+     * 生成 classes 个类，覆盖隐式/显式 super()、带参 super、this()、空与非空的匿名类
+     */
+    static CtModel buildModel(int classes) {
+        Launcher launcher = new Launcher();
+        launcher.getEnvironment().setNoClasspath(true);
+        launcher.getEnvironment().setComplianceLevel(8);
+        launcher.addInputResource(new VirtualFile("package gen; public class Base {"
+                + " public Base() {} public Base(int value) {} public void run() {} }", "gen/Base.java"));
+        for (int i = 0; i < classes; i++) {
+            String name = "C" + i;
+            launcher.addInputResource(new VirtualFile("package gen; public class " + name + " extends Base {"
+                    + " private final Object empty = new Object() {};"
+                    + " private final Runnable task = new Runnable() { public void run() { helper(); } };"
+                    + " " + name + "() { super(); }"
+                    + " " + name + "(int value) { super(value); }"
+                    + " " + name + "(String value) { this(); }"
+                    + " " + name + "(long value) { }"
+                    + " void helper() { new Base() {}; new Base(1) { }; run(); }"
+                    + " static class Nested { Nested() { super(); } }"
+                    + " }", "gen/" + name + ".java"));
+        }
+        return launcher.buildModel();
+    }
+}
@@ -0,0 +1,120 @@
+package com.hello.bigclean.spoon.helper;
+
+import com.hello.bigclean.util.ScanProgress;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import spoon.Launcher;
+import spoon.reflect.CtModel;
+import spoon.reflect.code.CtInvocation;
+import spoon.reflect.declaration.CtClass;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.visitor.filter.TypeFilter;
+import spoon.support.compiler.VirtualFile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MethodScanHelperTest {
+    private static CtModel model;
+
+    @BeforeClass
+    public static void buildModel() {
+        Launcher launcher = new Launcher();
+        launcher.getEnvironment().setNoClasspath(true);
+        launcher.getEnvironment().setComplianceLevel(8);
+        launcher.addInputResource(new VirtualFile(
+                "package p;"
+                        + " public class Calls extends Base {"
+                        + "  Calls() { }"
+                        + "  Calls(int a) { super(); }"
+                        + "  Calls(String a) { super(a); }"
+                        + "  Calls(long a) { this(); }"
+                        + "  Calls(Object a) { this(1); }"
+                        + "  void calls() { run(); this.run(); super.run(); new Base(); }"
+                        + "  Object anonymous() {"
+                        + "   new Object() {};"
+                        + "   new Base(\"x\") {};"
+                        + "   new Object() { int field; };"
+                        + "   new Object() { { run(); } };"
+                        + "   return new Runnable() { public void run() { } };"
+                        + "  }"
+                        + "  class Inner extends Base { Inner() { super(); } Inner(int a) { this(); } }"
+                        + "  enum Kind { A, B { } }"
+                        + " }", "p/Calls.java"));
+        launcher.addInputResource(new VirtualFile(
+                "package p; public class Base { public Base() { } public Base(String a) { } public void run() { } }", "p/Base.java"));
+        model = launcher.buildModel();
+    }
+
+    @Test
+    public void noArgSuperCallMatchesToStringCheck() {
+        List<CtInvocation<?>> invocations = model.getElements(new TypeFilter<>(CtInvocation.class));
+        int superCalls = 0;
+        for (CtInvocation<?> invocation : invocations) {
+            boolean expected = "super()".equals(invocation.toString());
+            assertEquals(describe(invocation), expected, MethodScanHelper.isNoArgSuperCall(invocation));
+            superCalls += expected ? 1 : 0;
+        }
+        // 用例中既有命中也有未命中，比较才有意义
+        assertTrue(String.valueOf(superCalls), superCalls > 0 && superCalls < invocations.size());
+    }
+
+    @Test
+    public void emptyAnonymousClassMatchesToStringCheck() {
+        List<CtClass<?>> classes = model.getElements(new TypeFilter<>(CtClass.class));
+        List<String> empty = new ArrayList<>();
+        for (CtClass<?> ctClass : classes) {
+            boolean expected = "{}".equals(ctClass.toString());
+            assertEquals(describe(ctClass), expected, MethodScanHelper.isEmptyAnonymousClass(ctClass));
+            if (expected) {
+                empty.add(ctClass.getQualifiedName());
+            }
+        }
+        assertTrue(empty.toString(), !empty.isEmpty() && empty.size() < classes.size());
+    }
+
+    @Test
+    public void benchmarkModelAgreesWithToStringCheck() {
+        CtModel generated = MethodScanHelperBenchmark.buildModel(5);
+        for (CtInvocation<?> invocation : generated.getElements(new TypeFilter<>(CtInvocation.class))) {
+            assertEquals(describe(invocation), "super()".equals(invocation.toString()), MethodScanHelper.isNoArgSuperCall(invocation));
+        }
+        for (CtClass<?> ctClass : generated.getElements(new TypeFilter<>(CtClass.class))) {
+            assertEquals(describe(ctClass), "{}".equals(ctClass.toString()), MethodScanHelper.isEmptyAnonymousClass(ctClass));
+        }
+    }
+
+    @Test
+    public void callsThroughArrayElementsReachImplementations() throws InterruptedException {
+        Launcher launcher = new Launcher();
+        launcher.getEnvironment().setNoClasspath(true);
+        launcher.getEnvironment().setComplianceLevel(8);
+        launcher.addInputResource(new VirtualFile("package com.arr; public interface Handler { void handle(); }", "com/arr/Handler.java"));
+        launcher.addInputResource(new VirtualFile("package com.arr; public class A implements Handler { public void handle() { } }", "com/arr/A.java"));
+        launcher.addInputResource(new VirtualFile("package com.arr; public class B implements Handler { public void handle() { } }", "com/arr/B.java"));
+        launcher.addInputResource(new VirtualFile("package com.arr; public class Main {"
+                + " void run(Handler[] handlers, Handler[][] grid) { handlers[0].handle(); grid[0][0].handle(); }"
+                + " }", "com/arr/Main.java"));
+        CtModel arrays = launcher.buildModel();
+        List<CtMethod<?>> methods = arrays.getElements(new TypeFilter<>(CtMethod.class));
+
+        List<String> used = new ArrayList<>();
+        try (AnalysisSession session = new AnalysisSession()) {
+            for (CtMethod<?> method : MethodScanHelper.getUsedMethods(session, methods, arrays, ScanProgress.NONE)) {
+                used.add(method.getDeclaringType().getSimpleName() + "." + method.getSimpleName());
+            }
+        }
+        Collections.sort(used);
+        assertEquals(Arrays.asList("A.handle", "B.handle", "Handler.handle"), used);
+    }
+
+    private static String describe(CtElement element) {
+        return element.getClass().getSimpleName() + " " + element.getPosition() + ": " + element;
+    }
+}
@@ -0,0 +1,144 @@
+package com.hello.bigclean.spoon.helper;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import spoon.Launcher;
+import spoon.reflect.CtModel;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.declaration.CtType;
+import spoon.reflect.declaration.CtTypeMember;
+import spoon.reflect.factory.TypeFactory;
+import spoon.reflect.reference.CtTypeReference;
+import spoon.reflect.visitor.filter.TypeFilter;
+import spoon.support.compiler.VirtualFile;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class MethodSignatureIndexTest {
+    private static CtModel model;
+    private static TypeFactory types;
+
+    @BeforeClass
+    public static void buildModel() {
+        StringBuilder many = new StringBuilder("package gen; public class Many {");
+        for (int i = 0; i < 1500; i++) {
+            many.append("void m").append(i).append("() {}");
+        }
+        many.append('}');
+
+        Launcher launcher = new Launcher();
+        launcher.getEnvironment().setNoClasspath(true);
+        launcher.getEnvironment().setComplianceLevel(8);
+        launcher.addInputResource(new VirtualFile(
+                "package p; import java.util.List;"
+                        + " public class Overloads {"
+                        + "  void foo(int value) {}"
+                        + "  void foo(String value) {}"
+                        + "  <T> void foo(List<T> values) {}"
+                        + "  void foo(String a, int b) {}"
+                        + "  void bar() {}"
+                        + " }", "p/Overloads.java"));
+        launcher.addInputResource(new VirtualFile("package a; public class Util { void run() {} }", "a/Util.java"));
+        launcher.addInputResource(new VirtualFile("package b; public class Util { void run() {} }", "b/Util.java"));
+        launcher.addInputResource(new VirtualFile(many.toString(), "gen/Many.java"));
+        model = launcher.buildModel();
+        types = launcher.getFactory().Type();
+    }
+
+    @Test
+    public void selectsOverloadByErasedParameterTypes() {
+        MethodSignatureIndex index = indexOf("p.Overloads");
+
+        assertSame(method("p.Overloads", "foo", "int"), index.find("p.Overloads", "foo", 1, params(types.INTEGER_PRIMITIVE)));
+        assertSame(method("p.Overloads", "foo", "java.lang.String"), index.find("p.Overloads", "foo", 1, params(types.STRING)));
+        assertSame(method("p.Overloads", "foo", "java.util.List"),
+                index.find("p.Overloads", "foo", 1, params(types.createReference("java.util.List"))));
+        assertSame(method("p.Overloads", "foo", "java.lang.String,int"),
+                index.find("p.Overloads", "foo", 2, params(types.STRING, types.INTEGER_PRIMITIVE)));
+    }
+
+    @Test
+    public void fallsBackToFirstOverloadWithoutExactMatch() {
+        MethodSignatureIndex index = indexOf("p.Overloads");
+        CtMethod<?> first = method("p.Overloads", "foo", "int");
+
+        assertSame(first, index.find("p.Overloads", "foo", 1, null));
+        assertSame(first, index.find("p.Overloads", "foo", 1, params(types.BOOLEAN_PRIMITIVE)));
+        assertSame(method("p.Overloads", "bar", ""), index.find("p.Overloads", "bar", 0, Collections.emptyList()));
+    }
+
+    @Test
+    public void returnsNullForUnknownSignatures() {
+        MethodSignatureIndex index = indexOf("p.Overloads");
+
+        assertNull(index.find("p.Overloads", "foo", 3, null));
+        assertNull(index.find("p.Overloads", "baz", 0, null));
+        assertNull(index.find("p.Missing", "foo", 1, null));
+    }
+
+    @Test
+    public void keepsSameNamedClassesInDifferentPackagesApart() {
+        MethodSignatureIndex index = indexOf("a.Util", "b.Util");
+
+        assertSame(method("a.Util", "run", ""), index.find("a.Util", "run", 0, null));
+        assertSame(method("b.Util", "run", ""), index.find("b.Util", "run", 0, null));
+    }
+
+    @Test
+    public void findsEveryMethodAfterRehash() {
+        MethodSignatureIndex index = indexOf("gen.Many", "p.Overloads");
+        assertEquals(1505, index.size());
+
+        for (int i = 0; i < 1500; i++) {
+            CtMethod<?> found = index.find("gen.Many", "m" + i, 0, null);
+            assertNotNull("m" + i, found);
+            assertEquals("m" + i, found.getSimpleName());
+        }
+        assertSame(method("p.Overloads", "foo", "java.lang.String"), index.find("p.Overloads", "foo", 1, params(types.STRING)));
+    }
+
+    private static MethodSignatureIndex indexOf(String... typeNames) {
+        MethodSignatureIndex index = new MethodSignatureIndex();
+        for (String typeName : typeNames) {
+            // 按声明顺序登记，第一个重载即源码中的第一个
+            for (CtTypeMember member : type(typeName).getTypeMembers()) {
+                if (member instanceof CtMethod) {
+                    index.add((CtMethod<?>) member);
+                }
+            }
+        }
+        return index;
+    }
+
+    private static CtType<?> type(String qualifiedName) {
+        for (CtType<?> type : model.getElements(new TypeFilter<>(CtType.class))) {
+            if (qualifiedName.equals(type.getQualifiedName())) {
+                return type;
+            }
+        }
+        throw new AssertionError("missing type " + qualifiedName);
+    }
+
+    private static CtMethod<?> method(String typeName, String name, String erasedParameters) {
+        for (CtMethod<?> method : type(typeName).getMethods()) {
+            StringBuilder signature = new StringBuilder();
+            method.getParameters().forEach(parameter -> signature.append(signature.length() > 0 ? "," : "")
+                    .append(parameter.getType().getTypeErasure().getQualifiedName()));
+            if (name.equals(method.getSimpleName()) && erasedParameters.equals(signature.toString())) {
+                return method;
+            }
+        }
+        throw new AssertionError("missing method " + typeName + "#" + name + "(" + erasedParameters + ")");
+    }
+
+    private static List<CtTypeReference<?>> params(CtTypeReference<?>... references) {
+        return Arrays.asList(references);
+    }
+}
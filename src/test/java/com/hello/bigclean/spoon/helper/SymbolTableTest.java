@@ -0,0 +1,29 @@
+package com.hello.bigclean.spoon.helper;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class SymbolTableTest {
+
+    @Test
+    public void internAssignsConsecutiveIdsFromOne() {
+        SymbolTable symbols = new SymbolTable();
+        assertEquals(1, symbols.intern("com.foo.Bar"));
+        assertEquals(2, symbols.intern("run"));
+        assertEquals(1, symbols.intern("com.foo.Bar"));
+        assertEquals(2, symbols.size());
+        assertEquals("run", symbols.symbolOf(2));
+    }
+
+    @Test
+    public void idOfDoesNotRegisterNewSymbols() {
+        SymbolTable symbols = new SymbolTable();
+        symbols.intern("a.Util");
+        assertEquals(SymbolTable.NOT_FOUND, symbols.idOf("b.Util"));
+        assertEquals(SymbolTable.NOT_FOUND, symbols.idOf(null));
+        assertEquals(1, symbols.size());
+        assertNotEquals(SymbolTable.NOT_FOUND, symbols.idOf("a.Util"));
+    }
+}